@@ -0,0 +1,95 @@
+package com.weatherapp.bench;
+
+import com.weatherapp.analytics.WeatherAnalytics;
+import com.weatherapp.api.JsonParser;
+import com.weatherapp.model.ForecastSeries;
+import okio.Buffer;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link WeatherAnalytics} on 10,000 city forecasts of 40 steps each, variations of the
+ * recorded fixture, on pools of 1, 2, 4 and 8 threads. One operation analyzes the whole batch,
+ * so ops/s times 10,000 is cities per second. Scaling shows as ops/s growing with the thread
+ * count, up to the number of available cores. Before measuring, each pool's result is checked
+ * against the single-threaded one.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AnalyticsBenchmark {
+    private static final int CITIES = 10_000;
+
+    @Param({ "1", "2", "4", "8" })
+    public int threads;
+
+    private WeatherAnalytics.Batch batch;
+    private ForkJoinPool pool;
+    private WeatherAnalytics analytics;
+
+    @Setup
+    public void setUp() throws Exception {
+        ForecastSeries fixture = JsonParser.parseForecastSeries(new Buffer().write(Fixtures.load("/fixtures/five_day_forecast.json")));
+        List<ForecastSeries> forecasts = new ArrayList<>(CITIES);
+        for (int city = 0; city < CITIES; city++) {
+            ForecastSeries.Builder builder = new ForecastSeries.Builder(fixture.size());
+            float offset = (city % 61) - 30; // From polar to tropical, so every feels-like branch is taken.
+            for (int i = 0; i < fixture.size(); i++) {
+                builder.add(fixture.getTimestamp(i) + city * 60L, fixture.getTemperature(i) + offset,
+                        (fixture.getHumidity(i) + city) % 101, fixture.getWindSpeed(i) * (1 + city % 3),
+                        fixture.getIconId(i), fixture.getPrecipitationProbability(i));
+            }
+            forecasts.add(builder.build());
+        }
+        batch = WeatherAnalytics.Batch.of(forecasts);
+        ZoneId zone = ZoneId.of("UTC");
+
+        pool = new ForkJoinPool(threads);
+        analytics = new WeatherAnalytics(zone, pool);
+        if (threads > 1) {
+            ForkJoinPool single = new ForkJoinPool(1);
+            try {
+                verifySame(new WeatherAnalytics(zone, single).analyze(batch), analytics.analyze(batch), batch.getSampleCount());
+            } finally {
+                single.shutdown();
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public WeatherAnalytics.Result analyze() {
+        return analytics.analyze(batch);
+    }
+
+    private static void verifySame(WeatherAnalytics.Result expected, WeatherAnalytics.Result actual, int samples) {
+        boolean same = expected.getDayCount() == actual.getDayCount();
+        for (int i = 0; same && i < samples; i++) {
+            same = Float.compare(expected.getFeelsLike(i), actual.getFeelsLike(i)) == 0
+                    && Float.compare(expected.getDewPoint(i), actual.getDewPoint(i)) == 0;
+        }
+        for (int day = 0; same && day < expected.getDayCount(); day++) {
+            same = expected.getEpochDay(day) == actual.getEpochDay(day)
+                    && expected.getSampleCount(day) == actual.getSampleCount(day)
+                    && Float.compare(expected.getMinTemperature(day), actual.getMinTemperature(day)) == 0
+                    && Float.compare(expected.getMaxTemperature(day), actual.getMaxTemperature(day)) == 0
+                    && Float.compare(expected.getMinFeelsLike(day), actual.getMinFeelsLike(day)) == 0
+                    && Float.compare(expected.getMaxFeelsLike(day), actual.getMaxFeelsLike(day)) == 0
+                    && Float.compare(expected.getMeanDewPoint(day), actual.getMeanDewPoint(day)) == 0
+                    && Float.compare(expected.getPrecipitationChance(day), actual.getPrecipitationChance(day)) == 0;
+        }
+        if (!same) throw new IllegalStateException("Parallel analysis differs from the single-threaded result");
+    }
+}
@@ -0,0 +1,110 @@
+package com.weatherapp.bench;
+
+import com.weatherapp.gui.component.TemperatureChart;
+import com.weatherapp.model.ForecastSeries;
+import org.openjdk.jmh.annotations.*;
+
+import javax.swing.JComponent;
+import javax.swing.RepaintManager;
+import java.awt.*;
+import java.awt.event.MouseEvent;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the forecast chart with a month of observations every ten minutes (4,320 points)
+ * ahead of a 5-day forecast. One operation is one frame, so ops/s is frames per second:
+ * "redraw" changes the data every frame so the whole chart is drawn from scratch, as it is
+ * when a new forecast arrives; "hover" moves the mouse one pixel and repaints only the
+ * region the chart asks to repaint, as Swing does while the mouse moves over it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class ChartBenchmark {
+    private static final int WIDTH = 600;
+    private static final int HEIGHT = 180;
+    private static final int OBSERVATIONS = 30 * 24 * 6;
+
+    @Param({ "1", "2" })
+    public int scale;
+
+    private final DirtyRegions dirty = new DirtyRegions();
+    private ForecastSeries forecast;
+    private ForecastSeries[] observed;
+    private BufferedImage frame;
+    private TemperatureChart chart;
+    private int frames;
+    private int mouseX;
+
+    @Setup
+    public void setUp() {
+        long now = System.currentTimeMillis() / 1000;
+        forecast = series(now, 40, 3 * 3600, 0);
+        observed = new ForecastSeries[] {
+                series(now - OBSERVATIONS * 600L, OBSERVATIONS, 600, 0),
+                series(now - OBSERVATIONS * 600L, OBSERVATIONS, 600, 0.5f)
+        };
+        RepaintManager.setCurrentManager(dirty);
+
+        frame = new BufferedImage(WIDTH * scale, HEIGHT * scale, BufferedImage.TYPE_INT_RGB);
+        chart = new TemperatureChart();
+        chart.setBackground(new Color(0x1C1F27));
+        chart.setForeground(new Color(0x718096));
+        chart.setFont(new Font(Font.SANS_SERIF, Font.PLAIN, 13));
+        chart.setSize(WIDTH, HEIGHT);
+        chart.setSeries(observed[0], forecast);
+        paint(null);
+    }
+
+    @Benchmark
+    public BufferedImage redraw() {
+        chart.setSeries(observed[++frames & 1], forecast);
+        return paint(null);
+    }
+
+    @Benchmark
+    public BufferedImage hover() {
+        mouseX = mouseX % (WIDTH - 100) + 1;
+        dirty.area = null;
+        chart.dispatchEvent(new MouseEvent(chart, MouseEvent.MOUSE_MOVED, 0, 0, 50 + mouseX, HEIGHT / 2, 0, false));
+        return dirty.area == null ? frame : paint(dirty.area);
+    }
+
+    // A daily cycle with some noise, so the decimated line has peaks to keep.
+    private static ForecastSeries series(long start, int size, int step, float offset) {
+        ForecastSeries.Builder builder = new ForecastSeries.Builder(size);
+        for (int i = 0; i < size; i++) {
+            long time = start + (long) i * step;
+            float temperature = 24 + offset + 6 * (float) Math.sin(time * 2 * Math.PI / 86_400) + (i * 7919 % 13) / 10f;
+            builder.add(time, temperature, 60, 3, ForecastSeries.iconId("01d"));
+        }
+        return builder.build();
+    }
+
+    private BufferedImage paint(Rectangle clip) {
+        Graphics2D graphics = frame.createGraphics();
+        try {
+            graphics.scale(scale, scale);
+            if (clip != null) graphics.clip(clip);
+            chart.paint(graphics);
+        } finally {
+            graphics.dispose();
+        }
+        return frame;
+    }
+
+    // Collects what components ask to repaint, since a headless chart has no window to repaint it.
+    private static class DirtyRegions extends RepaintManager {
+        Rectangle area;
+
+        @Override
+        public void addDirtyRegion(JComponent component, int x, int y, int width, int height) {
+            Rectangle region = new Rectangle(x, y, width, height);
+            area = area == null ? region : area.union(region);
+        }
+    }
+}
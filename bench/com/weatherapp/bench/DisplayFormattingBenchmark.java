@@ -0,0 +1,44 @@
+package com.weatherapp.bench;
+
+import com.weatherapp.model.WeatherData;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures turning a WeatherData model into the label text shown by WeatherAppGui.showWeatherData,
+ * including the sunrise/sunset formatting done by convertTimestampToTime.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DisplayFormattingBenchmark {
+    private final WeatherData sample = new WeatherData("Mumbai", 29.99, "haze", "50d", 3.6, 70, 1760662390L, 1760704550L);
+
+    @Benchmark
+    public String convertTimestampToTime() {
+        return convertTimestampToTime(sample.getSunrise());
+    }
+
+    @Benchmark
+    public String[] showWeatherDataLabelText() {
+        return new String[] {
+                String.format("%.0f°C", sample.getTemperature()),
+                String.format("%.2f km/h", sample.getWindSpeed()),
+                sample.getHumidity() + " %",
+                convertTimestampToTime(sample.getSunrise()),
+                convertTimestampToTime(sample.getSunset())
+        };
+    }
+
+    // Same expression as WeatherAppGui.convertTimestampToTime.
+    private static String convertTimestampToTime(long timestamp) {
+        return Instant.ofEpochSecond(timestamp).atZone(ZoneId.systemDefault()).toLocalTime().format(DateTimeFormatter.ofPattern("h:mm a"));
+    }
+}
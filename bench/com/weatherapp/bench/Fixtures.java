@@ -0,0 +1,24 @@
+package com.weatherapp.bench;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * The recorded OpenWeatherMap responses bundled under {@code bench/resources}.
+ */
+public final class Fixtures {
+
+    private Fixtures() {
+    }
+
+    /**
+     * @param path The classpath resource path, e.g. "/fixtures/current_weather.json".
+     * @return The fixture's raw bytes.
+     */
+    public static byte[] load(String path) throws IOException {
+        try (InputStream in = Fixtures.class.getResourceAsStream(path)) {
+            if (in == null) throw new IOException("Fixture not found: " + path);
+            return in.readAllBytes();
+        }
+    }
+}
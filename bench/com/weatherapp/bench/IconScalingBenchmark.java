@@ -0,0 +1,56 @@
+package com.weatherapp.bench;
+
+import com.weatherapp.util.IconLoader;
+import org.openjdk.jmh.annotations.*;
+
+import javax.imageio.ImageIO;
+import javax.swing.ImageIcon;
+import java.awt.Image;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.net.URL;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of producing a scaled weather icon the way WeatherAppGui.loadWeatherIcon used to:
+ * decode the PNG from resources, scale it with {@code getScaledInstance(SCALE_SMOOTH)} and wrap it in
+ * an ImageIcon, which blocks until the scaled image has actually been produced.
+ * Sizes match the main icon (120), the forecast tiles (50) and the recent searches (40).
+ * Decoding and scaling run on AWT's image fetcher threads, so the gc profiler under-reports the real allocation.
+ * The IconLoader variants measure a cold progressive scale of an already decoded image and the cached lookup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class IconScalingBenchmark {
+    // IconLoader.KNOWN_SIZES
+    @Param({ "120", "50", "40" })
+    public int size;
+
+    private BufferedImage decoded;
+
+    @Setup
+    public void setUp() throws Exception {
+        decoded = ImageIO.read(new ByteArrayInputStream(Fixtures.load("/assets/01d.png")));
+    }
+
+    @Benchmark
+    public ImageIcon getScaledInstance() {
+        URL resource = IconScalingBenchmark.class.getResource("/assets/01d.png");
+        ImageIcon icon = new ImageIcon(resource);
+        return new ImageIcon(icon.getImage().getScaledInstance(size, size, Image.SCALE_SMOOTH));
+    }
+
+    @Benchmark
+    public BufferedImage iconLoaderScale() {
+        return IconLoader.scale(decoded, size);
+    }
+
+    @Benchmark
+    public ImageIcon iconLoaderGetIcon() {
+        return IconLoader.getIcon("01d", size);
+    }
+}
@@ -0,0 +1,102 @@
+package com.weatherapp.bench;
+
+import com.weatherapp.api.JsonParser;
+import com.weatherapp.model.ForecastData;
+import com.weatherapp.model.ForecastSeries;
+import com.weatherapp.model.WeatherData;
+import okio.Buffer;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the streaming JsonParser path against the original json-simple DOM path
+ * on recorded OpenWeatherMap payloads.
+ * <p>
+ * The DOM path mirrors what the client used to do: decode the body into a String,
+ * build a JSONObject tree, then walk it. The streaming path reads the same bytes
+ * from an okio Buffer, as it would from a live ResponseBody.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonParserBenchmark {
+    private byte[] current;
+    private byte[] forecast;
+    private ForecastSeries series;
+    private final ZoneId zone = ZoneId.systemDefault();
+
+    @Setup
+    public void setUp() throws Exception {
+        current = Fixtures.load("/fixtures/current_weather.json");
+        forecast = Fixtures.load("/fixtures/five_day_forecast.json");
+
+        // Sanity check: both paths must agree before their speed is worth comparing.
+        WeatherData domCurrent = JsonParser.parseCurrentWeather(parseDom(current));
+        WeatherData streamedCurrent = JsonParser.parseCurrentWeather(new Buffer().write(current));
+        if (domCurrent.getTemperature() != streamedCurrent.getTemperature()
+                || !domCurrent.getIconCode().equals(streamedCurrent.getIconCode())) {
+            throw new IllegalStateException("Streaming and DOM parsers disagree on current weather");
+        }
+        List<ForecastData> domForecast = JsonParser.parseFiveDayForecast(parseDom(forecast));
+        List<ForecastData> streamedForecast = JsonParser.parseFiveDayForecast(new Buffer().write(forecast));
+        if (domForecast.size() != streamedForecast.size()) {
+            throw new IllegalStateException("Streaming and DOM parsers disagree on the forecast");
+        }
+        series = JsonParser.parseForecastSeries(new Buffer().write(forecast));
+    }
+
+    @Benchmark
+    public WeatherData parseCurrentWeatherDom() throws Exception {
+        return JsonParser.parseCurrentWeather(parseDom(current));
+    }
+
+    @Benchmark
+    public WeatherData parseCurrentWeatherStreaming() throws Exception {
+        return JsonParser.parseCurrentWeather(new Buffer().write(current));
+    }
+
+    @Benchmark
+    public List<ForecastData> parseFiveDayForecastDom() throws Exception {
+        return JsonParser.parseFiveDayForecast(parseDom(forecast));
+    }
+
+    @Benchmark
+    public List<ForecastData> parseFiveDayForecastStreaming() throws Exception {
+        return JsonParser.parseFiveDayForecast(new Buffer().write(forecast));
+    }
+
+    @Benchmark
+    public ForecastSeries parseForecastSeriesStreaming() throws Exception {
+        return JsonParser.parseForecastSeries(new Buffer().write(forecast));
+    }
+
+    // Aggregations over an already parsed series: these should allocate little beyond their result.
+
+    @Benchmark
+    public ForecastSeries.DailyStats seriesDaily() {
+        return series.daily(zone);
+    }
+
+    @Benchmark
+    public List<ForecastData> seriesToDailySummary() {
+        return series.toDailySummary(zone, 5);
+    }
+
+    @Benchmark
+    public ForecastSeries seriesDownsample() {
+        return series.downsample(10);
+    }
+
+    private static JSONObject parseDom(byte[] body) throws Exception {
+        return (JSONObject) new JSONParser().parse(new String(body, StandardCharsets.UTF_8));
+    }
+}
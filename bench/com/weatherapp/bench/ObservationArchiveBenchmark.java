@@ -0,0 +1,101 @@
+package com.weatherapp.bench;
+
+import com.weatherapp.api.JsonParser;
+import com.weatherapp.model.ForecastData;
+import com.weatherapp.model.WeatherData;
+import com.weatherapp.server.ModelJson;
+import com.weatherapp.store.ObservationArchive;
+import okio.Buffer;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares keeping observations as JSON with keeping them in an {@link ObservationArchive}.
+ * <p>
+ * The observations are variations of the recorded fixtures: 500 cities, each observed every 10
+ * minutes. Before measuring, the size of each format is printed. The benchmarks then scan
+ * observations for their mean temperature: by parsing OpenWeatherMap JSON, as the client does,
+ * or through an archive cursor.
+ * One operation scans the first 1,000 observations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ObservationArchiveBenchmark {
+    private static final int OBSERVATIONS = 20_000;
+    private static final int CITIES = 500;
+    private static final int SCAN = 1_000;
+
+    private byte[] currentJson;
+    private Path file;
+    private ObservationArchive archive;
+
+    @Setup
+    public void setUp() throws IOException {
+        currentJson = Fixtures.load("/fixtures/current_weather.json");
+        WeatherData base = JsonParser.parseCurrentWeather(new Buffer().write(currentJson));
+        List<ForecastData> forecast = JsonParser.parseFiveDayForecast(new Buffer().write(Fixtures.load("/fixtures/five_day_forecast.json")));
+
+        List<WeatherData> observations = new ArrayList<>(OBSERVATIONS);
+        for (int i = 0; i < OBSERVATIONS; i++) {
+            int city = i % CITIES;
+            observations.add(new WeatherData(base.getCityId() + city, base.getCityName() + " " + city,
+                    Math.round((base.getTemperature() + 10 * Math.sin(i / 97.0)) * 100) / 100.0,
+                    base.getDescription(), base.getIconCode(), (i % 1500) / 100.0, i % 101,
+                    base.getSunrise(), base.getSunset(), base.getObservedAt() + 600L * (i / CITIES)));
+        }
+
+        file = Files.createTempFile("observations", ".woa");
+        try (ObservationArchive.Writer writer = new ObservationArchive.Writer(file)) {
+            for (WeatherData observation : observations) writer.append(observation, forecast);
+        }
+        archive = ObservationArchive.open(file);
+
+        long ndjsonBytes = 0;
+        for (WeatherData observation : observations) {
+            ndjsonBytes += (ModelJson.toJson(observation) + ModelJson.toJson(forecast) + "\n").getBytes(StandardCharsets.UTF_8).length;
+        }
+        System.out.printf("%n%d observations: OpenWeatherMap JSON %,d bytes, model NDJSON %,d bytes, archive %,d bytes%n",
+                OBSERVATIONS, (long) currentJson.length * OBSERVATIONS, ndjsonBytes, Files.size(file));
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public double scanTemperaturesJson() throws IOException {
+        double sum = 0;
+        for (int i = 0; i < SCAN; i++) {
+            sum += JsonParser.parseCurrentWeather(new Buffer().write(currentJson)).getTemperature();
+        }
+        return sum / SCAN;
+    }
+
+    @Benchmark
+    public double scanTemperaturesArchive() {
+        ObservationArchive.Cursor cursor = archive.cursor();
+        double sum = 0;
+        for (int i = 0; i < SCAN; i++) sum += cursor.moveTo(i).getTemperature();
+        return sum / SCAN;
+    }
+
+    @Benchmark
+    public WeatherData toWeatherDataArchive() {
+        ObservationArchive.Cursor cursor = archive.cursor();
+        WeatherData last = null;
+        for (int i = 0; i < SCAN; i++) last = cursor.moveTo(i).toWeatherData();
+        return last;
+    }
+}
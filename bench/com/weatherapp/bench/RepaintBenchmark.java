@@ -0,0 +1,179 @@
+package com.weatherapp.bench;
+
+import com.weatherapp.gui.component.RoundedPanel;
+import com.weatherapp.gui.component.RoundedTextField;
+import org.openjdk.jmh.annotations.*;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.geom.RoundRectangle2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Measures repainting a whole window laid out like WeatherAppGui's: a search field, the current
+ * weather card, four detail cards, five forecast tiles and eight recent searches, each on a
+ * rounded background. One operation is one full frame, so ops/s is frames per second.
+ * <p>
+ * The "uncached" variant uses copies of RoundedPanel and RoundedTextField as they painted before
+ * their backgrounds were cached; the other uses the current components. A scale of 2 paints
+ * through a scaled Graphics, as Swing does on a HiDPI screen.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class RepaintBenchmark {
+    private static final int WIDTH = 1000;
+    private static final int HEIGHT = 800;
+    // Same colors as WeatherAppGui.
+    private static final Color BACKGROUND_COLOR = new Color(0x0D0F12);
+    private static final Color COMPONENT_COLOR = new Color(0x1C1F27);
+    private static final Color TEXT_COLOR = new Color(0xE2E8F0);
+
+    @Param({ "1", "2" })
+    public int scale;
+
+    private BufferedImage frame;
+    private JComponent uncached;
+    private JComponent cached;
+
+    @Setup
+    public void setUp() {
+        frame = new BufferedImage(WIDTH * scale, HEIGHT * scale, BufferedImage.TYPE_INT_RGB);
+        uncached = buildWindow(() -> new UncachedRoundedPanel(20), () -> new UncachedRoundedTextField(20));
+        cached = buildWindow(() -> new RoundedPanel(new GridBagLayout(), 20), () -> new RoundedTextField(20));
+    }
+
+    @Benchmark
+    public BufferedImage repaintUncached() {
+        return paint(uncached, frame, scale);
+    }
+
+    @Benchmark
+    public BufferedImage repaintCached() {
+        return paint(cached, frame, scale);
+    }
+
+    private static BufferedImage paint(JComponent window, BufferedImage frame, int scale) {
+        Graphics2D graphics = frame.createGraphics();
+        try {
+            graphics.scale(scale, scale);
+            window.paint(graphics);
+        } finally {
+            graphics.dispose();
+        }
+        return frame;
+    }
+
+    private static JComponent buildWindow(Supplier<JPanel> panels, Supplier<JTextField> textFields) {
+        JPanel window = new JPanel(new BorderLayout(20, 20));
+        window.setBackground(BACKGROUND_COLOR);
+        window.setBorder(BorderFactory.createEmptyBorder(20, 20, 20, 20));
+
+        JPanel searchPanel = card(panels, null);
+        JTextField searchField = textFields.get();
+        searchField.setBackground(COMPONENT_COLOR);
+        searchField.setForeground(TEXT_COLOR);
+        searchField.setText("Mumbai");
+        searchField.setColumns(30);
+        searchPanel.add(searchField);
+        window.add(searchPanel, BorderLayout.NORTH);
+
+        JPanel centre = new JPanel(new GridLayout(1, 2, 20, 20));
+        centre.setOpaque(false);
+        centre.add(card(panels, "Mumbai  30°C  haze"));
+        JPanel details = new JPanel(new GridLayout(2, 2, 20, 20));
+        details.setOpaque(false);
+        for (String detail : new String[] { "Wind 3.60 km/h", "Humidity 70 %", "Sunrise 6:33 AM", "Sunset 6:15 PM" }) {
+            details.add(card(panels, detail));
+        }
+        centre.add(details);
+        window.add(centre, BorderLayout.CENTER);
+
+        JPanel forecast = new JPanel(new GridLayout(1, 5, 20, 20));
+        forecast.setOpaque(false);
+        for (String day : new String[] { "Mon 31°", "Tue 30°", "Wed 29°", "Thu 31°", "Fri 32°" }) {
+            forecast.add(card(panels, day));
+        }
+        window.add(forecast, BorderLayout.SOUTH);
+
+        JPanel recent = new JPanel(new GridLayout(8, 1, 10, 10));
+        recent.setOpaque(false);
+        for (int i = 0; i < 8; i++) {
+            recent.add(card(panels, "City " + i + "  2" + i + "°C"));
+        }
+        window.add(recent, BorderLayout.EAST);
+
+        window.setSize(WIDTH, HEIGHT);
+        layout(window);
+        return window;
+    }
+
+    private static JPanel card(Supplier<JPanel> panels, String text) {
+        JPanel panel = panels.get();
+        panel.setBackground(COMPONENT_COLOR);
+        if (text != null) {
+            JLabel label = new JLabel(text);
+            label.setForeground(TEXT_COLOR);
+            panel.add(label);
+        }
+        return panel;
+    }
+
+    // Headless components have no peer to validate them, so lay the tree out directly.
+    private static void layout(Container container) {
+        container.doLayout();
+        for (Component child : container.getComponents()) {
+            if (child instanceof Container) layout((Container) child);
+        }
+    }
+
+    // RoundedPanel as it painted before its background was cached.
+    private static class UncachedRoundedPanel extends JPanel {
+        private final int cornerRadius;
+
+        UncachedRoundedPanel(int radius) {
+            super(new GridBagLayout());
+            this.cornerRadius = radius;
+            setOpaque(false);
+        }
+
+        @Override
+        protected void paintComponent(Graphics g) {
+            super.paintComponent(g);
+            Dimension arcs = new Dimension(cornerRadius, cornerRadius);
+            Graphics2D graphics = (Graphics2D) g;
+            graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            graphics.setColor(getBackground());
+            graphics.fillRoundRect(0, 0, getWidth() - 1, getHeight() - 1, arcs.width, arcs.height);
+        }
+    }
+
+    // RoundedTextField as it painted before its background was cached.
+    private static class UncachedRoundedTextField extends JTextField {
+        private final int cornerRadius;
+
+        UncachedRoundedTextField(int cornerRadius) {
+            this.cornerRadius = cornerRadius;
+            setOpaque(false);
+        }
+
+        @Override
+        protected void paintComponent(Graphics g) {
+            Graphics2D g2 = (Graphics2D) g.create();
+            g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g2.setColor(getBackground());
+            g2.fill(new RoundRectangle2D.Float(0, 0, getWidth() - 1, getHeight() - 1, cornerRadius, cornerRadius));
+            super.paintComponent(g2);
+            g2.dispose();
+        }
+
+        @Override
+        protected void paintBorder(Graphics g) {
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.weatherapp.bench;
+
+import com.weatherapp.api.CircuitBreaker;
+import com.weatherapp.api.RateLimiter;
+import com.weatherapp.api.RetryPolicy;
+import com.weatherapp.api.WeatherApiClient;
+import com.weatherapp.server.WeatherServer;
+import com.weatherapp.util.AppConfig;
+import okhttp3.OkHttpClient;
+
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.Request;
+import okhttp3.Response;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load-tests the headless WeatherServer against a local upstream stub.
+ * Many client threads request a small set of cities for a fixed duration; the report shows the
+ * served request rate, client-side latency percentiles and how few calls reached the upstream.
+ * Usage: {@code ServerLoadTest [clientThreads] [seconds] [cities]}.
+ */
+public class ServerLoadTest {
+
+    public static void main(String[] args) throws Exception {
+        int clientThreads = args.length > 0 ? Integer.parseInt(args[0]) : 32;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int cityCount = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+        // The stub below starts an HttpServer before WeatherServer is loaded, so set this here.
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+
+        UpstreamStub upstream = new UpstreamStub(150);
+        // The stub has no quota, so the rate limit is lifted to measure the server rather than the limiter.
+        WeatherApiClient apiClient = new WeatherApiClient(new OkHttpClient(), upstream.getBaseUrl(),
+                WeatherApiClient.DEFAULT_CURRENT_WEATHER_TTL_MILLIS, WeatherApiClient.DEFAULT_FORECAST_TTL_MILLIS,
+                RetryPolicy.fromConfig(AppConfig.getDefault()), CircuitBreaker.fromConfig(AppConfig.getDefault()),
+                new RateLimiter(60_000, 1_000));
+        WeatherServer server = new WeatherServer(apiClient, 0, 64);
+        server.start();
+
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequestsPerHost(clientThreads);
+        OkHttpClient httpClient = new OkHttpClient.Builder()
+                .dispatcher(dispatcher)
+                .connectionPool(new ConnectionPool(clientThreads, 1, TimeUnit.MINUTES))
+                .build();
+        String baseUrl = "http://127.0.0.1:" + server.getPort();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+
+        ExecutorService clients = Executors.newFixedThreadPool(clientThreads);
+        List<Future<long[]>> results = new ArrayList<>();
+        for (int t = 0; t < clientThreads; t++) {
+            int offset = t;
+            results.add(clients.submit(() -> {
+                long[] latencies = new long[1 << 16];
+                int count = 0;
+                long failures = 0;
+                for (int i = offset; System.nanoTime() < deadline; i++) {
+                    String path = (i % 4 == 0 ? "/forecast?city=City" : "/weather?city=City") + (i % cityCount);
+                    Request request = new Request.Builder().url(baseUrl + path).build();
+                    long start = System.nanoTime();
+                    try (Response response = httpClient.newCall(request).execute()) {
+                        response.body().bytes();
+                        if (response.code() != 200) failures++;
+                    }
+                    long latency = System.nanoTime() - start;
+                    if (count == latencies.length) latencies = Arrays.copyOf(latencies, count * 2);
+                    latencies[count++] = latency;
+                }
+                long[] result = Arrays.copyOf(latencies, count + 1);
+                result[count] = failures; // The last slot carries the failure count.
+                return result;
+            }));
+        }
+
+        long[] all = new long[0];
+        long failures = 0;
+        for (Future<long[]> future : results) {
+            long[] result = future.get();
+            failures += result[result.length - 1];
+            int offset = all.length;
+            all = Arrays.copyOf(all, offset + result.length - 1);
+            System.arraycopy(result, 0, all, offset, result.length - 1);
+        }
+        clients.shutdown();
+        Arrays.sort(all);
+
+        System.out.printf("Requests: %d (%.0f req/s), failures: %d%n", all.length, all.length / (double) seconds, failures);
+        System.out.printf("Latency p50: %.2f ms, p99: %.2f ms, max: %.2f ms%n",
+                percentile(all, 0.50) / 1e6, percentile(all, 0.99) / 1e6, all[all.length - 1] / 1e6);
+        System.out.printf("Upstream calls: %d, coalesced: %d%n", upstream.getCallCount(), apiClient.getCoalescedRequestCount());
+
+        server.stop();
+        upstream.stop();
+        System.exit(0);
+    }
+
+    private static long percentile(long[] sorted, double fraction) {
+        return sorted[Math.min(sorted.length - 1, (int) (sorted.length * fraction))];
+    }
+}
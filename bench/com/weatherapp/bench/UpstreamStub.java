@@ -0,0 +1,58 @@
+package com.weatherapp.bench;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A local stand-in for the OpenWeatherMap API that answers every request with the recorded
+ * fixtures after a fixed delay, and counts how many calls reach it.
+ */
+public class UpstreamStub {
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final AtomicLong callCount = new AtomicLong();
+
+    public UpstreamStub(long latencyMillis) throws IOException {
+        byte[] current = Fixtures.load("/fixtures/current_weather.json");
+        byte[] forecast = Fixtures.load("/fixtures/five_day_forecast.json");
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 256);
+        server.setExecutor(executor);
+        server.createContext("/", exchange -> {
+            callCount.incrementAndGet();
+            try {
+                Thread.sleep(latencyMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] body = exchange.getRequestURI().getPath().endsWith("/forecast") ? forecast : current;
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+    }
+
+    /**
+     * @return The base URL to pass to WeatherApiClient, ending with a slash.
+     */
+    public String getBaseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/data/2.5/";
+    }
+
+    public long getCallCount() {
+        return callCount.get();
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
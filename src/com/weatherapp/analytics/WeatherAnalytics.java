@@ -0,0 +1,378 @@
+package com.weatherapp.analytics;
+
+import com.weatherapp.model.ForecastSeries;
+
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Derives what the raw readings imply: feels-like temperature, dew point and wind chill for a
+ * single reading, and daily summaries of the forecasts of many cities at once.
+ * <p>
+ * Temperatures are in °C, humidity in percent and wind speed in m/s, as the client requests
+ * them. Feels-like is the wind chill in cold wind, the heat index in heat, and the temperature
+ * itself in between, following the US National Weather Service's definitions.
+ * <p>
+ * {@link #analyze(Batch)} works on a {@link Batch}: every city's forecast laid end to end in one
+ * set of primitive arrays. It runs in two parallel passes on its fork/join pool. The first
+ * splits the samples into blocks regardless of city and runs one plain loop per metric over
+ * each block: array in, array out, no objects or virtual calls, so the JIT keeps them in
+ * registers and vectorizes what it can. The second splits by city and folds each city's samples
+ * into per-day summaries. Every task writes to its own range of the output arrays, so no
+ * locking is needed and the result is identical for any degree of parallelism.
+ */
+public final class WeatherAnalytics {
+    // Magnus formula coefficients, accurate to 0.1 °C between -40 °C and 50 °C.
+    private static final double MAGNUS_B = 17.625;
+    private static final double MAGNUS_C = 243.04;
+    // Below these the heat index and wind chill are not defined and feels-like is the temperature.
+    private static final float HEAT_INDEX_MIN_CELSIUS = 26.7f;
+    private static final float WIND_CHILL_MAX_CELSIUS = 10f;
+    private static final float WIND_CHILL_MIN_KMH = 4.8f;
+    // Samples per task in the first pass: enough to amortize the task, few enough to balance the load.
+    private static final int BLOCK_SIZE = 4096;
+
+    private final ZoneId zone;
+    private final ForkJoinPool pool;
+
+    /**
+     * An engine that runs on the common fork/join pool.
+     * @param zone The zone whose midnight separates the days of the daily summaries.
+     */
+    public WeatherAnalytics(ZoneId zone) {
+        this(zone, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param zone The zone whose midnight separates the days of the daily summaries.
+     * @param pool The pool to run on; its parallelism bounds the cores used.
+     */
+    public WeatherAnalytics(ZoneId zone, ForkJoinPool pool) {
+        this.zone = zone;
+        this.pool = pool;
+    }
+
+    /**
+     * The dew point: the temperature at which the air would be saturated.
+     * @return The dew point in °C, or NaN if the humidity is unknown or zero.
+     */
+    public static float dewPoint(float temperature, float humidity) {
+        double gamma = Math.log(humidity / 100.0) + MAGNUS_B * temperature / (MAGNUS_C + temperature);
+        return (float) (MAGNUS_C * gamma / (MAGNUS_B - gamma));
+    }
+
+    /**
+     * The heat index, computed in °F as the NWS does: Steadman's simple formula, or the Rothfusz
+     * regression with its adjustments once the simple result reaches 80 °F.
+     * @return The heat index in °C; meaningful from about 27 °C.
+     */
+    public static float heatIndex(float temperature, float humidity) {
+        double t = temperature * 1.8 + 32;
+        double rh = humidity;
+        double index = 0.5 * (t + 61.0 + (t - 68.0) * 1.2 + rh * 0.094);
+        if ((index + t) / 2 >= 80) {
+            index = -42.379 + 2.04901523 * t + 10.14333127 * rh - 0.22475541 * t * rh
+                    - 0.00683783 * t * t - 0.05481717 * rh * rh + 0.00122874 * t * t * rh
+                    + 0.00085282 * t * rh * rh - 0.00000199 * t * t * rh * rh;
+            if (rh < 13 && t >= 80 && t <= 112) {
+                index -= (13 - rh) / 4 * Math.sqrt((17 - Math.abs(t - 95)) / 17);
+            } else if (rh > 85 && t >= 80 && t <= 87) {
+                index += (rh - 85) / 10 * (87 - t) / 5;
+            }
+        }
+        return (float) ((index - 32) / 1.8);
+    }
+
+    /**
+     * The wind chill, by the formula the NWS and Environment Canada share.
+     * @param windSpeed The wind speed in m/s.
+     * @return The wind chill in °C; meaningful at or below 10 °C in wind above 4.8 km/h.
+     */
+    public static float windChill(float temperature, float windSpeed) {
+        double v = Math.pow(windSpeed * 3.6, 0.16);
+        return (float) (13.12 + 0.6215 * temperature - 11.37 * v + 0.3965 * temperature * v);
+    }
+
+    /**
+     * What the temperature feels like: the wind chill in cold wind, the heat index in heat, and
+     * the temperature itself otherwise or when the humidity or wind needed is unknown.
+     */
+    public static float feelsLike(float temperature, float humidity, float windSpeed) {
+        if (temperature <= WIND_CHILL_MAX_CELSIUS && windSpeed * 3.6f > WIND_CHILL_MIN_KMH) {
+            return windChill(temperature, windSpeed);
+        }
+        if (temperature >= HEAT_INDEX_MIN_CELSIUS && humidity >= 0) {
+            return heatIndex(temperature, humidity);
+        }
+        return temperature;
+    }
+
+    /**
+     * Computes the per-sample metrics and daily summaries of every city in the batch.
+     * Blocks until done; the work runs on this engine's pool.
+     */
+    public Result analyze(Batch batch) {
+        return pool.submit(() -> compute(batch)).join();
+    }
+
+    private Result compute(Batch batch) {
+        int samples = batch.sampleCount;
+        int cities = batch.cityCount;
+        float[] feelsLike = new float[samples];
+        float[] dewPoints = new float[samples];
+        long[] epochDays = new long[samples];
+
+        // Pass 1: per-sample metrics, in blocks that ignore city boundaries.
+        IntStream.range(0, (samples + BLOCK_SIZE - 1) / BLOCK_SIZE).parallel().forEach(block -> {
+            int from = block * BLOCK_SIZE, to = Math.min(from + BLOCK_SIZE, samples);
+            feelsLike(batch.temperatures, batch.humidities, batch.windSpeeds, feelsLike, from, to);
+            dewPoints(batch.temperatures, batch.humidities, dewPoints, from, to);
+            ForecastSeries.DayClock clock = new ForecastSeries.DayClock(zone);
+            for (int i = from; i < to; i++) epochDays[i] = clock.epochDay(batch.timestamps[i]);
+        });
+
+        // Pass 2: count each city's days, then fold its samples into them.
+        int[] dayOffsets = new int[cities + 1];
+        IntStream.range(0, cities).parallel().forEach(city ->
+                dayOffsets[city + 1] = countDays(epochDays, batch.offsets[city], batch.offsets[city + 1]));
+        for (int city = 0; city < cities; city++) dayOffsets[city + 1] += dayOffsets[city];
+        Result result = new Result(batch, feelsLike, dewPoints, dayOffsets);
+        IntStream.range(0, cities).parallel().forEach(city -> summarizeDays(batch, epochDays, result, city));
+        return result;
+    }
+
+    private static void feelsLike(float[] temperatures, float[] humidities, float[] windSpeeds, float[] out, int from, int to) {
+        for (int i = from; i < to; i++) {
+            out[i] = feelsLike(temperatures[i], humidities[i], windSpeeds[i]);
+        }
+    }
+
+    private static void dewPoints(float[] temperatures, float[] humidities, float[] out, int from, int to) {
+        for (int i = from; i < to; i++) {
+            out[i] = dewPoint(temperatures[i], humidities[i]);
+        }
+    }
+
+    private static int countDays(long[] epochDays, int from, int to) {
+        int days = from < to ? 1 : 0;
+        for (int i = from + 1; i < to; i++) {
+            if (epochDays[i] != epochDays[i - 1]) days++;
+        }
+        return days;
+    }
+
+    private static void summarizeDays(Batch batch, long[] epochDays, Result result, int city) {
+        int day = result.dayOffsets[city] - 1;
+        int samples = 0, dewSamples = 0, precipitationSamples = 0;
+        double dewSum = 0, dryChance = 1;
+        for (int i = batch.offsets[city], end = batch.offsets[city + 1]; i < end; i++) {
+            if (i == batch.offsets[city] || epochDays[i] != epochDays[i - 1]) {
+                if (day >= result.dayOffsets[city]) {
+                    finishDay(result, day, samples, dewSum, dewSamples, dryChance, precipitationSamples);
+                }
+                day++;
+                result.epochDays[day] = epochDays[i];
+                result.minTemperatures[day] = Float.POSITIVE_INFINITY;
+                result.maxTemperatures[day] = Float.NEGATIVE_INFINITY;
+                result.minFeelsLike[day] = Float.POSITIVE_INFINITY;
+                result.maxFeelsLike[day] = Float.NEGATIVE_INFINITY;
+                result.maxPrecipitationProbabilities[day] = Float.NaN;
+                samples = dewSamples = precipitationSamples = 0;
+                dewSum = 0;
+                dryChance = 1;
+            }
+            samples++;
+            result.minTemperatures[day] = Math.min(result.minTemperatures[day], batch.temperatures[i]);
+            result.maxTemperatures[day] = Math.max(result.maxTemperatures[day], batch.temperatures[i]);
+            result.minFeelsLike[day] = Math.min(result.minFeelsLike[day], result.feelsLike[i]);
+            result.maxFeelsLike[day] = Math.max(result.maxFeelsLike[day], result.feelsLike[i]);
+            float dewPoint = result.dewPoints[i];
+            if (!Float.isNaN(dewPoint)) {
+                dewSum += dewPoint;
+                dewSamples++;
+            }
+            float precipitation = batch.precipitationProbabilities[i];
+            if (!Float.isNaN(precipitation)) {
+                if (!(precipitation <= result.maxPrecipitationProbabilities[day])) result.maxPrecipitationProbabilities[day] = precipitation;
+                dryChance *= 1 - precipitation;
+                precipitationSamples++;
+            }
+        }
+        if (day >= result.dayOffsets[city]) {
+            finishDay(result, day, samples, dewSum, dewSamples, dryChance, precipitationSamples);
+        }
+    }
+
+    private static void finishDay(Result result, int day, int samples, double dewSum, int dewSamples,
+                                  double dryChance, int precipitationSamples) {
+        result.sampleCounts[day] = samples;
+        result.meanDewPoints[day] = dewSamples > 0 ? (float) (dewSum / dewSamples) : Float.NaN;
+        result.precipitationChances[day] = precipitationSamples > 0 ? (float) (1 - dryChance) : Float.NaN;
+    }
+
+    /**
+     * The forecasts of many cities, one after another in shared primitive arrays. City {@code c}
+     * owns samples {@code getFirstSample(c)} up to {@code getFirstSample(c + 1)}.
+     * Build one with {@link Builder} or {@link #of(Collection)}.
+     */
+    public static final class Batch {
+        private final int cityCount;
+        private final int sampleCount;
+        private final int[] offsets;
+        private final long[] timestamps;
+        private final float[] temperatures;
+        private final float[] humidities;
+        private final float[] windSpeeds;
+        private final float[] precipitationProbabilities;
+
+        private Batch(Builder builder) {
+            cityCount = builder.cityCount;
+            sampleCount = builder.sampleCount;
+            offsets = Arrays.copyOf(builder.offsets, cityCount + 1);
+            timestamps = Arrays.copyOf(builder.timestamps, sampleCount);
+            temperatures = Arrays.copyOf(builder.temperatures, sampleCount);
+            humidities = Arrays.copyOf(builder.humidities, sampleCount);
+            windSpeeds = Arrays.copyOf(builder.windSpeeds, sampleCount);
+            precipitationProbabilities = Arrays.copyOf(builder.precipitationProbabilities, sampleCount);
+        }
+
+        /** @return A batch of the forecasts, cities numbered in iteration order. */
+        public static Batch of(Collection<ForecastSeries> forecasts) {
+            Builder builder = new Builder(forecasts.size(), forecasts.size() * 40);
+            for (ForecastSeries forecast : forecasts) builder.add(forecast);
+            return builder.build();
+        }
+
+        public int getCityCount() { return cityCount; }
+        public int getSampleCount() { return sampleCount; }
+        /** @param city A city, or the city count for the end of the last city. */
+        public int getFirstSample(int city) { return offsets[city]; }
+        public long getTimestamp(int sample) { return timestamps[sample]; }
+        public float getTemperature(int sample) { return temperatures[sample]; }
+
+        /**
+         * Copies forecasts into growable primitive arrays, one city after another.
+         */
+        public static final class Builder {
+            private int cityCount;
+            private int sampleCount;
+            private int[] offsets;
+            private long[] timestamps;
+            private float[] temperatures;
+            private float[] humidities;
+            private float[] windSpeeds;
+            private float[] precipitationProbabilities;
+
+            /**
+             * @param expectedCities The expected number of cities; the arrays grow if it is exceeded.
+             * @param expectedSamples The expected number of samples over all cities.
+             */
+            public Builder(int expectedCities, int expectedSamples) {
+                offsets = new int[Math.max(expectedCities, 8) + 1];
+                int capacity = Math.max(expectedSamples, 64);
+                timestamps = new long[capacity];
+                temperatures = new float[capacity];
+                humidities = new float[capacity];
+                windSpeeds = new float[capacity];
+                precipitationProbabilities = new float[capacity];
+            }
+
+            /**
+             * Appends a city's forecast as the next city.
+             */
+            public Builder add(ForecastSeries forecast) {
+                int size = forecast.size();
+                if (cityCount + 1 == offsets.length) offsets = Arrays.copyOf(offsets, offsets.length * 2);
+                if (sampleCount + size > timestamps.length) {
+                    int capacity = Math.max(timestamps.length * 2, sampleCount + size);
+                    timestamps = Arrays.copyOf(timestamps, capacity);
+                    temperatures = Arrays.copyOf(temperatures, capacity);
+                    humidities = Arrays.copyOf(humidities, capacity);
+                    windSpeeds = Arrays.copyOf(windSpeeds, capacity);
+                    precipitationProbabilities = Arrays.copyOf(precipitationProbabilities, capacity);
+                }
+                for (int i = 0; i < size; i++) {
+                    int sample = sampleCount + i;
+                    timestamps[sample] = forecast.getTimestamp(i);
+                    temperatures[sample] = forecast.getTemperature(i);
+                    humidities[sample] = forecast.getHumidity(i);
+                    windSpeeds[sample] = forecast.getWindSpeed(i);
+                    precipitationProbabilities[sample] = forecast.getPrecipitationProbability(i);
+                }
+                sampleCount += size;
+                offsets[++cityCount] = sampleCount;
+                return this;
+            }
+
+            public Batch build() {
+                return new Batch(this);
+            }
+        }
+    }
+
+    /**
+     * The metrics of a batch: per sample, indexed like the batch, and per day, as parallel arrays.
+     * City {@code c} owns days {@code getFirstDay(c)} up to {@code getFirstDay(c + 1)}, in time order.
+     */
+    public static final class Result {
+        private final int[] sampleOffsets;
+        private final float[] feelsLike;
+        private final float[] dewPoints;
+        private final int[] dayOffsets;
+        private final long[] epochDays;
+        private final int[] sampleCounts;
+        private final float[] minTemperatures;
+        private final float[] maxTemperatures;
+        private final float[] minFeelsLike;
+        private final float[] maxFeelsLike;
+        private final float[] meanDewPoints;
+        private final float[] maxPrecipitationProbabilities;
+        private final float[] precipitationChances;
+
+        private Result(Batch batch, float[] feelsLike, float[] dewPoints, int[] dayOffsets) {
+            this.sampleOffsets = batch.offsets;
+            this.feelsLike = feelsLike;
+            this.dewPoints = dewPoints;
+            this.dayOffsets = dayOffsets;
+            int days = dayOffsets[dayOffsets.length - 1];
+            epochDays = new long[days];
+            sampleCounts = new int[days];
+            minTemperatures = new float[days];
+            maxTemperatures = new float[days];
+            minFeelsLike = new float[days];
+            maxFeelsLike = new float[days];
+            meanDewPoints = new float[days];
+            maxPrecipitationProbabilities = new float[days];
+            precipitationChances = new float[days];
+        }
+
+        public int getCityCount() { return dayOffsets.length - 1; }
+        /** @param city A city, or the city count for the end of the last city. */
+        public int getFirstSample(int city) { return sampleOffsets[city]; }
+        public float getFeelsLike(int sample) { return feelsLike[sample]; }
+        /** @return The dew point, or NaN if the sample's humidity is unknown. */
+        public float getDewPoint(int sample) { return dewPoints[sample]; }
+
+        public int getDayCount() { return epochDays.length; }
+        /** @param city A city, or the city count for the end of the last city. */
+        public int getFirstDay(int city) { return dayOffsets[city]; }
+        public long getEpochDay(int day) { return epochDays[day]; }
+        public int getSampleCount(int day) { return sampleCounts[day]; }
+        public float getMinTemperature(int day) { return minTemperatures[day]; }
+        public float getMaxTemperature(int day) { return maxTemperatures[day]; }
+        public float getMinFeelsLike(int day) { return minFeelsLike[day]; }
+        public float getMaxFeelsLike(int day) { return maxFeelsLike[day]; }
+        /** @return The mean dew point, or NaN if no sample of the day had a humidity. */
+        public float getMeanDewPoint(int day) { return meanDewPoints[day]; }
+        /** @return The highest probability of precipitation of any step, from 0 to 1, or NaN if unknown. */
+        public float getMaxPrecipitationProbability(int day) { return maxPrecipitationProbabilities[day]; }
+        /**
+         * @return The chance of precipitation at some point in the day, from 0 to 1, treating
+         *         the steps as independent; NaN if unknown.
+         */
+        public float getPrecipitationChance(int day) { return precipitationChances[day]; }
+    }
+}
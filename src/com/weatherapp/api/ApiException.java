@@ -0,0 +1,96 @@
+package com.weatherapp.api;
+
+import java.io.IOException;
+
+/**
+ * A failed OpenWeatherMap request, classified so callers can react to the cause:
+ * an unknown city is reported to the user, while throttling and outages are retried or
+ * answered from the cache.
+ */
+public class ApiException extends IOException {
+
+    /** Why a request failed. */
+    public enum Kind {
+        /** 404: the city does not exist. */
+        NOT_FOUND,
+        /** 401: the API key is missing or invalid. */
+        UNAUTHORIZED,
+        /** Any other 4xx: the request itself was wrong. */
+        BAD_REQUEST,
+        /** 429 from upstream, or our own call budget could not grant a call in time. */
+        RATE_LIMITED,
+        /** 5xx: upstream is failing. */
+        UPSTREAM_ERROR,
+        /** The connection failed or timed out. */
+        NETWORK_ERROR,
+        /** A 2xx response whose body could not be parsed or was empty. */
+        INVALID_RESPONSE,
+        /** Not sent: the circuit breaker is open after repeated upstream failures. */
+        CIRCUIT_OPEN
+    }
+
+    private final Kind kind;
+    private final int statusCode;
+    private final long retryAfterMillis;
+
+    public ApiException(Kind kind, int statusCode, String message) {
+        this(kind, statusCode, message, 0, null);
+    }
+
+    /**
+     * @param kind The classified cause.
+     * @param statusCode The HTTP status, or 0 if no response was received.
+     * @param message A description for logs and error dialogs.
+     * @param retryAfterMillis How long upstream asked us to wait (Retry-After), or 0.
+     * @param cause The underlying exception, if any.
+     */
+    public ApiException(Kind kind, int statusCode, String message, long retryAfterMillis, Throwable cause) {
+        super(message, cause);
+        this.kind = kind;
+        this.statusCode = statusCode;
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    /**
+     * Classifies an unsuccessful HTTP status.
+     * @param statusCode The response status.
+     * @param path The request path, for the message; never the query, which holds the API key.
+     * @param retryAfterMillis The parsed Retry-After header, or 0.
+     */
+    public static ApiException forStatus(int statusCode, String path, long retryAfterMillis) {
+        Kind kind;
+        if (statusCode == 404) kind = Kind.NOT_FOUND;
+        else if (statusCode == 401) kind = Kind.UNAUTHORIZED;
+        else if (statusCode == 429) kind = Kind.RATE_LIMITED;
+        else if (statusCode >= 500) kind = Kind.UPSTREAM_ERROR;
+        else kind = Kind.BAD_REQUEST;
+        return new ApiException(kind, statusCode, "HTTP " + statusCode + " from " + path, retryAfterMillis, null);
+    }
+
+    /**
+     * Wraps any other I/O failure as a network error, leaving ApiExceptions as they are.
+     */
+    public static ApiException wrap(IOException e) {
+        return e instanceof ApiException ? (ApiException) e : new ApiException(Kind.NETWORK_ERROR, 0, e.getMessage(), 0, e);
+    }
+
+    /**
+     * @return Whether the same GET may succeed if sent again after a pause.
+     */
+    public boolean isRetryable() {
+        return kind == Kind.RATE_LIMITED || kind == Kind.UPSTREAM_ERROR || kind == Kind.NETWORK_ERROR;
+    }
+
+    /**
+     * @return Whether this failure suggests upstream is down, and so counts towards opening the circuit.
+     *         Throttling and bad requests do not: upstream answered them correctly.
+     */
+    public boolean isUpstreamFailure() {
+        return kind == Kind.UPSTREAM_ERROR || kind == Kind.NETWORK_ERROR || kind == Kind.INVALID_RESPONSE;
+    }
+
+    // Getters for all private fields.
+    public Kind getKind() { return kind; }
+    public int getStatusCode() { return statusCode; }
+    public long getRetryAfterMillis() { return retryAfterMillis; }
+}
@@ -0,0 +1,154 @@
+package com.weatherapp.api;
+
+import okhttp3.Call;
+import okhttp3.EventListener;
+import okhttp3.Handshake;
+import okhttp3.Protocol;
+import okhttp3.Request;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * An OkHttp {@link EventListener} that measures where the time of each call goes:
+ * DNS lookup, TCP connect, TLS handshake, time to first byte and the whole call.
+ * One listener is created per call; the measurements are added to a shared {@link Stats}.
+ * Calls that reuse a pooled connection record no DNS, connect or TLS time.
+ */
+public class CallTimingListener extends EventListener {
+
+    /** The measured phases of a call. */
+    public enum Phase { DNS, CONNECT, TLS, TIME_TO_FIRST_BYTE, TOTAL }
+
+    /**
+     * Aggregated timings per phase across many calls. Thread-safe and lock-free.
+     */
+    public static class Stats {
+        private final AtomicLongArray counts = new AtomicLongArray(Phase.values().length);
+        private final AtomicLongArray totalNanos = new AtomicLongArray(Phase.values().length);
+        private final AtomicLongArray maxNanos = new AtomicLongArray(Phase.values().length);
+        private final AtomicLong failedCalls = new AtomicLong();
+
+        void record(Phase phase, long nanos) {
+            int i = phase.ordinal();
+            counts.incrementAndGet(i);
+            totalNanos.addAndGet(i, nanos);
+            long max;
+            while (nanos > (max = maxNanos.get(i)) && !maxNanos.compareAndSet(i, max, nanos)) {
+                // Retry until this measurement is stored or a larger one wins.
+            }
+        }
+
+        public long getCount(Phase phase) { return counts.get(phase.ordinal()); }
+        public long getFailedCalls() { return failedCalls.get(); }
+
+        public double getMeanMillis(Phase phase) {
+            long count = getCount(phase);
+            return count == 0 ? 0 : totalNanos.get(phase.ordinal()) / 1e6 / count;
+        }
+
+        public double getMaxMillis(Phase phase) {
+            return maxNanos.get(phase.ordinal()) / 1e6;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder summary = new StringBuilder("Call timings:");
+            for (Phase phase : Phase.values()) {
+                summary.append(String.format(" %s n=%d mean=%.1fms max=%.1fms;",
+                        phase, getCount(phase), getMeanMillis(phase), getMaxMillis(phase)));
+            }
+            return summary.append(" failed=").append(getFailedCalls()).toString();
+        }
+    }
+
+    /**
+     * Creates one listener per call, all reporting to the same Stats.
+     */
+    public static class Factory implements EventListener.Factory {
+        private final Stats stats;
+
+        public Factory(Stats stats) {
+            this.stats = stats;
+        }
+
+        @Override
+        public EventListener create(Call call) {
+            return new CallTimingListener(stats);
+        }
+    }
+
+    private final Stats stats;
+    private long callStart;
+    private long dnsStart;
+    private long connectStart;
+    private long secureConnectStart;
+    private long requestSent;
+
+    private CallTimingListener(Stats stats) {
+        this.stats = stats;
+    }
+
+    @Override
+    public void callStart(Call call) {
+        callStart = System.nanoTime();
+    }
+
+    @Override
+    public void dnsStart(Call call, String domainName) {
+        dnsStart = System.nanoTime();
+    }
+
+    @Override
+    public void dnsEnd(Call call, String domainName, List<InetAddress> inetAddressList) {
+        stats.record(Phase.DNS, System.nanoTime() - dnsStart);
+    }
+
+    @Override
+    public void connectStart(Call call, InetSocketAddress inetSocketAddress, Proxy proxy) {
+        connectStart = System.nanoTime();
+    }
+
+    @Override
+    public void secureConnectStart(Call call) {
+        secureConnectStart = System.nanoTime();
+    }
+
+    @Override
+    public void secureConnectEnd(Call call, Handshake handshake) {
+        stats.record(Phase.TLS, System.nanoTime() - secureConnectStart);
+    }
+
+    @Override
+    public void connectEnd(Call call, InetSocketAddress inetSocketAddress, Proxy proxy, Protocol protocol) {
+        stats.record(Phase.CONNECT, System.nanoTime() - connectStart);
+    }
+
+    @Override
+    public void requestHeadersEnd(Call call, Request request) {
+        requestSent = System.nanoTime();
+    }
+
+    @Override
+    public void responseHeadersStart(Call call) {
+        if (requestSent != 0) {
+            stats.record(Phase.TIME_TO_FIRST_BYTE, System.nanoTime() - requestSent);
+        }
+    }
+
+    @Override
+    public void callEnd(Call call) {
+        stats.record(Phase.TOTAL, System.nanoTime() - callStart);
+    }
+
+    @Override
+    public void callFailed(Call call, IOException ioe) {
+        stats.failedCalls.incrementAndGet();
+        stats.record(Phase.TOTAL, System.nanoTime() - callStart);
+    }
+}
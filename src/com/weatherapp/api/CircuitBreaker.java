@@ -0,0 +1,109 @@
+package com.weatherapp.api;
+
+import com.weatherapp.util.AppConfig;
+
+import java.util.logging.Logger;
+
+/**
+ * Stops sending requests to an upstream that keeps failing, so callers fail fast (and can fall
+ * back to cached data) instead of each waiting for a timeout.
+ * <p>
+ * After {@code failureThreshold} consecutive upstream failures the circuit opens and every
+ * request is rejected for {@code openMillis}. Then a single trial request is let through
+ * (half-open): success closes the circuit, failure opens it again for another period.
+ */
+public class CircuitBreaker {
+    private static final Logger LOGGER = Logger.getLogger(CircuitBreaker.class.getName());
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final int failureThreshold;
+    private final long openMillis;
+
+    // Guarded by this.
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean trialInFlight;
+
+    /**
+     * @param failureThreshold Consecutive upstream failures that open the circuit.
+     * @param openMillis How long the circuit stays open before a trial request.
+     */
+    public CircuitBreaker(int failureThreshold, long openMillis) {
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openMillis = openMillis;
+    }
+
+    /**
+     * Reads {@code api.circuit.*} from the configuration.
+     */
+    public static CircuitBreaker fromConfig(AppConfig config) {
+        return new CircuitBreaker(config.getInt("api.circuit.failureThreshold", 5),
+                config.getLong("api.circuit.openSeconds", 30) * 1000);
+    }
+
+    /**
+     * Asks to send a request. Every granted request must be followed by
+     * {@link #recordSuccess()}, {@link #recordFailure()} or, if it is not sent, {@link #release()}.
+     * @return Whether the request may be sent.
+     */
+    public synchronized boolean tryAcquire() {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (System.currentTimeMillis() - openedAt < openMillis) return false;
+                state = State.HALF_OPEN;
+                trialInFlight = true;
+                return true;
+            default: // HALF_OPEN: only the one trial request is allowed.
+                if (trialInFlight) return false;
+                trialInFlight = true;
+                return true;
+        }
+    }
+
+    /**
+     * Gives back a granted request that was not sent after all, without counting it as a
+     * success or failure. A half-open circuit then lets the next request be its trial.
+     */
+    public synchronized void release() {
+        trialInFlight = false;
+    }
+
+    /**
+     * Records a request that upstream answered properly, including answers like 404.
+     */
+    public synchronized void recordSuccess() {
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        trialInFlight = false;
+    }
+
+    /**
+     * Records a request that failed because upstream is failing or unreachable.
+     */
+    public synchronized void recordFailure() {
+        trialInFlight = false;
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            if (state != State.OPEN) {
+                LOGGER.warning("Circuit opened after " + consecutiveFailures + " upstream failure(s); failing fast for " + openMillis + " ms");
+            }
+            state = State.OPEN;
+            openedAt = System.currentTimeMillis();
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * @return How long until an open circuit lets a trial request through, or 0 if it is not open.
+     */
+    public synchronized long getRemainingOpenMillis() {
+        return state == State.OPEN ? Math.max(0, openedAt + openMillis - System.currentTimeMillis()) : 0;
+    }
+}
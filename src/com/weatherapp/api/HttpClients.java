@@ -0,0 +1,74 @@
+package com.weatherapp.api;
+
+import com.weatherapp.util.AppConfig;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.EventListener;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Builds the OkHttpClient used to reach OpenWeatherMap from the {@code http.*} settings in
+ * {@link AppConfig}, and holds the single client that every component shares so they also
+ * share one connection pool and dispatcher.
+ */
+public class HttpClients {
+    private static OkHttpClient sharedClient;
+    private static CallTimingListener.Stats sharedTimings;
+
+    /**
+     * Returns the client shared by the whole application, building it on first use.
+     * Every call it makes records its phase timings in {@link #sharedTimings()}.
+     */
+    public static synchronized OkHttpClient shared() {
+        if (sharedClient == null) {
+            sharedTimings = new CallTimingListener.Stats();
+            sharedClient = build(AppConfig.getDefault(), new CallTimingListener.Factory(sharedTimings));
+        }
+        return sharedClient;
+    }
+
+    /**
+     * @return The DNS, connect, TLS and time-to-first-byte timings recorded by the shared client.
+     */
+    public static synchronized CallTimingListener.Stats sharedTimings() {
+        shared();
+        return sharedTimings;
+    }
+
+    /**
+     * Builds a new client from the given settings.
+     * @param config Supplies the {@code http.*} settings; missing keys fall back to the defaults below.
+     * @param eventListenerFactory Receives connection and call events, e.g. to record timings.
+     * @return A new OkHttpClient with its own pool and dispatcher.
+     */
+    public static OkHttpClient build(AppConfig config, EventListener.Factory eventListenerFactory) {
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(config.getInt("http.maxRequests", 64));
+        dispatcher.setMaxRequestsPerHost(config.getInt("http.maxRequestsPerHost", 16));
+
+        OkHttpClient.Builder builder = new OkHttpClient.Builder()
+                .dispatcher(dispatcher)
+                .connectionPool(new ConnectionPool(config.getInt("http.pool.maxIdleConnections", 8),
+                        config.getInt("http.pool.keepAliveSeconds", 300), TimeUnit.SECONDS))
+                .connectTimeout(config.getInt("http.connectTimeoutMillis", 5000), TimeUnit.MILLISECONDS)
+                .readTimeout(config.getInt("http.readTimeoutMillis", 10000), TimeUnit.MILLISECONDS)
+                .callTimeout(config.getInt("http.callTimeoutMillis", 15000), TimeUnit.MILLISECONDS)
+                .eventListenerFactory(eventListenerFactory);
+
+        if (!config.getBoolean("http.http2", true)) {
+            builder.protocols(List.of(Protocol.HTTP_1_1));
+        }
+        if (!config.getBoolean("http.gzip", true)) {
+            // OkHttp asks for gzip unless the request already sets Accept-Encoding.
+            builder.addInterceptor(chain -> chain.proceed(
+                    chain.request().newBuilder().header("Accept-Encoding", "identity").build()));
+        }
+        // Record responses to disk, or serve them from there, if http.mode asks for it.
+        RecordReplay.install(builder, config);
+        return builder.build();
+    }
+}
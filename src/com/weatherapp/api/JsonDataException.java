@@ -0,0 +1,15 @@
+package com.weatherapp.api;
+
+import java.io.IOException;
+
+/**
+ * A JSON document that is malformed or ends before it is complete. Thrown by {@link JsonReader}
+ * so that a bad document can be told apart from an I/O failure of the source it is read from:
+ * the first is an unusable response, the second a network error worth retrying.
+ */
+public class JsonDataException extends IOException {
+
+    public JsonDataException(String message) {
+        super(message);
+    }
+}
@@ -1,23 +1,44 @@
 package com.weatherapp.api;
 
+import com.weatherapp.metrics.Metrics;
 import com.weatherapp.model.ForecastData;
+import com.weatherapp.model.ForecastSeries;
 import com.weatherapp.model.WeatherData;
+import okio.BufferedSource;
+import okio.Options;
 import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
 
-import java.time.Instant;
-import java.time.LocalDate;
-import java.time.LocalDateTime;
+import java.io.IOException;
 import java.time.ZoneId;
-import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * A utility class to parse JSON responses from the OpenWeatherMap API
  * and convert them into structured data model objects.
+ * <p>
+ * The {@link BufferedSource} overloads stream the response with {@link JsonReader} and only
+ * extract the fields the models need. The {@link JSONObject} overloads walk a fully built
+ * json-simple tree; they are kept for callers that already hold one and as a benchmark baseline.
  */
 public class JsonParser {
+    private static final Logger LOGGER = Logger.getLogger(JsonParser.class.getName());
+
+    // Object keys matched by the streaming parser, grouped by the object they appear in.
+    private static final Options CURRENT_FIELDS = JsonReader.options("name", "weather", "main", "wind", "sys", "id", "dt");
+    private static final Options GROUP_FIELDS = JsonReader.options("list");
+    private static final Options WEATHER_FIELDS = JsonReader.options("description", "icon");
+    private static final Options MAIN_FIELDS = JsonReader.options("temp", "humidity");
+    private static final Options WIND_FIELDS = JsonReader.options("speed");
+    private static final Options SYS_FIELDS = JsonReader.options("sunrise", "sunset");
+    private static final Options FORECAST_FIELDS = JsonReader.options("list", "cnt");
+    private static final Options FORECAST_ENTRY_FIELDS = JsonReader.options("dt", "main", "weather", "wind", "pop");
+    private static final Options ICON_FIELD = JsonReader.options("icon");
+    // The 5-day forecast has 40 steps; a larger "cnt" is not trusted to size the columns.
+    private static final int MAX_EXPECTED_STEPS = 64;
 
     /**
      * Parses the JSON object for current weather data.
@@ -29,6 +50,8 @@ public class JsonParser {
 
         try {
             // Navigate the JSON structure to extract required data fields.
+            Number cityId = (Number) weatherDataJson.get("id");
+            Number observedAt = (Number) weatherDataJson.get("dt");
             String cityName = (String) weatherDataJson.get("name");
             JSONArray weatherArray = (JSONArray) weatherDataJson.get("weather");
             JSONObject weather = (JSONObject) weatherArray.get(0);
@@ -43,53 +66,306 @@ public class JsonParser {
             long sunrise = (long) sys.get("sunrise");
             long sunset = (long) sys.get("sunset");
 
-            return new WeatherData(cityName, temperature, description, iconCode, windSpeed, humidity, sunrise, sunset);
+            return new WeatherData(cityId != null ? cityId.longValue() : 0, cityName, temperature, description, iconCode,
+                    windSpeed, humidity, sunrise, sunset, observedAt != null ? observedAt.longValue() : 0);
 
         } catch (Exception e) {
-            e.printStackTrace(); // Log parsing errors.
+            logParseFailure("current weather", e);
             return null;
         }
     }
 
     /**
      * Parses the 5-day forecast JSON to extract one forecast entry per day.
-     * This robust logic ensures that exactly one forecast is chosen for each of the next 5 days,
-     * regardless of the time of day the request is made.
+     * Exactly one forecast is chosen for each of the next 5 days, regardless of the time of day
+     * the request is made; see {@link ForecastSeries#toDailySummary(ZoneId, int)}.
      *
      * @param forecastDataJson The JSONObject containing the 5-day forecast list.
      * @return A list of ForecastData objects, one for each of the next 5 days.
      */
     public static List<ForecastData> parseFiveDayForecast(JSONObject forecastDataJson) {
         if (forecastDataJson == null) return new ArrayList<>();
+        return toFiveDaySummary(parseForecastSeries(forecastDataJson));
+    }
 
-        List<ForecastData> forecastList = new ArrayList<>();
-        List<LocalDate> daysAdded = new ArrayList<>(); // Track which days have been added to avoid duplicates.
-
+    /**
+     * Parses every time step of the forecast JSON into a columnar series.
+     * @param forecastDataJson The JSONObject containing the forecast list.
+     * @return The series; entries with missing fields are left out.
+     */
+    public static ForecastSeries parseForecastSeries(JSONObject forecastDataJson) {
         JSONArray list = (JSONArray) forecastDataJson.get("list");
-        LocalDate today = LocalDate.now(ZoneId.systemDefault());
-        DateTimeFormatter dayFormatter = DateTimeFormatter.ofPattern("EEE");
-
+        ForecastSeries.Builder builder = new ForecastSeries.Builder(list.size());
         for (Object item : list) {
             JSONObject forecast = (JSONObject) item;
-            long timestamp = (long) forecast.get("dt");
-            LocalDateTime forecastDateTime = LocalDateTime.ofInstant(Instant.ofEpochSecond(timestamp), ZoneId.systemDefault());
-            LocalDate forecastDate = forecastDateTime.toLocalDate();
-
-            // We only want one forecast per day, and not for today.
-            // Check if we haven't already added a forecast for this day and if we still need more days.
-            if (!forecastDate.isEqual(today) && !daysAdded.contains(forecastDate) && forecastList.size() < 5) {
-                // This is the first entry we've found for this future day. Add it.
-                daysAdded.add(forecastDate);
-
-                JSONObject main = (JSONObject) forecast.get("main");
-                double temperature = ((Number) main.get("temp")).doubleValue();
-                JSONArray weatherArray = (JSONArray) forecast.get("weather");
-                JSONObject weather = (JSONObject) weatherArray.get(0);
-                String iconCode = (String) weather.get("icon");
-
-                forecastList.add(new ForecastData(forecastDateTime.format(dayFormatter), temperature, iconCode));
+            JSONObject main = (JSONObject) forecast.get("main");
+            JSONObject wind = (JSONObject) forecast.get("wind");
+            JSONArray weatherArray = (JSONArray) forecast.get("weather");
+            if (forecast.get("dt") == null || main == null || main.get("temp") == null || weatherArray == null || weatherArray.isEmpty()) continue;
+
+            Number humidity = (Number) main.get("humidity");
+            Number windSpeed = wind != null ? (Number) wind.get("speed") : null;
+            Number precipitation = (Number) forecast.get("pop");
+            String iconCode = (String) ((JSONObject) weatherArray.get(0)).get("icon");
+            builder.add(((Number) forecast.get("dt")).longValue(), ((Number) main.get("temp")).floatValue(),
+                    humidity != null ? humidity.floatValue() : Float.NaN, windSpeed != null ? windSpeed.floatValue() : Float.NaN,
+                    ForecastSeries.iconId(iconCode), precipitation != null ? precipitation.floatValue() : Float.NaN);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Parses current weather data by streaming it from the response body.
+     * Fields other than the ones held by {@link WeatherData} are skipped without being materialized.
+     * @param source The response body source, positioned at the start of the JSON document.
+     * @return A WeatherData object, or null if the document is malformed or a required field is missing.
+     * @throws IOException If reading the source failed, e.g. the connection was reset mid-body.
+     */
+    public static WeatherData parseCurrentWeather(BufferedSource source) throws IOException {
+        try {
+            JsonReader reader = new JsonReader(source);
+            return readCurrentWeather(reader);
+        } catch (JsonDataException | RuntimeException e) {
+            logParseFailure("current weather", e);
+            return null;
+        }
+    }
+
+    /**
+     * Parses a group response ({@code {"cnt": n, "list": [...]}}) holding current weather for several cities.
+     * @param source The response body source, positioned at the start of the JSON document.
+     * @return The parsed entries; entries with missing fields are left out. Empty if the document is malformed.
+     * @throws IOException If reading the source failed, e.g. the connection was reset mid-body.
+     */
+    public static List<WeatherData> parseCurrentWeatherList(BufferedSource source) throws IOException {
+        List<WeatherData> weatherList = new ArrayList<>();
+        try {
+            JsonReader reader = new JsonReader(source);
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (reader.selectName(GROUP_FIELDS) != 0) {
+                    reader.skipValue();
+                    continue;
+                }
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    WeatherData weatherData = readCurrentWeather(reader);
+                    if (weatherData != null) weatherList.add(weatherData);
+                }
+                reader.endArray();
+            }
+            reader.endObject();
+        } catch (JsonDataException | RuntimeException e) {
+            logParseFailure("group weather", e);
+            return new ArrayList<>();
+        }
+        return weatherList;
+    }
+
+    /**
+     * Reads one current weather object, either a whole response or an element of a group response.
+     * @return The parsed data, or null if a required field is missing.
+     */
+    private static WeatherData readCurrentWeather(JsonReader reader) throws IOException {
+        String cityName = null, description = null, iconCode = null;
+        double temperature = Double.NaN, windSpeed = Double.NaN;
+        int humidity = -1;
+        long sunrise = -1, sunset = -1, cityId = 0, observedAt = 0;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.selectName(CURRENT_FIELDS)) {
+                case 0: // name
+                    cityName = reader.nextString();
+                    break;
+                case 1: // weather: only the first (primary) condition is displayed.
+                    reader.beginArray();
+                    if (reader.hasNext()) {
+                        reader.beginObject();
+                        while (reader.hasNext()) {
+                            int field = reader.selectName(WEATHER_FIELDS);
+                            if (field == 0) description = reader.nextString();
+                            else if (field == 1) iconCode = reader.nextString();
+                            else reader.skipValue();
+                        }
+                        reader.endObject();
+                    }
+                    while (reader.hasNext()) reader.skipValue();
+                    reader.endArray();
+                    break;
+                case 2: // main
+                    reader.beginObject();
+                    while (reader.hasNext()) {
+                        int field = reader.selectName(MAIN_FIELDS);
+                        if (field == 0) temperature = reader.nextDouble();
+                        else if (field == 1) humidity = reader.nextInt();
+                        else reader.skipValue();
+                    }
+                    reader.endObject();
+                    break;
+                case 3: // wind
+                    reader.beginObject();
+                    while (reader.hasNext()) {
+                        if (reader.selectName(WIND_FIELDS) == 0) windSpeed = reader.nextDouble();
+                        else reader.skipValue();
+                    }
+                    reader.endObject();
+                    break;
+                case 4: // sys
+                    reader.beginObject();
+                    while (reader.hasNext()) {
+                        int field = reader.selectName(SYS_FIELDS);
+                        if (field == 0) sunrise = reader.nextLong();
+                        else if (field == 1) sunset = reader.nextLong();
+                        else reader.skipValue();
+                    }
+                    reader.endObject();
+                    break;
+                case 5: // id
+                    cityId = reader.nextLong();
+                    break;
+                case 6: // dt
+                    observedAt = reader.nextLong();
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        if (cityName == null || description == null || iconCode == null || Double.isNaN(temperature)
+                || Double.isNaN(windSpeed) || humidity < 0 || sunrise < 0 || sunset < 0) {
+            Metrics.increment(Metrics.Counter.PARSE_FAILURES);
+            LOGGER.warning("Current weather response is missing required fields.");
+            return null;
+        }
+        long buildStart = System.nanoTime();
+        WeatherData weatherData = new WeatherData(cityId, cityName, temperature, description, iconCode, windSpeed, humidity, sunrise, sunset, observedAt);
+        Metrics.recordSince(Metrics.Stage.MODEL_BUILD, buildStart);
+        return weatherData;
+    }
+
+    /**
+     * Parses the 5-day forecast by streaming it from the response body, keeping one entry per day
+     * with the same selection rules as {@link #parseFiveDayForecast(JSONObject)}.
+     * @param source The response body source, positioned at the start of the JSON document.
+     * @return A list of ForecastData objects, one for each of the next 5 days; empty if the document is malformed.
+     * @throws IOException If reading the source failed, e.g. the connection was reset mid-body.
+     */
+    public static List<ForecastData> parseFiveDayForecast(BufferedSource source) throws IOException {
+        ForecastSeries series = parseForecastSeries(source);
+        return series != null ? toFiveDaySummary(series) : new ArrayList<>();
+    }
+
+    /**
+     * Streams every time step of a forecast response into a columnar series. Only the timestamp,
+     * temperature, humidity, wind speed, primary icon and precipitation probability of each entry are read.
+     * @param source The response body source, positioned at the start of the JSON document.
+     * @return The series, with entries missing a timestamp, temperature or icon left out; null if the document is malformed.
+     * @throws IOException If reading the source failed, e.g. the connection was reset mid-body.
+     */
+    public static ForecastSeries parseForecastSeries(BufferedSource source) throws IOException {
+        ForecastSeries.Builder builder = null;
+        try {
+            JsonReader reader = new JsonReader(source);
+            reader.beginObject();
+            while (reader.hasNext()) {
+                int field = reader.selectName(FORECAST_FIELDS);
+                if (field == 1) { // cnt: arrives before the list, so the columns can be sized up front.
+                    // Upstream's count only sizes the first allocation; the builder grows past it.
+                    if (builder == null) builder = new ForecastSeries.Builder(Math.max(0, Math.min(reader.nextInt(), MAX_EXPECTED_STEPS)));
+                    else reader.skipValue();
+                    continue;
+                }
+                if (field != 0) {
+                    reader.skipValue();
+                    continue;
+                }
+                if (builder == null) builder = new ForecastSeries.Builder(40);
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    readForecastEntry(reader, builder);
+                }
+                reader.endArray();
+            }
+            reader.endObject();
+        } catch (JsonDataException | RuntimeException e) {
+            logParseFailure("forecast", e);
+            return null;
+        }
+        return builder != null ? builder.build() : new ForecastSeries.Builder(0).build();
+    }
+
+    /**
+     * Reads one element of the forecast list and appends it to the builder if it is complete.
+     */
+    private static void readForecastEntry(JsonReader reader, ForecastSeries.Builder builder) throws IOException {
+        long timestamp = -1;
+        double temperature = Double.NaN, humidity = Double.NaN, windSpeed = Double.NaN, precipitation = Double.NaN;
+        short iconId = ForecastSeries.UNKNOWN_ICON;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.selectName(FORECAST_ENTRY_FIELDS)) {
+                case 0: // dt
+                    timestamp = reader.nextLong();
+                    break;
+                case 1: // main
+                    reader.beginObject();
+                    while (reader.hasNext()) {
+                        int field = reader.selectName(MAIN_FIELDS);
+                        if (field == 0) temperature = reader.nextDouble();
+                        else if (field == 1) humidity = reader.nextDouble();
+                        else reader.skipValue();
+                    }
+                    reader.endObject();
+                    break;
+                case 2: // weather: only the first (primary) condition is kept.
+                    reader.beginArray();
+                    if (reader.hasNext()) {
+                        reader.beginObject();
+                        while (reader.hasNext()) {
+                            if (reader.selectName(ICON_FIELD) == 0) iconId = ForecastSeries.iconId(reader.nextString());
+                            else reader.skipValue();
+                        }
+                        reader.endObject();
+                    }
+                    while (reader.hasNext()) reader.skipValue();
+                    reader.endArray();
+                    break;
+                case 3: // wind
+                    reader.beginObject();
+                    while (reader.hasNext()) {
+                        if (reader.selectName(WIND_FIELDS) == 0) windSpeed = reader.nextDouble();
+                        else reader.skipValue();
+                    }
+                    reader.endObject();
+                    break;
+                case 4: // pop
+                    precipitation = reader.nextDouble();
+                    break;
+                default:
+                    reader.skipValue();
             }
         }
-        return forecastList;
+        reader.endObject();
+
+        if (timestamp < 0 || Double.isNaN(temperature) || iconId == ForecastSeries.UNKNOWN_ICON) return;
+        builder.add(timestamp, (float) temperature, (float) humidity, (float) windSpeed, iconId, (float) precipitation);
+    }
+
+    /**
+     * Derives the forecast row from a full series: the first entry of each of the next 5 days.
+     */
+    static List<ForecastData> toFiveDaySummary(ForecastSeries series) {
+        long buildStart = System.nanoTime();
+        List<ForecastData> summary = series.toDailySummary(ZoneId.systemDefault(), 5);
+        Metrics.recordSince(Metrics.Stage.MODEL_BUILD, buildStart);
+        return summary;
+    }
+
+    private static void logParseFailure(String what, Exception e) {
+        Metrics.increment(Metrics.Counter.PARSE_FAILURES);
+        LOGGER.log(Level.WARNING, "Could not parse " + what + " response", e);
     }
 }
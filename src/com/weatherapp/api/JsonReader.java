@@ -0,0 +1,431 @@
+package com.weatherapp.api;
+
+import okio.Buffer;
+import okio.BufferedSource;
+import okio.ByteString;
+import okio.Options;
+
+import java.io.IOException;
+
+/**
+ * A minimal streaming (pull) JSON reader that works directly on an okio {@link BufferedSource}.
+ * <p>
+ * Unlike a DOM parser it never builds a tree: callers walk the document token by token,
+ * pick out the values they need and {@link #skipValue() skip} everything else without
+ * materializing it. Object keys can be matched with {@link #selectName(Options)}, which
+ * compares the raw bytes against a precomputed set of names and allocates nothing.
+ */
+public class JsonReader {
+
+    /** The kinds of token that {@link #peek()} can report. */
+    public enum Token { BEGIN_OBJECT, END_OBJECT, BEGIN_ARRAY, END_ARRAY, NAME, STRING, NUMBER, BOOLEAN, NULL, END_DOCUMENT }
+
+    // Lexical scopes kept on the stack while nesting into objects and arrays.
+    private static final int EMPTY_ARRAY = 1;
+    private static final int NONEMPTY_ARRAY = 2;
+    private static final int EMPTY_OBJECT = 3;
+    private static final int DANGLING_NAME = 4;
+    private static final int NONEMPTY_OBJECT = 5;
+    private static final int EMPTY_DOCUMENT = 6;
+    private static final int NONEMPTY_DOCUMENT = 7;
+
+    private static final ByteString QUOTE_OR_BACKSLASH = ByteString.encodeUtf8("\"\\");
+    // Exact powers of ten; any double below 2^53 divided by one of these is correctly rounded.
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private final BufferedSource source;
+    private final Buffer buffer;
+    private int[] stack = new int[32];
+    private int stackSize;
+    private Token peeked;
+
+    public JsonReader(BufferedSource source) {
+        this.source = source;
+        this.buffer = source.getBuffer();
+        stack[stackSize++] = EMPTY_DOCUMENT;
+    }
+
+    /**
+     * Builds the option set used by {@link #selectName(Options)}.
+     * @param names The object keys to match, in the order their indexes should be reported.
+     * @return An Options instance matching the quoted form of each name.
+     */
+    public static Options options(String... names) {
+        ByteString[] quoted = new ByteString[names.length];
+        for (int i = 0; i < names.length; i++) {
+            quoted[i] = ByteString.encodeUtf8('"' + names[i] + '"');
+        }
+        return Options.of(quoted);
+    }
+
+    public void beginObject() throws IOException {
+        expect(Token.BEGIN_OBJECT);
+        buffer.skip(1);
+        push(EMPTY_OBJECT);
+        peeked = null;
+    }
+
+    public void endObject() throws IOException {
+        expect(Token.END_OBJECT);
+        buffer.skip(1);
+        stackSize--;
+        peeked = null;
+    }
+
+    public void beginArray() throws IOException {
+        expect(Token.BEGIN_ARRAY);
+        buffer.skip(1);
+        push(EMPTY_ARRAY);
+        peeked = null;
+    }
+
+    public void endArray() throws IOException {
+        expect(Token.END_ARRAY);
+        buffer.skip(1);
+        stackSize--;
+        peeked = null;
+    }
+
+    /**
+     * @return True if the current object or array has another element.
+     */
+    public boolean hasNext() throws IOException {
+        Token token = peek();
+        return token != Token.END_OBJECT && token != Token.END_ARRAY && token != Token.END_DOCUMENT;
+    }
+
+    /**
+     * Consumes the next object key and reports which of the given names it is.
+     * @param options A set of names built with {@link #options(String...)}.
+     * @return The index of the matching name, or -1 if the key is not in the set (the key is still consumed).
+     */
+    public int selectName(Options options) throws IOException {
+        expect(Token.NAME);
+        int index = source.select(options);
+        if (index == -1) {
+            buffer.skip(1); // Opening quote.
+            skipQuotedRemainder();
+        }
+        peeked = null;
+        return index;
+    }
+
+    public String nextName() throws IOException {
+        expect(Token.NAME);
+        buffer.skip(1);
+        String name = readQuotedRemainder();
+        peeked = null;
+        return name;
+    }
+
+    public String nextString() throws IOException {
+        Token token = peek();
+        if (token == Token.NUMBER) {
+            // Tolerate numbers where strings are expected, as lenient parsers do.
+            String number = buffer.readUtf8(numberLength());
+            afterValue();
+            return number;
+        }
+        expect(Token.STRING);
+        buffer.skip(1);
+        String value = readQuotedRemainder();
+        afterValue();
+        return value;
+    }
+
+    public double nextDouble() throws IOException {
+        expect(Token.NUMBER);
+        int length = numberLength();
+        double value = parseDouble(length);
+        afterValue();
+        return value;
+    }
+
+    public long nextLong() throws IOException {
+        expect(Token.NUMBER);
+        int length = numberLength();
+        long value = 0;
+        boolean negative = false;
+        boolean integral = true;
+        for (int i = 0; i < length; i++) {
+            byte c = buffer.getByte(i);
+            if (i == 0 && c == '-') {
+                negative = true;
+            } else if (c >= '0' && c <= '9' && i < 19) {
+                value = value * 10 + (c - '0');
+            } else {
+                integral = false;
+                break;
+            }
+        }
+        if (!integral) {
+            // Values like 1.0 or 1e3 still represent whole numbers.
+            double asDouble = parseDouble(length);
+            value = (long) asDouble;
+            if (value != asDouble) throw syntaxError("Expected a long but was " + asDouble);
+            afterValue();
+            return value;
+        }
+        buffer.skip(length);
+        afterValue();
+        return negative ? -value : value;
+    }
+
+    public int nextInt() throws IOException {
+        long value = nextLong();
+        if ((int) value != value) throw syntaxError("Expected an int but was " + value);
+        return (int) value;
+    }
+
+    public boolean nextBoolean() throws IOException {
+        expect(Token.BOOLEAN);
+        boolean value = buffer.getByte(0) == 't';
+        source.skip(value ? 4 : 5);
+        afterValue();
+        return value;
+    }
+
+    public void nextNull() throws IOException {
+        expect(Token.NULL);
+        source.skip(4);
+        afterValue();
+    }
+
+    /**
+     * Skips the next value, recursively skipping nested objects and arrays, without allocating.
+     */
+    public void skipValue() throws IOException {
+        int depth = 0;
+        do {
+            Token token = peek();
+            switch (token) {
+                case BEGIN_OBJECT: beginObject(); depth++; break;
+                case BEGIN_ARRAY: beginArray(); depth++; break;
+                case END_OBJECT: endObject(); depth--; break;
+                case END_ARRAY: endArray(); depth--; break;
+                case NAME:
+                    buffer.skip(1);
+                    skipQuotedRemainder();
+                    peeked = null;
+                    break;
+                case STRING:
+                    buffer.skip(1);
+                    skipQuotedRemainder();
+                    afterValue();
+                    break;
+                case NUMBER:
+                    buffer.skip(numberLength());
+                    afterValue();
+                    break;
+                case BOOLEAN: nextBoolean(); break;
+                case NULL: nextNull(); break;
+                default: throw syntaxError("Unexpected end of document");
+            }
+        } while (depth > 0);
+    }
+
+    /**
+     * Returns the kind of the next token without consuming it.
+     * Separators (commas and colons) are consumed as part of peeking.
+     */
+    public Token peek() throws IOException {
+        if (peeked != null) return peeked;
+
+        int scope = stack[stackSize - 1];
+        if (scope == EMPTY_ARRAY) {
+            if (nextNonWhitespace() == ']') return peeked = Token.END_ARRAY;
+            stack[stackSize - 1] = NONEMPTY_ARRAY;
+        } else if (scope == NONEMPTY_ARRAY) {
+            int c = nextNonWhitespace();
+            if (c == ']') return peeked = Token.END_ARRAY;
+            if (c != ',') throw syntaxError("Unterminated array");
+            buffer.skip(1);
+        } else if (scope == EMPTY_OBJECT || scope == NONEMPTY_OBJECT) {
+            int c = nextNonWhitespace();
+            if (c == '}') return peeked = Token.END_OBJECT;
+            if (scope == NONEMPTY_OBJECT) {
+                if (c != ',') throw syntaxError("Unterminated object");
+                buffer.skip(1);
+                c = nextNonWhitespace();
+            }
+            if (c != '"') throw syntaxError("Expected a name");
+            stack[stackSize - 1] = DANGLING_NAME;
+            return peeked = Token.NAME;
+        } else if (scope == DANGLING_NAME) {
+            stack[stackSize - 1] = NONEMPTY_OBJECT;
+            if (nextNonWhitespace() != ':') throw syntaxError("Expected ':'");
+            buffer.skip(1);
+        } else if (scope == EMPTY_DOCUMENT) {
+            stack[stackSize - 1] = NONEMPTY_DOCUMENT;
+        } else if (scope == NONEMPTY_DOCUMENT) {
+            if (nextNonWhitespace() == -1) return peeked = Token.END_DOCUMENT;
+            throw syntaxError("Multiple top-level values");
+        }
+
+        int c = nextNonWhitespace();
+        switch (c) {
+            case '{': return peeked = Token.BEGIN_OBJECT;
+            case '[': return peeked = Token.BEGIN_ARRAY;
+            case '"': return peeked = Token.STRING;
+            case 't':
+            case 'f': return peeked = Token.BOOLEAN;
+            case 'n': return peeked = Token.NULL;
+            case -1: throw new JsonDataException("Unexpected end of JSON input");
+            default:
+                if (c == '-' || (c >= '0' && c <= '9')) return peeked = Token.NUMBER;
+                throw syntaxError("Unexpected character '" + (char) c + "'");
+        }
+    }
+
+    private void expect(Token expected) throws IOException {
+        Token actual = peek();
+        if (actual != expected) throw syntaxError("Expected " + expected + " but was " + actual);
+    }
+
+    private void push(int scope) {
+        if (stackSize == stack.length) {
+            int[] larger = new int[stack.length * 2];
+            System.arraycopy(stack, 0, larger, 0, stack.length);
+            stack = larger;
+        }
+        stack[stackSize++] = scope;
+    }
+
+    private void afterValue() {
+        peeked = null;
+    }
+
+    /**
+     * @return The next non-whitespace byte, left unconsumed in the buffer, or -1 at end of input.
+     */
+    private int nextNonWhitespace() throws IOException {
+        while (source.request(1)) {
+            byte c = buffer.getByte(0);
+            if (c == ' ' || c == '\n' || c == '\r' || c == '\t') {
+                buffer.skip(1);
+            } else {
+                return c;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return The length in bytes of the number at the head of the buffer.
+     */
+    private int numberLength() throws IOException {
+        int i = 0;
+        while (source.request(i + 1)) {
+            byte c = buffer.getByte(i);
+            if ((c >= '0' && c <= '9') || c == '-' || c == '+' || c == '.' || c == 'e' || c == 'E') {
+                i++;
+            } else {
+                break;
+            }
+        }
+        return i;
+    }
+
+    /**
+     * Parses and consumes a number of the given length from the buffer. Short decimal numbers,
+     * which is every number in a weather payload, are converted without creating a String.
+     */
+    private double parseDouble(int length) throws IOException {
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = 0;
+        boolean negative = false;
+        boolean seenPoint = false;
+        boolean fastPath = true;
+        for (int i = 0; i < length; i++) {
+            byte c = buffer.getByte(i);
+            if (c >= '0' && c <= '9') {
+                mantissa = mantissa * 10 + (c - '0');
+                digits++;
+                if (seenPoint) fractionDigits++;
+            } else if (c == '-' && i == 0) {
+                negative = true;
+            } else if (c == '.' && !seenPoint) {
+                seenPoint = true;
+            } else {
+                fastPath = false; // Exponents and other forms take the slow path.
+                break;
+            }
+        }
+        if (fastPath && digits > 0 && digits <= 15 && fractionDigits < POWERS_OF_TEN.length) {
+            buffer.skip(length);
+            double value = mantissa / POWERS_OF_TEN[fractionDigits];
+            return negative ? -value : value;
+        }
+        String text = buffer.readUtf8(length);
+        try {
+            return Double.parseDouble(text);
+        } catch (NumberFormatException e) {
+            throw syntaxError("Malformed number " + text);
+        }
+    }
+
+    /**
+     * Reads a string whose opening quote has already been consumed, handling escapes.
+     */
+    private String readQuotedRemainder() throws IOException {
+        StringBuilder builder = null;
+        while (true) {
+            long index = source.indexOfElement(QUOTE_OR_BACKSLASH);
+            if (index == -1) throw new JsonDataException("Unterminated string");
+            if (buffer.getByte(index) == '"') {
+                String chunk = buffer.readUtf8(index);
+                buffer.skip(1);
+                if (builder == null) return chunk;
+                return builder.append(chunk).toString();
+            }
+            if (builder == null) builder = new StringBuilder();
+            builder.append(buffer.readUtf8(index));
+            buffer.skip(1); // Backslash.
+            builder.append(readEscapeCharacter());
+        }
+    }
+
+    private void skipQuotedRemainder() throws IOException {
+        while (true) {
+            long index = source.indexOfElement(QUOTE_OR_BACKSLASH);
+            if (index == -1) throw new JsonDataException("Unterminated string");
+            byte c = buffer.getByte(index);
+            buffer.skip(index + 1);
+            if (c == '"') return;
+            require(1);
+            buffer.skip(1); // The escaped character; \\u sequences contain no quotes or backslashes.
+        }
+    }
+
+    private char readEscapeCharacter() throws IOException {
+        require(1);
+        byte escaped = buffer.readByte();
+        switch (escaped) {
+            case 'u':
+                require(4);
+                return (char) Integer.parseInt(buffer.readUtf8(4), 16);
+            case 't': return '\t';
+            case 'b': return '\b';
+            case 'n': return '\n';
+            case 'r': return '\r';
+            case 'f': return '\f';
+            default: return (char) escaped;
+        }
+    }
+
+    /**
+     * Like {@link BufferedSource#require(long)}, but reports a document that ends too early as
+     * malformed; failures of the source itself still surface as plain IOExceptions.
+     */
+    private void require(long byteCount) throws IOException {
+        if (!source.request(byteCount)) throw new JsonDataException("Unexpected end of JSON input");
+    }
+
+    private JsonDataException syntaxError(String message) {
+        return new JsonDataException("Malformed JSON: " + message);
+    }
+}
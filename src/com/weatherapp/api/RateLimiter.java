@@ -0,0 +1,61 @@
+package com.weatherapp.api;
+
+import com.weatherapp.util.AppConfig;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A token bucket that keeps calls within the API plan's calls-per-minute quota.
+ * <p>
+ * The bucket holds up to {@code burst} tokens and refills continuously at the plan's rate.
+ * A caller that finds it empty reserves the next token and sleeps until it is due, so waiting
+ * callers are served in arrival order and the long-run rate never exceeds the quota.
+ */
+public class RateLimiter {
+    private final double permitsPerNano;
+    private final double burst;
+
+    // Guarded by this. May go negative: each waiting caller has reserved a future token.
+    private double tokens;
+    private long lastRefillNanos;
+
+    /**
+     * @param callsPerMinute The sustained rate allowed.
+     * @param burst How many calls may be made back to back after an idle period.
+     */
+    public RateLimiter(double callsPerMinute, int burst) {
+        this.permitsPerNano = callsPerMinute / TimeUnit.MINUTES.toNanos(1);
+        this.burst = Math.max(1, burst);
+        this.tokens = this.burst;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    /**
+     * Reads {@code api.callsPerMinute} and {@code api.rateLimitBurst} from the configuration.
+     */
+    public static RateLimiter fromConfig(AppConfig config) {
+        return new RateLimiter(config.getDouble("api.callsPerMinute", 60), config.getInt("api.rateLimitBurst", 10));
+    }
+
+    /**
+     * Takes a token, waiting for one if necessary.
+     * @param maxWaitMillis The longest the caller is willing to wait.
+     * @return True once a token was taken; false, without taking one, if it would take longer than allowed.
+     * @throws InterruptedException If interrupted while waiting; the reserved token is not returned.
+     */
+    public boolean acquire(long maxWaitMillis) throws InterruptedException {
+        long waitNanos;
+        synchronized (this) {
+            long now = System.nanoTime();
+            tokens = Math.min(burst, tokens + (now - lastRefillNanos) * permitsPerNano);
+            lastRefillNanos = now;
+            waitNanos = tokens >= 1 ? 0 : (long) ((1 - tokens) / permitsPerNano);
+            if (waitNanos > TimeUnit.MILLISECONDS.toNanos(maxWaitMillis)) return false;
+            tokens -= 1;
+        }
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+        return true;
+    }
+}
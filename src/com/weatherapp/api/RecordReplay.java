@@ -0,0 +1,354 @@
+package com.weatherapp.api;
+
+import com.weatherapp.util.AppConfig;
+import okhttp3.HttpUrl;
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Records OpenWeatherMap responses to disk and replays them without a network, so the app can be
+ * developed and load-tested offline, reproducibly and without using up the API quota.
+ * <p>
+ * Both modes are OkHttp application interceptors, so everything above the HTTP client (retries,
+ * the circuit breaker, caching and parsing) runs exactly as it does live. A response is stored
+ * under its request's method, path and query, leaving out the API key. The replay mode can add
+ * latency and fail a share of calls, to exercise the client under realistic conditions.
+ * <p>
+ * The mode is chosen by {@code http.mode}: {@code live} (the default), {@code record} or
+ * {@code replay}; see {@link #install(OkHttpClient.Builder, AppConfig)}.
+ */
+public class RecordReplay {
+    private static final Logger LOGGER = Logger.getLogger(RecordReplay.class.getName());
+    private static final String API_KEY_PARAMETER = "appid";
+
+    /** Where requests are sent. */
+    public enum Mode { LIVE, RECORD, REPLAY }
+
+    /**
+     * Adds the interceptor for the configured {@code http.mode}, if any, to a client being built.
+     * @param config Supplies the {@code http.mode}, {@code http.recordingsDir} and {@code http.replay.*} settings.
+     */
+    public static void install(OkHttpClient.Builder builder, AppConfig config) {
+        Mode mode;
+        try {
+            mode = Mode.valueOf(config.getString("http.mode", "live").toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            System.err.println("Invalid value for http.mode: " + config.getString("http.mode", ""));
+            return;
+        }
+        if (mode == Mode.LIVE) return;
+
+        String dir = config.getString("http.recordingsDir", "");
+        Recordings recordings = new Recordings(dir.isEmpty() ? Recordings.defaultDir() : Paths.get(dir));
+        if (mode == Mode.RECORD) {
+            builder.addInterceptor(new Recorder(recordings));
+        } else {
+            builder.addInterceptor(new Replayer(recordings,
+                    config.getLong("http.replay.latencyMillis", 0),
+                    config.getLong("http.replay.latencyJitterMillis", 0),
+                    config.getDouble("http.replay.errorRate", 0),
+                    config.getInt("http.replay.errorStatus", 503),
+                    config.getDouble("http.replay.networkErrorRate", 0),
+                    config.getLong("http.replay.seed", 0)));
+        }
+        LOGGER.info("HTTP " + mode.name().toLowerCase(Locale.ROOT) + " mode, recordings in " + recordings.getDir());
+    }
+
+    /**
+     * @return The request's identity for recording: method, path and query, with the parameters
+     *         sorted and lower-cased and the API key left out, e.g. {@code GET /data/2.5/weather?q=pune&units=metric}.
+     */
+    public static String requestKey(Request request) {
+        HttpUrl url = request.url();
+        List<String> parameters = new ArrayList<>();
+        for (String name : url.queryParameterNames()) {
+            if (name.equals(API_KEY_PARAMETER)) continue;
+            for (String value : url.queryParameterValues(name)) {
+                // OpenWeatherMap ignores case in city names, so "Pune" and "pune" share a recording.
+                parameters.add(name + '=' + (value == null ? "" : value.toLowerCase(Locale.ROOT)));
+            }
+        }
+        Collections.sort(parameters);
+        String key = request.method() + ' ' + url.encodedPath();
+        return parameters.isEmpty() ? key : key + '?' + String.join("&", parameters);
+    }
+
+    /**
+     * A directory of recorded responses, one file per request. Replayed files are kept in memory.
+     * <p>
+     * Each file holds the request key on the first line, the status code and content type on
+     * the second, then an empty line and the body exactly as received.
+     */
+    public static class Recordings {
+        private final Path dir;
+        private final Map<String, Recorded> loaded = new ConcurrentHashMap<>();
+
+        public Recordings(Path dir) {
+            this.dir = dir;
+        }
+
+        /**
+         * @return The default recordings location, {@code ~/.weatherapp/recordings}.
+         */
+        public static Path defaultDir() {
+            return Paths.get(System.getProperty("user.home"), ".weatherapp", "recordings");
+        }
+
+        public Path getDir() {
+            return dir;
+        }
+
+        /**
+         * @return The recorded response for the request, or null if there is none.
+         */
+        public Recorded get(Request request) throws IOException {
+            String key = requestKey(request);
+            Recorded recorded = loaded.get(key);
+            if (recorded != null) return recorded;
+            byte[] bytes;
+            try {
+                bytes = Files.readAllBytes(fileFor(key));
+            } catch (NoSuchFileException e) {
+                return null;
+            }
+            recorded = Recorded.decode(bytes);
+            if (recorded == null || !recorded.key.equals(key)) {
+                throw new IOException("Unreadable recording for " + key);
+            }
+            loaded.put(key, recorded);
+            return recorded;
+        }
+
+        /**
+         * Stores a response, replacing any earlier recording of the same request. The file is
+         * written completely before it atomically takes the place of the old one.
+         */
+        public void put(Request request, int code, MediaType contentType, byte[] body) throws IOException {
+            String key = requestKey(request);
+            Recorded recorded = new Recorded(key, code, contentType == null ? "" : contentType.toString(), body);
+            Path file = fileFor(key);
+            Files.createDirectories(dir);
+            Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+            Files.write(tempFile, recorded.encode());
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            loaded.put(key, recorded);
+        }
+
+        // Named after the endpoint, e.g. "weather-3f1c0a9b2e4d5f60.http", so the directory stays browsable.
+        private Path fileFor(String key) {
+            String path = key.substring(key.indexOf(' ') + 1);
+            int query = path.indexOf('?');
+            if (query >= 0) path = path.substring(0, query);
+            String endpoint = path.substring(path.lastIndexOf('/') + 1);
+            return dir.resolve((endpoint.isEmpty() ? "root" : endpoint) + '-' + hash(key) + ".http");
+        }
+
+        private static String hash(String key) {
+            try {
+                byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+                StringBuilder hex = new StringBuilder(16);
+                for (int i = 0; i < 8; i++) {
+                    hex.append(String.format("%02x", digest[i]));
+                }
+                return hex.toString();
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 is always available", e);
+            }
+        }
+    }
+
+    /**
+     * One recorded response.
+     */
+    public static final class Recorded {
+        private final String key;
+        private final int code;
+        private final String contentType;
+        private final byte[] body;
+
+        private Recorded(String key, int code, String contentType, byte[] body) {
+            this.key = key;
+            this.code = code;
+            this.contentType = contentType;
+            this.body = body;
+        }
+
+        public int getCode() { return code; }
+        public String getContentType() { return contentType; }
+
+        private byte[] encode() {
+            byte[] header = (key + '\n' + code + ' ' + contentType + "\n\n").getBytes(StandardCharsets.UTF_8);
+            byte[] bytes = new byte[header.length + body.length];
+            System.arraycopy(header, 0, bytes, 0, header.length);
+            System.arraycopy(body, 0, bytes, header.length, body.length);
+            return bytes;
+        }
+
+        // Returns null if the header is malformed.
+        private static Recorded decode(byte[] bytes) {
+            int end = -1;
+            for (int i = 0; i + 1 < bytes.length; i++) {
+                if (bytes[i] == '\n' && bytes[i + 1] == '\n') {
+                    end = i;
+                    break;
+                }
+            }
+            if (end < 0) return null;
+            String[] lines = new String(bytes, 0, end, StandardCharsets.UTF_8).split("\n");
+            if (lines.length != 2) return null;
+            String[] status = lines[1].split(" ", 2);
+            try {
+                byte[] body = new byte[bytes.length - end - 2];
+                System.arraycopy(bytes, end + 2, body, 0, body.length);
+                return new Recorded(lines[0], Integer.parseInt(status[0]), status.length > 1 ? status[1] : "", body);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Passes requests through to upstream and records the responses. Throttling and server
+     * errors are not recorded, so a replay never repeats a transient failure.
+     */
+    public static class Recorder implements Interceptor {
+        private final Recordings recordings;
+
+        public Recorder(Recordings recordings) {
+            this.recordings = recordings;
+        }
+
+        @Override
+        public Response intercept(Chain chain) throws IOException {
+            Request request = chain.request();
+            Response response = chain.proceed(request);
+            if (response.code() == 429 || response.code() >= 500 || response.body() == null) {
+                return response;
+            }
+            // Buffer the body so it can be both stored and handed on.
+            MediaType contentType = response.body().contentType();
+            byte[] body = response.body().bytes();
+            try {
+                recordings.put(request, response.code(), contentType, body);
+            } catch (IOException e) {
+                System.err.println("Error recording " + requestKey(request) + ": " + e.getMessage());
+            }
+            return response.newBuilder().body(ResponseBody.create(body, contentType)).build();
+        }
+    }
+
+    /**
+     * Answers requests from the recordings without touching the network. A request that was never
+     * recorded gets a 404, as OpenWeatherMap gives for an unknown city.
+     * <p>
+     * Injected latency and failures are drawn from the seed, the request's key and how many times
+     * that request was made before, not from the thread or the timing. A run with the same seed
+     * and the same requests therefore delays and fails the same calls, however they interleave.
+     */
+    public static class Replayer implements Interceptor {
+        private static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
+
+        private final Recordings recordings;
+        private final long latencyMillis;
+        private final long latencyJitterMillis;
+        private final double errorRate;
+        private final int errorStatus;
+        private final double networkErrorRate;
+        private final long seed;
+        private final ConcurrentMap<String, AtomicLong> callCounts = new ConcurrentHashMap<>();
+        private final Set<String> reportedMisses = ConcurrentHashMap.newKeySet();
+
+        /**
+         * @param latencyMillis Added to every call.
+         * @param latencyJitterMillis Up to this much more is added at random.
+         * @param errorRate The share of calls, from 0 to 1, answered with {@code errorStatus} instead.
+         * @param errorStatus The HTTP status of injected errors, e.g. 503 or 429.
+         * @param networkErrorRate The share of calls that fail as if the connection dropped.
+         * @param seed Decides which calls get how much jitter and which fail; runs with equal seeds match.
+         */
+        public Replayer(Recordings recordings, long latencyMillis, long latencyJitterMillis,
+                        double errorRate, int errorStatus, double networkErrorRate, long seed) {
+            this.recordings = recordings;
+            this.latencyMillis = Math.max(0, latencyMillis);
+            this.latencyJitterMillis = Math.max(0, latencyJitterMillis);
+            this.errorRate = errorRate;
+            this.errorStatus = errorStatus;
+            this.networkErrorRate = networkErrorRate;
+            this.seed = seed;
+        }
+
+        @Override
+        public Response intercept(Chain chain) throws IOException {
+            Request request = chain.request();
+            String key = requestKey(request);
+            long call = callCounts.computeIfAbsent(key, k -> new AtomicLong()).getAndIncrement();
+            SplittableRandom random = new SplittableRandom(seed ^ ((long) key.hashCode() << 32) ^ call * 0x9E3779B97F4A7C15L);
+            long delay = latencyMillis + (latencyJitterMillis > 0 ? random.nextLong(latencyJitterMillis + 1) : 0);
+            if (delay > 0) {
+                try {
+                    Thread.sleep(delay);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted during injected latency");
+                }
+            }
+            double roll = random.nextDouble();
+            if (roll < networkErrorRate) {
+                throw new IOException("Injected network failure");
+            }
+            if (roll < networkErrorRate + errorRate) {
+                return response(request, errorStatus, JSON,
+                        ("{\"cod\":" + errorStatus + ",\"message\":\"injected error\"}").getBytes(StandardCharsets.UTF_8));
+            }
+
+            Recorded recorded = recordings.get(request);
+            if (recorded == null) {
+                if (reportedMisses.add(key)) {
+                    LOGGER.warning("No recording for " + key + "; answering 404");
+                }
+                return response(request, 404, JSON,
+                        "{\"cod\":\"404\",\"message\":\"not recorded\"}".getBytes(StandardCharsets.UTF_8));
+            }
+            MediaType contentType = recorded.contentType.isEmpty() ? null : MediaType.parse(recorded.contentType);
+            return response(request, recorded.code, contentType, recorded.body);
+        }
+
+        private static Response response(Request request, int code, MediaType contentType, byte[] body) {
+            Response.Builder builder = new Response.Builder()
+                    .request(request)
+                    .protocol(Protocol.HTTP_1_1)
+                    .code(code)
+                    .message(code == 200 ? "OK" : "Replayed")
+                    .body(ResponseBody.create(body, contentType));
+            if (contentType != null) builder.header("Content-Type", contentType.toString());
+            return builder.build();
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.weatherapp.api;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collapses concurrent requests for the same key into a single upstream call.
+ * <p>
+ * The first caller for a key performs the call; anyone asking for the same key while it is
+ * still in flight waits for and shares that result instead of issuing a duplicate request.
+ * Once the call completes the key is released, so later callers go through the cache as usual.
+ *
+ * @param <K> The request key type.
+ * @param <V> The result type.
+ */
+public class RequestCoalescer<K, V> {
+
+    /**
+     * Performs one request.
+     * @param <V> The result type.
+     */
+    public interface Call<V> {
+        V call() throws IOException;
+    }
+
+    /**
+     * Performs one request covering several keys.
+     * @param <K> The key type.
+     * @param <V> The result type.
+     */
+    public interface BatchCall<K, V> {
+        /**
+         * @return The results by key; keys missing from the map resolve to null.
+         */
+        Map<K, V> call(List<K> keys) throws IOException;
+    }
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong coalescedCount = new AtomicLong();
+
+    /**
+     * Performs a call, or joins an identical call already in flight.
+     * @param key Identifies the request.
+     * @param call Performs the request; may return null.
+     * @return The result of the call, shared with any concurrent callers for the same key.
+     * @throws IOException If the call failed; every caller sharing it receives the same failure.
+     */
+    public V execute(K key, Call<V> call) throws IOException {
+        CompletableFuture<V> own = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, own);
+        if (existing != null) {
+            coalescedCount.incrementAndGet();
+            return await(existing);
+        }
+        try {
+            V value = call.call();
+            own.complete(value);
+            return value;
+        } catch (IOException | RuntimeException e) {
+            own.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, own);
+        }
+    }
+
+    /**
+     * Performs one batched call for every key that is not already in flight, and joins the
+     * in-flight calls for the rest.
+     * @param keys The keys to resolve.
+     * @param batchCall Resolves a list of keys in one request; keys missing from its result resolve to null.
+     * @return The results by key, in the order of {@code keys}; keys that could not be resolved are absent.
+     * @throws IOException If the batch call, or a joined call, failed.
+     */
+    public Map<K, V> executeAll(Collection<K> keys, BatchCall<K, V> batchCall) throws IOException {
+        Map<K, CompletableFuture<V>> owned = new LinkedHashMap<>();
+        Map<K, CompletableFuture<V>> joined = new HashMap<>();
+        for (K key : keys) {
+            if (owned.containsKey(key) || joined.containsKey(key)) continue;
+            CompletableFuture<V> own = new CompletableFuture<>();
+            CompletableFuture<V> existing = inFlight.putIfAbsent(key, own);
+            if (existing != null) {
+                coalescedCount.incrementAndGet();
+                joined.put(key, existing);
+            } else {
+                owned.put(key, own);
+            }
+        }
+
+        Map<K, V> batchResult = Map.of();
+        if (!owned.isEmpty()) {
+            try {
+                batchResult = batchCall.call(new ArrayList<>(owned.keySet()));
+                for (Map.Entry<K, CompletableFuture<V>> entry : owned.entrySet()) {
+                    entry.getValue().complete(batchResult.get(entry.getKey()));
+                }
+            } catch (IOException | RuntimeException e) {
+                for (CompletableFuture<V> future : owned.values()) {
+                    future.completeExceptionally(e);
+                }
+                throw e;
+            } finally {
+                for (Map.Entry<K, CompletableFuture<V>> entry : owned.entrySet()) {
+                    inFlight.remove(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+
+        Map<K, V> results = new LinkedHashMap<>();
+        for (K key : keys) {
+            V value = owned.containsKey(key) ? batchResult.get(key) : await(joined.get(key));
+            if (value != null) results.put(key, value);
+        }
+        return results;
+    }
+
+    /**
+     * Waits for another caller's request and rethrows its failure as it was thrown.
+     */
+    private static <V> V await(CompletableFuture<V> future) throws IOException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) throw (IOException) cause;
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            throw e;
+        }
+    }
+
+    /**
+     * @return How many callers shared another caller's in-flight request instead of making their own.
+     */
+    public long getCoalescedCount() {
+        return coalescedCount.get();
+    }
+}
@@ -0,0 +1,257 @@
+package com.weatherapp.api;
+
+import com.weatherapp.metrics.Metrics;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded, thread-safe cache for API responses with per-lookup time-to-live,
+ * least-recently-used eviction and stale-while-revalidate semantics.
+ * <p>
+ * A fresh entry is returned directly. An entry past its TTL but still inside the
+ * stale window is returned immediately while a single background refresh replaces it.
+ * Anything older, or missing, is loaded synchronously by the caller. If that load fails,
+ * an entry of any age is served in its place (stale-if-error), so an outage upstream degrades
+ * to old data rather than to an error.
+ *
+ * @param <V> The type of cached value.
+ */
+public class ResponseCache<V> {
+
+    /**
+     * Loads a value on a cache miss or refresh.
+     * @param <V> The type of value loaded.
+     */
+    public interface Loader<V> {
+        /**
+         * @return The loaded value, or null if there is nothing to cache. Null values are never cached.
+         * @throws IOException If loading failed.
+         */
+        V load() throws IOException;
+    }
+
+    private static class Entry<V> {
+        final V value;
+        final long fetchedAt;
+        boolean refreshing; // Guarded by the cache lock.
+
+        Entry(V value, long fetchedAt) {
+            this.value = value;
+            this.fetchedAt = fetchedAt;
+        }
+    }
+
+    private final int maxEntries;
+    private final double staleFactor;
+    private final Map<String, Entry<V>> entries;
+    private final ExecutorService refreshExecutor;
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong staleHitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    /**
+     * Constructs a new ResponseCache.
+     * @param maxEntries The maximum number of entries kept before the least recently used one is evicted.
+     * @param staleFactor How long, as a multiple of the TTL, an expired entry may still be served while it is refreshed.
+     */
+    public ResponseCache(int maxEntries, double staleFactor) {
+        this.maxEntries = maxEntries;
+        this.staleFactor = staleFactor;
+        // An access-ordered LinkedHashMap keeps the least recently used entry at the head.
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry<V>> eldest) {
+                if (size() > ResponseCache.this.maxEntries) {
+                    evictionCount.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+        this.refreshExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "response-cache-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Returns the cached value for a key, loading or refreshing it as needed.
+     * @param key The cache key, already normalized by the caller.
+     * @param ttlMillis How long a loaded value is considered fresh.
+     * @param loader Loads the value on a miss or refresh.
+     * @return The cached or freshly loaded value, or null if the loader returned null.
+     * @throws IOException If loading failed and there is no entry, however old, to fall back to.
+     */
+    public V get(String key, long ttlMillis, Loader<V> loader) throws IOException {
+        long now = System.currentTimeMillis();
+        synchronized (entries) {
+            Entry<V> entry = entries.get(key);
+            if (entry != null) {
+                long age = now - entry.fetchedAt;
+                if (age <= ttlMillis) {
+                    hitCount.incrementAndGet();
+                    Metrics.increment(Metrics.Counter.CACHE_HITS);
+                    return entry.value;
+                }
+                if (age <= ttlMillis + (long) (ttlMillis * staleFactor)) {
+                    staleHitCount.incrementAndGet();
+                    Metrics.increment(Metrics.Counter.CACHE_STALE_HITS);
+                    if (!entry.refreshing) {
+                        entry.refreshing = true;
+                        refreshExecutor.execute(() -> refresh(key, entry, loader));
+                    }
+                    return entry.value;
+                }
+            }
+        }
+
+        missCount.incrementAndGet();
+        Metrics.increment(Metrics.Counter.CACHE_MISSES);
+        V value;
+        try {
+            value = loader.load();
+        } catch (IOException e) {
+            V fallback = getAnyAge(key);
+            if (fallback == null) throw e;
+            staleHitCount.incrementAndGet();
+            Metrics.increment(Metrics.Counter.CACHE_STALE_HITS);
+            return fallback;
+        }
+        if (value != null) {
+            put(key, value);
+        }
+        return value;
+    }
+
+    /**
+     * Like {@link #get(String, long, Loader)}, but never serves an entry past its TTL: a stale
+     * or missing entry is loaded synchronously. Used by scheduled refreshes, which run exactly
+     * because the displayed data is due to be replaced.
+     * @return The fresh cached or newly loaded value, or null if the loader returned null.
+     * @throws IOException If loading failed.
+     */
+    public V getFresh(String key, long ttlMillis, Loader<V> loader) throws IOException {
+        V cached = getIfFresh(key, ttlMillis);
+        if (cached != null) return cached;
+        V value = loader.load();
+        if (value != null) {
+            put(key, value);
+        }
+        return value;
+    }
+
+    /**
+     * @param key The cache key.
+     * @return How long ago the entry for the key was loaded, or -1 if there is none.
+     */
+    public long getAgeMillis(String key) {
+        synchronized (entries) {
+            Entry<V> entry = entries.get(key);
+            return entry != null ? System.currentTimeMillis() - entry.fetchedAt : -1;
+        }
+    }
+
+    /**
+     * Returns a cached value only if it is still fresh, without loading or refreshing anything.
+     * Used by batch lookups, which load every non-fresh key together in one request.
+     * @param key The cache key.
+     * @param ttlMillis How long a loaded value is considered fresh.
+     * @return The fresh cached value, or null; a null result is counted as a miss.
+     */
+    public V getIfFresh(String key, long ttlMillis) {
+        synchronized (entries) {
+            Entry<V> entry = entries.get(key);
+            if (entry != null && System.currentTimeMillis() - entry.fetchedAt <= ttlMillis) {
+                hitCount.incrementAndGet();
+                Metrics.increment(Metrics.Counter.CACHE_HITS);
+                return entry.value;
+            }
+        }
+        missCount.incrementAndGet();
+        Metrics.increment(Metrics.Counter.CACHE_MISSES);
+        return null;
+    }
+
+    /**
+     * Returns an entry of any age, to serve in place of a load that failed (stale-if-error).
+     * Used by batch lookups, which load outside {@link #get(String, long, Loader)}.
+     * @param key The cache key.
+     * @return The cached value however old, or null; a non-null result is counted as a stale hit.
+     */
+    public V getStale(String key) {
+        V value = getAnyAge(key);
+        if (value != null) {
+            staleHitCount.incrementAndGet();
+            Metrics.increment(Metrics.Counter.CACHE_STALE_HITS);
+        }
+        return value;
+    }
+
+    /**
+     * Stores a value, replacing any existing entry for the key.
+     * @param key The cache key.
+     * @param value The value to cache.
+     */
+    public void put(String key, V value) {
+        synchronized (entries) {
+            entries.put(key, new Entry<>(value, System.currentTimeMillis()));
+        }
+    }
+
+    /**
+     * Removes every entry. The statistics counters are left untouched.
+     */
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    private V getAnyAge(String key) {
+        synchronized (entries) {
+            Entry<V> entry = entries.get(key);
+            return entry != null ? entry.value : null;
+        }
+    }
+
+    private void refresh(String key, Entry<V> staleEntry, Loader<V> loader) {
+        V value = null;
+        try {
+            value = loader.load();
+        } catch (IOException e) {
+            // The stale entry stays; the loader has already logged the failure.
+        } finally {
+            // Also reached when the loader throws a RuntimeException, which then goes on to the
+            // executor thread's handler; the entry must not be left marked as refreshing forever.
+            synchronized (entries) {
+                if (value != null) {
+                    entries.put(key, new Entry<>(value, System.currentTimeMillis()));
+                } else if (entries.get(key) == staleEntry) {
+                    // Allow another refresh attempt on the next lookup.
+                    staleEntry.refreshing = false;
+                }
+            }
+        }
+    }
+
+    // Getters for the cache statistics.
+    public int size() { synchronized (entries) { return entries.size(); } }
+    public long getHitCount() { return hitCount.get(); }
+    public long getStaleHitCount() { return staleHitCount.get(); }
+    public long getMissCount() { return missCount.get(); }
+    public long getEvictionCount() { return evictionCount.get(); }
+
+    @Override
+    public String toString() {
+        return "ResponseCache[size=" + size() + ", hits=" + getHitCount() + ", staleHits=" + getStaleHitCount()
+                + ", misses=" + getMissCount() + ", evictions=" + getEvictionCount() + "]";
+    }
+}
@@ -0,0 +1,53 @@
+package com.weatherapp.api;
+
+import com.weatherapp.util.AppConfig;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Decides whether and when a failed GET is sent again: exponential backoff with full jitter,
+ * stretched to honor a Retry-After header when upstream sends one.
+ */
+public class RetryPolicy {
+    private final int maxAttempts;
+    private final long baseDelayMillis;
+    private final long maxDelayMillis;
+
+    /**
+     * @param maxAttempts The total number of attempts, including the first; 1 disables retries.
+     * @param baseDelayMillis The backoff before the first retry, doubled for each later one.
+     * @param maxDelayMillis The longest single wait. A Retry-After beyond it is not waited out.
+     */
+    public RetryPolicy(int maxAttempts, long baseDelayMillis, long maxDelayMillis) {
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.baseDelayMillis = baseDelayMillis;
+        this.maxDelayMillis = maxDelayMillis;
+    }
+
+    /**
+     * Reads {@code api.retry.*} from the configuration.
+     */
+    public static RetryPolicy fromConfig(AppConfig config) {
+        return new RetryPolicy(config.getInt("api.retry.maxAttempts", 3),
+                config.getLong("api.retry.baseDelayMillis", 500),
+                config.getLong("api.retry.maxDelayMillis", 8000));
+    }
+
+    /**
+     * @param attempt The attempt that just failed, starting at 1.
+     * @param failure Why it failed.
+     * @return The delay before the next attempt in milliseconds, or -1 if it should not be retried.
+     */
+    public long delayBeforeRetry(int attempt, ApiException failure) {
+        if (attempt >= maxAttempts || !failure.isRetryable()) return -1;
+        if (failure.getRetryAfterMillis() > maxDelayMillis) return -1; // Upstream wants a longer pause than we will block for.
+
+        long ceiling = Math.min(maxDelayMillis, baseDelayMillis << Math.min(attempt - 1, 20));
+        long delay = ThreadLocalRandom.current().nextLong(ceiling / 2, ceiling + 1); // Jitter spreads out synchronized retries.
+        return Math.max(delay, failure.getRetryAfterMillis());
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+}
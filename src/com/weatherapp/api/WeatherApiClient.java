@@ -1,73 +1,595 @@
 package com.weatherapp.api;
 
+import com.weatherapp.model.ForecastData;
+import com.weatherapp.model.ForecastSeries;
+import com.weatherapp.metrics.Metrics;
+import com.weatherapp.model.WeatherData;
+import com.weatherapp.util.AppConfig;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.Response;
-import org.json.simple.JSONObject;
-import org.json.simple.parser.JSONParser;
-import org.json.simple.parser.ParseException;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSource;
+import okio.ForwardingSource;
+import okio.Okio;
+import okio.Source;
 
 import java.io.IOException;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * Manages all network communication with the OpenWeatherMap API.
  * This class is responsible for fetching both current weather and forecast data.
+ * <p>
+ * Responses are cached, and concurrent requests for the same city share a single call.
+ * Calls that do reach upstream pass a token-bucket rate limiter and a circuit breaker, and
+ * transient failures are retried with backoff. Failures are reported as {@link ApiException}s
+ * carrying the cause, so an unknown city can be told apart from an outage or throttling.
  */
 public class WeatherApiClient {
+    private static final Logger LOGGER = Logger.getLogger(WeatherApiClient.class.getName());
     private static final String API_KEY = "YOUR_API_KEY_HERE"; // IMPORTANT: Replace with your key
+    public static final String DEFAULT_BASE_URL = "https://api.openweathermap.org/data/2.5/";
+
+    // Default cache settings: current conditions change quickly, forecasts are only regenerated every few hours.
+    public static final long DEFAULT_CURRENT_WEATHER_TTL_MILLIS = TimeUnit.MINUTES.toMillis(10);
+    public static final long DEFAULT_FORECAST_TTL_MILLIS = TimeUnit.HOURS.toMillis(1);
+    private static final int CACHE_MAX_ENTRIES = 256;
+    private static final double CACHE_STALE_FACTOR = 1.0; // Serve expired entries for up to one more TTL while refreshing.
+    private static final int MAX_GROUP_SIZE = 20; // The group endpoint accepts at most 20 city IDs per call.
+
+    /**
+     * Converts a streamed response body into a model object.
+     * @param <T> The type of object produced.
+     */
+    private interface ResponseParser<T> {
+        T parse(BufferedSource source) throws IOException;
+    }
+
     private final OkHttpClient client;
+    private final String baseUrl;
+    private final ResponseCache<WeatherData> currentWeatherCache;
+    private final ResponseCache<ForecastSeries> forecastCache;
+    private final RequestCoalescer<String, WeatherData> currentWeatherRequests = new RequestCoalescer<>();
+    private final RequestCoalescer<String, ForecastSeries> forecastRequests = new RequestCoalescer<>();
+    private final long currentWeatherTtlMillis;
+    private final long forecastTtlMillis;
+    private final RetryPolicy retryPolicy;
+    private final CircuitBreaker circuitBreaker;
+    private final RateLimiter rateLimiter;
+    private final long rateLimitMaxWaitMillis;
 
     public WeatherApiClient() {
-        this.client = new OkHttpClient();
+        this(DEFAULT_CURRENT_WEATHER_TTL_MILLIS, DEFAULT_FORECAST_TTL_MILLIS);
+    }
+
+    /**
+     * Constructs a client with custom cache lifetimes, using the application's shared HTTP client.
+     * @param currentWeatherTtlMillis How long a current weather response is served from the cache.
+     * @param forecastTtlMillis How long a forecast response is served from the cache.
+     */
+    public WeatherApiClient(long currentWeatherTtlMillis, long forecastTtlMillis) {
+        this(HttpClients.shared(), DEFAULT_BASE_URL, currentWeatherTtlMillis, forecastTtlMillis);
+    }
+
+    /**
+     * Constructs a client against a custom endpoint, e.g. a local stand-in server for testing.
+     * Retries, the circuit breaker and the rate limit are configured from {@code api.*} settings.
+     * @param client The HTTP client to send requests with.
+     * @param baseUrl The API base URL, ending with a slash.
+     * @param currentWeatherTtlMillis How long a current weather response is served from the cache.
+     * @param forecastTtlMillis How long a forecast response is served from the cache.
+     */
+    public WeatherApiClient(OkHttpClient client, String baseUrl, long currentWeatherTtlMillis, long forecastTtlMillis) {
+        this(client, baseUrl, currentWeatherTtlMillis, forecastTtlMillis, RetryPolicy.fromConfig(AppConfig.getDefault()),
+                CircuitBreaker.fromConfig(AppConfig.getDefault()), RateLimiter.fromConfig(AppConfig.getDefault()));
+    }
+
+    /**
+     * Constructs a client with explicit resilience settings.
+     * @param retryPolicy Decides which failed calls are retried and after how long.
+     * @param circuitBreaker Fails calls fast while upstream is down.
+     * @param rateLimiter Keeps upstream calls within the API plan's quota.
+     */
+    public WeatherApiClient(OkHttpClient client, String baseUrl, long currentWeatherTtlMillis, long forecastTtlMillis,
+                            RetryPolicy retryPolicy, CircuitBreaker circuitBreaker, RateLimiter rateLimiter) {
+        this.client = client;
+        this.baseUrl = baseUrl;
+        this.currentWeatherCache = new ResponseCache<>(CACHE_MAX_ENTRIES, CACHE_STALE_FACTOR);
+        this.forecastCache = new ResponseCache<>(CACHE_MAX_ENTRIES, CACHE_STALE_FACTOR);
+        this.currentWeatherTtlMillis = currentWeatherTtlMillis;
+        this.forecastTtlMillis = forecastTtlMillis;
+        this.retryPolicy = retryPolicy;
+        this.circuitBreaker = circuitBreaker;
+        this.rateLimiter = rateLimiter;
+        this.rateLimitMaxWaitMillis = AppConfig.getDefault().getLong("api.rateLimitMaxWaitMillis", 10_000);
     }
 
     /**
      * Fetches the current weather data for a given city.
      * @param cityName The name of the city.
-     * @return A JSONObject containing the current weather data, or null on failure.
+     * @return The parsed current weather.
+     * @throws ApiException If the city is unknown, or upstream failed and nothing is cached for it.
+     */
+    public WeatherData getCurrentWeather(String cityName) throws ApiException {
+        String url = buildUrl("weather", "q=" + URLEncoder.encode(cityName.trim(), StandardCharsets.UTF_8));
+        String key = cacheKey("weather", cityName);
+        try {
+            return currentWeatherCache.get(key, currentWeatherTtlMillis, () -> fetchCurrentWeather(key, url));
+        } catch (IOException e) {
+            throw ApiException.wrap(e);
+        }
+    }
+
+    /**
+     * Fetches the current weather data for a given city, bypassing the stale-while-revalidate window:
+     * a cached entry is only used while it is fresh. Meant for periodic refreshes.
+     * @param cityName The name of the city.
+     * @return The fresh current weather.
+     * @throws ApiException If the request failed; no cached data is substituted.
      */
-    public JSONObject getCurrentWeather(String cityName) {
-        String safeCityName = URLEncoder.encode(cityName.trim(), StandardCharsets.UTF_8);
-        String url = "https://api.openweathermap.org/data/2.5/weather?q=" + safeCityName + "&appid=" + API_KEY + "&units=metric";
-        return executeApiRequest(url);
+    public WeatherData refreshCurrentWeather(String cityName) throws ApiException {
+        String url = buildUrl("weather", "q=" + URLEncoder.encode(cityName.trim(), StandardCharsets.UTF_8));
+        String key = cacheKey("weather", cityName);
+        try {
+            return currentWeatherCache.getFresh(key, currentWeatherTtlMillis, () -> fetchCurrentWeather(key, url));
+        } catch (IOException e) {
+            throw ApiException.wrap(e);
+        }
+    }
+
+    /**
+     * @param cityName The name of the city.
+     * @return How long ago the city's current weather was fetched into the cache, or -1 if it is not cached.
+     */
+    public long getCurrentWeatherAgeMillis(String cityName) {
+        return currentWeatherCache.getAgeMillis(cacheKey("weather", cityName));
+    }
+
+    /**
+     * @param cityId The OpenWeatherMap city ID.
+     * @return How long ago the city's current weather was fetched into the cache, or -1 if it is not cached.
+     */
+    public long getCurrentWeatherAgeMillis(long cityId) {
+        return currentWeatherCache.getAgeMillis(idCacheKey(cityId));
+    }
+
+    public long getCurrentWeatherTtlMillis() {
+        return currentWeatherTtlMillis;
+    }
+
+    /**
+     * Fetches the current weather data for a city by its OpenWeatherMap ID, which is unambiguous
+     * and resolved faster upstream than a name.
+     * @param cityId The OpenWeatherMap city ID.
+     * @return The parsed current weather.
+     * @throws ApiException If the ID is unknown, or upstream failed and nothing is cached for it.
+     */
+    public WeatherData getCurrentWeather(long cityId) throws ApiException {
+        String url = buildUrl("weather", "id=" + cityId);
+        String key = idCacheKey(cityId);
+        try {
+            return currentWeatherCache.get(key, currentWeatherTtlMillis, () -> fetchCurrentWeather(key, url));
+        } catch (IOException e) {
+            throw ApiException.wrap(e);
+        }
+    }
+
+    /**
+     * Like {@link #refreshCurrentWeather(String)}, for a city by its OpenWeatherMap ID.
+     * @param cityId The OpenWeatherMap city ID.
+     * @return The fresh current weather.
+     * @throws ApiException If the request failed; no cached data is substituted.
+     */
+    public WeatherData refreshCurrentWeather(long cityId) throws ApiException {
+        String url = buildUrl("weather", "id=" + cityId);
+        String key = idCacheKey(cityId);
+        try {
+            return currentWeatherCache.getFresh(key, currentWeatherTtlMillis, () -> fetchCurrentWeather(key, url));
+        } catch (IOException e) {
+            throw ApiException.wrap(e);
+        }
+    }
+
+    /**
+     * Fetches the current weather at a point. Upstream answers for its nearest station, so
+     * coordinates are rounded to two decimals (about a kilometre) and nearby points share a cache entry.
+     * @param latitude The latitude in degrees, from -90 to 90.
+     * @param longitude The longitude in degrees, from -180 to 180.
+     * @return The parsed current weather, including the name and ID of the place upstream chose.
+     * @throws ApiException If the coordinates are out of range, or upstream failed and nothing is cached for them.
+     */
+    public WeatherData getCurrentWeather(double latitude, double longitude) throws ApiException {
+        String coordinates = coordinates(latitude, longitude);
+        String url = buildUrl("weather", coordinates);
+        String key = "weather-at:" + coordinates;
+        try {
+            return currentWeatherCache.get(key, currentWeatherTtlMillis, () -> fetchCurrentWeather(key, url));
+        } catch (IOException e) {
+            throw ApiException.wrap(e);
+        }
+    }
+
+    /**
+     * Fetches current weather for many cities at once. Fresh cached entries are used as they are;
+     * the rest are fetched through the group endpoint, up to 20 cities per request. Cities that
+     * another caller is already fetching are shared rather than requested again. When a group
+     * request fails, its cities are served from the cache however old (stale-if-error), and the
+     * other requests' cities are still returned.
+     * @param cityIds The OpenWeatherMap city IDs.
+     * @return The weather by city ID, in request order; cities neither upstream nor the cache had are absent.
+     * @throws ApiException If requests failed and nothing, fetched or cached, could be returned.
+     */
+    public Map<Long, WeatherData> getCurrentWeatherForCities(Collection<Long> cityIds) throws ApiException {
+        Map<Long, WeatherData> results = new LinkedHashMap<>();
+        List<String> missingKeys = new ArrayList<>();
+        for (Long cityId : cityIds) {
+            WeatherData cached = currentWeatherCache.getIfFresh(idCacheKey(cityId), currentWeatherTtlMillis);
+            if (cached != null) {
+                results.put(cityId, cached);
+            } else {
+                missingKeys.add(idCacheKey(cityId));
+            }
+        }
+
+        if (!missingKeys.isEmpty()) {
+            try {
+                for (WeatherData weatherData : currentWeatherRequests.executeAll(missingKeys, this::fetchGroup).values()) {
+                    results.put(weatherData.getCityId(), weatherData);
+                }
+            } catch (IOException e) {
+                // Every request failed, or one this call shared did; serve what the cache still has.
+                for (String key : missingKeys) {
+                    WeatherData stale = currentWeatherCache.getStale(key);
+                    if (stale != null) results.put(stale.getCityId(), stale);
+                }
+                if (results.isEmpty()) throw ApiException.wrap(e);
+            }
+        }
+
+        // Re-order to match the request, since cached and fetched entries were collected separately.
+        Map<Long, WeatherData> ordered = new LinkedHashMap<>();
+        for (Long cityId : cityIds) {
+            WeatherData weatherData = results.get(cityId);
+            if (weatherData != null) ordered.put(cityId, weatherData);
+        }
+        return ordered;
     }
 
     /**
      * Fetches the 5-day weather forecast for a given city.
      * @param cityName The name of the city.
-     * @return A JSONObject containing the forecast data, or null on failure.
+     * @return The parsed forecast, one entry per day.
+     * @throws ApiException If the city is unknown, or upstream failed and nothing is cached for it.
+     */
+    public List<ForecastData> getFiveDayForecast(String cityName) throws ApiException {
+        return JsonParser.toFiveDaySummary(getForecastSeries(cityName));
+    }
+
+    /**
+     * Fetches the 5-day weather forecast for a city by its OpenWeatherMap ID, which, unlike a
+     * name, identifies exactly one city.
+     * @param cityId The OpenWeatherMap city ID.
+     * @return The parsed forecast, one entry per day.
+     * @throws ApiException If the ID is unknown, or upstream failed and nothing is cached for it.
+     */
+    public List<ForecastData> getFiveDayForecast(long cityId) throws ApiException {
+        return JsonParser.toFiveDaySummary(getForecastSeries(cityId));
+    }
+
+    /**
+     * Summarizes a forecast series the way {@link #getFiveDayForecast(String)} does, for callers
+     * that fetched the series to use it whole as well.
+     * @return The forecast, one entry per day.
+     */
+    public static List<ForecastData> toFiveDayForecast(ForecastSeries series) {
+        return JsonParser.toFiveDaySummary(series);
+    }
+
+    /**
+     * Fetches every three-hourly step of the 5-day forecast for a given city.
+     * The full series is what gets cached; {@link #getFiveDayForecast(String)} derives its summary from it.
+     * @param cityName The name of the city.
+     * @return The forecast series; never empty.
+     * @throws ApiException If the city is unknown, or upstream failed and nothing is cached for it.
+     */
+    public ForecastSeries getForecastSeries(String cityName) throws ApiException {
+        return getForecastSeries(cacheKey("forecast", cityName),
+                buildUrl("forecast", "q=" + URLEncoder.encode(cityName.trim(), StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Fetches every three-hourly step of the 5-day forecast for a city by its OpenWeatherMap ID.
+     * @param cityId The OpenWeatherMap city ID.
+     * @return The forecast series; never empty.
+     * @throws ApiException If the ID is unknown, or upstream failed and nothing is cached for it.
+     */
+    public ForecastSeries getForecastSeries(long cityId) throws ApiException {
+        return getForecastSeries("forecast-id:" + cityId, buildUrl("forecast", "id=" + cityId));
+    }
+
+    /**
+     * Fetches every three-hourly step of the 5-day forecast at a point, rounded as in
+     * {@link #getCurrentWeather(double, double)}.
+     * @param latitude The latitude in degrees, from -90 to 90.
+     * @param longitude The longitude in degrees, from -180 to 180.
+     * @return The forecast series; never empty.
+     * @throws ApiException If the coordinates are out of range, or upstream failed and nothing is cached for them.
+     */
+    public ForecastSeries getForecastSeries(double latitude, double longitude) throws ApiException {
+        String coordinates = coordinates(latitude, longitude);
+        return getForecastSeries("forecast-at:" + coordinates, buildUrl("forecast", coordinates));
+    }
+
+    /**
+     * Fetches the 5-day weather forecast at a point.
+     * @return The parsed forecast, one entry per day.
+     * @throws ApiException If the coordinates are out of range, or upstream failed and nothing is cached for them.
+     */
+    public List<ForecastData> getFiveDayForecast(double latitude, double longitude) throws ApiException {
+        return JsonParser.toFiveDaySummary(getForecastSeries(latitude, longitude));
+    }
+
+    private ForecastSeries getForecastSeries(String key, String url) throws ApiException {
+        try {
+            return forecastCache.get(key, forecastTtlMillis, () -> forecastRequests.execute(key, () ->
+                    executeApiRequest(url, source -> {
+                        ForecastSeries series = JsonParser.parseForecastSeries(source);
+                        return series == null || series.size() == 0 ? null : series; // Never cache an empty forecast.
+                    })));
+        } catch (IOException e) {
+            throw ApiException.wrap(e);
+        }
+    }
+
+    /**
+     * @return The circuit breaker guarding upstream calls, e.g. to report its state.
+     */
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    /**
+     * @return The current weather cache, exposing hit, miss and eviction counters.
+     */
+    public ResponseCache<WeatherData> getCurrentWeatherCache() {
+        return currentWeatherCache;
+    }
+
+    /**
+     * @return The forecast cache, exposing hit, miss and eviction counters.
      */
-    public JSONObject getFiveDayForecast(String cityName) {
-        String safeCityName = URLEncoder.encode(cityName.trim(), StandardCharsets.UTF_8);
-        String url = "https://api.openweathermap.org/data/2.5/forecast?q=" + safeCityName + "&appid=" + API_KEY + "&units=metric";
-        return executeApiRequest(url);
+    public ResponseCache<ForecastSeries> getForecastCache() {
+        return forecastCache;
+    }
+
+    /**
+     * @return How many current weather and forecast requests were served by sharing another in-flight call.
+     */
+    public long getCoalescedRequestCount() {
+        return currentWeatherRequests.getCoalescedCount() + forecastRequests.getCoalescedCount();
+    }
+
+    /**
+     * Fetches one city's current weather, sharing the call with concurrent callers. The cache
+     * stores the result under the lookup's own key; it is also cached under the city's ID so that
+     * ID and batch lookups hit next time. It is never cached under the name upstream returned:
+     * a lookup by ID or coordinates must not replace what a search for that name resolves to.
+     */
+    private WeatherData fetchCurrentWeather(String key, String url) throws IOException {
+        WeatherData weatherData = currentWeatherRequests.execute(key, () -> executeApiRequest(url, JsonParser::parseCurrentWeather));
+        if (weatherData != null) {
+            cacheById(weatherData);
+        }
+        return weatherData;
+    }
+
+    /**
+     * Fetches current weather for the given ID cache keys through the group endpoint. The cities
+     * of a request that fails are taken from the cache however old, so one failed request, e.g.
+     * a 429 on the third of three, does not lose the cities the others returned.
+     * @return The results keyed by ID cache key.
+     * @throws ApiException If requests failed and there is nothing, fetched or cached, to return.
+     */
+    private Map<String, WeatherData> fetchGroup(List<String> keys) throws ApiException {
+        Map<String, WeatherData> results = new HashMap<>();
+        ApiException failure = null;
+        for (int start = 0; start < keys.size(); start += MAX_GROUP_SIZE) {
+            List<String> chunk = keys.subList(start, Math.min(start + MAX_GROUP_SIZE, keys.size()));
+            StringBuilder ids = new StringBuilder();
+            for (String key : chunk) {
+                if (ids.length() > 0) ids.append(',');
+                ids.append(key, key.indexOf(':') + 1, key.length());
+            }
+            List<WeatherData> group;
+            try {
+                group = executeApiRequest(buildUrl("group", "id=" + ids), JsonParser::parseCurrentWeatherList);
+            } catch (ApiException e) {
+                failure = e;
+                for (String key : chunk) {
+                    WeatherData stale = currentWeatherCache.getStale(key);
+                    if (stale != null) results.put(key, stale);
+                }
+                continue;
+            }
+            for (WeatherData weatherData : group) {
+                cacheById(weatherData);
+                results.put(idCacheKey(weatherData.getCityId()), weatherData);
+            }
+        }
+        if (failure != null && results.isEmpty()) throw failure;
+        return results;
+    }
+
+    private void cacheById(WeatherData weatherData) {
+        if (weatherData.getCityId() != 0) {
+            currentWeatherCache.put(idCacheKey(weatherData.getCityId()), weatherData);
+        }
     }
 
     /**
-     * Executes an HTTP GET request to the given URL and parses the JSON response.
+     * @return The {@code lat} and {@code lon} query parameters, rounded to two decimals.
+     */
+    private static String coordinates(double latitude, double longitude) throws ApiException {
+        if (!(latitude >= -90 && latitude <= 90 && longitude >= -180 && longitude <= 180)) {
+            throw new ApiException(ApiException.Kind.BAD_REQUEST, 0,
+                    "Coordinates out of range: " + latitude + ", " + longitude);
+        }
+        return String.format(Locale.ROOT, "lat=%.2f&lon=%.2f", latitude, longitude);
+    }
+
+    private String buildUrl(String endpoint, String query) {
+        return baseUrl + endpoint + "?" + query + "&appid=" + API_KEY + "&units=metric";
+    }
+
+    /**
+     * Builds a cache key from the endpoint and the city name, normalized so that
+     * "Mumbai", " mumbai" and "MUMBAI" share one entry.
+     */
+    private static String cacheKey(String endpoint, String cityName) {
+        return endpoint + ':' + cityName.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static String idCacheKey(long cityId) {
+        return "weather-id:" + cityId;
+    }
+
+    /**
+     * Executes an HTTP GET request to the given URL and streams the response body into the parser,
+     * so the payload is never buffered as a whole String or built into a JSON tree.
+     * <p>
+     * Each attempt first checks the circuit breaker and then takes a rate limiter token. Failures that
+     * may be transient (5xx, 429, network errors) are retried as the retry policy allows.
+     * The call, the wait for body bytes and the parse are timed separately in {@link Metrics}.
      * @param url The URL to send the request to.
-     * @return A JSONObject parsed from the response, or null if the request fails or the response is invalid.
+     * @param parser Converts the response body into the result; null means the body was unusable.
+     * @return The parsed result; never null.
+     * @throws ApiException Once the request has failed for good.
      */
-    private JSONObject executeApiRequest(String url) {
+    private <T> T executeApiRequest(String url, ResponseParser<T> parser) throws ApiException {
         Request request = new Request.Builder().url(url).build();
-        try (Response response = client.newCall(request).execute()) {
-            if (response.isSuccessful() && response.body() != null) {
-                String responseBody = response.body().string();
-                if (responseBody.isEmpty()) {
-                    return null; // Handle empty response from the server.
+        String path = request.url().encodedPath(); // Never log the query: it holds the API key.
+        for (int attempt = 1; ; attempt++) {
+            ApiException failure;
+            try {
+                return executeOnce(request, path, parser);
+            } catch (ApiException e) {
+                failure = e;
+            }
+            long delay = retryPolicy.delayBeforeRetry(attempt, failure);
+            if (delay < 0) {
+                // Unknown cities are routine, and an open circuit was logged when it opened.
+                if (failure.getKind() != ApiException.Kind.NOT_FOUND && failure.getKind() != ApiException.Kind.CIRCUIT_OPEN) {
+                    LOGGER.log(Level.WARNING, "Request to " + path + " failed after " + attempt + " attempt(s)", failure);
                 }
-                // Using a new JSONParser for each request is crucial to prevent
-                // parsing errors that can occur if the parser retains a failed state
-                // from a previous invalid API response.
-                JSONParser parser = new JSONParser();
-                return (JSONObject) parser.parse(responseBody);
+                throw failure;
+            }
+            Metrics.increment(Metrics.Counter.API_RETRIES);
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ApiException(ApiException.Kind.NETWORK_ERROR, 0, "Interrupted while retrying " + path, 0, e);
+            }
+        }
+    }
+
+    private <T> T executeOnce(Request request, String path, ResponseParser<T> parser) throws ApiException {
+        // The circuit comes first: a call it rejects never goes out, so it must not spend a token.
+        if (!circuitBreaker.tryAcquire()) {
+            Metrics.increment(Metrics.Counter.CIRCUIT_OPEN_REJECTIONS);
+            long remaining = circuitBreaker.getRemainingOpenMillis();
+            throw new ApiException(ApiException.Kind.CIRCUIT_OPEN, 0, "Weather service unavailable; retrying in "
+                    + TimeUnit.MILLISECONDS.toSeconds(remaining + 999) + "s", remaining, null);
+        }
+        try {
+            if (!rateLimiter.acquire(rateLimitMaxWaitMillis)) {
+                circuitBreaker.release();
+                Metrics.increment(Metrics.Counter.RATE_LIMIT_REJECTIONS);
+                throw new ApiException(ApiException.Kind.RATE_LIMITED, 0, "Call budget exhausted for " + path);
+            }
+        } catch (InterruptedException e) {
+            circuitBreaker.release();
+            Thread.currentThread().interrupt();
+            throw new ApiException(ApiException.Kind.NETWORK_ERROR, 0, "Interrupted while waiting to call " + path, 0, e);
+        }
+
+        Metrics.increment(Metrics.Counter.API_REQUESTS);
+        long callStart = System.nanoTime();
+        try (Response response = client.newCall(request).execute()) {
+            Metrics.recordSince(Metrics.Stage.HTTP_CALL, callStart);
+            ResponseBody body = response.body();
+            if (!response.isSuccessful() || body == null) {
+                Metrics.increment(Metrics.Counter.HTTP_ERRORS);
+                throw ApiException.forStatus(response.code(), path, parseRetryAfter(response.header("Retry-After")));
+            }
+
+            TimedSource timedSource = new TimedSource(body.source());
+            long parseStart = System.nanoTime();
+            T result = parser.parse(Okio.buffer(timedSource));
+            long parseNanos = System.nanoTime() - parseStart;
+            Metrics.histogram(Metrics.Stage.BODY_READ).recordNanos(timedSource.readNanos);
+            Metrics.histogram(Metrics.Stage.JSON_PARSE).recordNanos(parseNanos - timedSource.readNanos);
+            if (result == null) {
+                throw new ApiException(ApiException.Kind.INVALID_RESPONSE, response.code(), "Unusable response from " + path);
+            }
+            circuitBreaker.recordSuccess();
+            return result;
+        } catch (ApiException e) {
+            if (e.isUpstreamFailure()) circuitBreaker.recordFailure();
+            else circuitBreaker.recordSuccess(); // Upstream answered; the request was the problem.
+            throw e;
+        } catch (IOException e) {
+            Metrics.increment(Metrics.Counter.API_FAILURES);
+            circuitBreaker.recordFailure();
+            throw new ApiException(ApiException.Kind.NETWORK_ERROR, 0, "Request to " + path + " failed: " + e.getMessage(), 0, e);
+        }
+    }
+
+    /**
+     * Parses a Retry-After header given in seconds. The HTTP-date form is not used by OpenWeatherMap.
+     * @return The delay in milliseconds, or 0 if absent or unparseable.
+     */
+    private static long parseRetryAfter(String header) {
+        if (header == null) return 0;
+        try {
+            return TimeUnit.SECONDS.toMillis(Long.parseLong(header.trim()));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Measures how long the parser waits on the network for body bytes, so that time can be
+     * told apart from the parser's own work.
+     */
+    private static class TimedSource extends ForwardingSource {
+        long readNanos;
+
+        TimedSource(Source delegate) {
+            super(delegate);
+        }
+
+        @Override
+        public long read(Buffer sink, long byteCount) throws IOException {
+            long start = System.nanoTime();
+            try {
+                return super.read(sink, byteCount);
+            } finally {
+                readNanos += System.nanoTime() - start;
             }
-        } catch (IOException | ParseException e) {
-            // Log exceptions for debugging purposes.
-            e.printStackTrace();
         }
-        return null; // Return null on any failure.
     }
 }
@@ -0,0 +1,187 @@
+package com.weatherapp.gui;
+
+import com.weatherapp.metrics.Metrics;
+import com.weatherapp.model.City;
+import com.weatherapp.search.CityIndex;
+
+import javax.swing.*;
+import javax.swing.border.EmptyBorder;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.FocusAdapter;
+import java.awt.event.FocusEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Shows city suggestions below a text field as the user types.
+ * <p>
+ * Each keystroke restarts a short timer; only when typing pauses is the {@link CityIndex}
+ * searched, on a background thread, and the suggestions shown if the text has not changed
+ * since. Up and Down move through the suggestions, Escape closes them, and choosing one
+ * (Enter or a click) hands the city, with its ID, to the selection callback.
+ */
+public class CityAutocomplete {
+    private static final int DEBOUNCE_MILLIS = 150;
+    private static final int MAX_SUGGESTIONS = 8;
+
+    private final JTextField field;
+    private final Supplier<CityIndex> index;
+    private final Consumer<City> onSelect;
+    private final DefaultListModel<City> suggestions = new DefaultListModel<>();
+    private final JList<City> suggestionList = new JList<>(suggestions);
+    private final JPopupMenu popup = new JPopupMenu();
+    private final Timer debounceTimer;
+    private final ExecutorService searchExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "city-search");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // Incremented on the EDT for every lookup; results for older lookups are discarded.
+    private long latestLookupId;
+    // Set on the EDT while the field's text is changed by a selection rather than by typing.
+    private boolean settingText;
+
+    /**
+     * @param field The text field to complete.
+     * @param index Supplies the index, or null while it is not loaded; suggestions are then simply not shown.
+     * @param onSelect Called on the EDT with the city the user chose.
+     */
+    public CityAutocomplete(JTextField field, Supplier<CityIndex> index, Consumer<City> onSelect) {
+        this.field = field;
+        this.index = index;
+        this.onSelect = onSelect;
+
+        suggestionList.setFocusable(false); // Typing must stay in the text field.
+        suggestionList.setFont(field.getFont());
+        suggestionList.setBackground(field.getBackground());
+        suggestionList.setForeground(field.getCaretColor());
+        suggestionList.setSelectionBackground(field.getBackground().brighter());
+        suggestionList.setSelectionForeground(field.getCaretColor());
+        suggestionList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        suggestionList.setFixedCellHeight(field.getFontMetrics(field.getFont()).getHeight() + 10);
+        suggestionList.setBorder(new EmptyBorder(4, 8, 4, 8));
+        suggestionList.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int row = suggestionList.locationToIndex(e.getPoint());
+                if (row >= 0) select(suggestions.get(row));
+            }
+        });
+        popup.setFocusable(false);
+        popup.setBorder(BorderFactory.createLineBorder(field.getBackground().brighter()));
+        popup.add(suggestionList);
+
+        debounceTimer = new Timer(DEBOUNCE_MILLIS, e -> lookup());
+        debounceTimer.setRepeats(false);
+        field.getDocument().addDocumentListener(new DocumentListener() {
+            public void insertUpdate(DocumentEvent e) { textChanged(); }
+            public void removeUpdate(DocumentEvent e) { textChanged(); }
+            public void changedUpdate(DocumentEvent e) { }
+        });
+        field.addFocusListener(new FocusAdapter() {
+            public void focusLost(FocusEvent e) { hide(); }
+        });
+
+        InputMap inputMap = field.getInputMap(JComponent.WHEN_FOCUSED);
+        ActionMap actionMap = field.getActionMap();
+        inputMap.put(KeyStroke.getKeyStroke("DOWN"), "suggestion-next");
+        inputMap.put(KeyStroke.getKeyStroke("UP"), "suggestion-previous");
+        inputMap.put(KeyStroke.getKeyStroke("ESCAPE"), "suggestion-hide");
+        actionMap.put("suggestion-next", new AbstractAction() {
+            public void actionPerformed(ActionEvent e) { moveSelection(1); }
+        });
+        actionMap.put("suggestion-previous", new AbstractAction() {
+            public void actionPerformed(ActionEvent e) { moveSelection(-1); }
+        });
+        actionMap.put("suggestion-hide", new AbstractAction() {
+            public void actionPerformed(ActionEvent e) { hide(); }
+        });
+    }
+
+    /**
+     * Chooses the highlighted suggestion, if any. Call this from the field's Enter action first.
+     * @return True if a suggestion was chosen; false if Enter should search the typed text.
+     */
+    public boolean acceptSelection() {
+        City selected = popup.isVisible() ? suggestionList.getSelectedValue() : null;
+        if (selected == null) {
+            hide();
+            return false;
+        }
+        select(selected);
+        return true;
+    }
+
+    public void hide() {
+        debounceTimer.stop();
+        latestLookupId++;
+        popup.setVisible(false);
+    }
+
+    private void textChanged() {
+        if (!settingText) debounceTimer.restart();
+    }
+
+    private void lookup() {
+        CityIndex cityIndex = index.get();
+        String text = field.getText();
+        if (cityIndex == null || !field.isFocusOwner() || text.isBlank()) {
+            hide();
+            return;
+        }
+        long lookupId = ++latestLookupId;
+        searchExecutor.execute(() -> {
+            long start = System.nanoTime();
+            List<City> matches = cityIndex.search(text, MAX_SUGGESTIONS);
+            Metrics.recordSince(Metrics.Stage.CITY_LOOKUP, start);
+            SwingUtilities.invokeLater(() -> {
+                // The user kept typing, chose a city or left the field meanwhile.
+                if (lookupId != latestLookupId || !text.equals(field.getText())) return;
+                showSuggestions(matches);
+            });
+        });
+    }
+
+    private void showSuggestions(List<City> matches) {
+        if (matches.isEmpty()) {
+            popup.setVisible(false);
+            return;
+        }
+        suggestions.clear();
+        for (City city : matches) {
+            suggestions.addElement(city);
+        }
+        suggestionList.clearSelection();
+        suggestionList.setVisibleRowCount(matches.size());
+        Container searchBar = field.getParent();
+        int width = searchBar.getWidth();
+        popup.setPopupSize(width, suggestionList.getPreferredScrollableViewportSize().height + 2);
+        popup.show(searchBar, 0, searchBar.getHeight());
+    }
+
+    private void moveSelection(int step) {
+        if (!popup.isVisible() || suggestions.isEmpty()) return;
+        int row = suggestionList.getSelectedIndex() + step;
+        row = Math.max(0, Math.min(suggestions.size() - 1, row));
+        suggestionList.setSelectedIndex(row);
+    }
+
+    private void select(City city) {
+        hide();
+        settingText = true;
+        try {
+            field.setText(city.getLabel());
+        } finally {
+            settingText = false;
+        }
+        onSelect.accept(city);
+    }
+}
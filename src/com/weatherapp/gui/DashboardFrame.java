@@ -0,0 +1,381 @@
+package com.weatherapp.gui;
+
+import com.weatherapp.gui.component.RoundedBackground;
+import com.weatherapp.model.WeatherData;
+import com.weatherapp.store.SearchHistory;
+import com.weatherapp.util.AppConfig;
+import com.weatherapp.util.IconLoader;
+
+import javax.swing.*;
+import javax.swing.border.EmptyBorder;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+import static com.weatherapp.gui.WeatherAppGui.BACKGROUND_COLOR;
+import static com.weatherapp.gui.WeatherAppGui.COMPONENT_COLOR;
+import static com.weatherapp.gui.WeatherAppGui.FONT_BOLD_20;
+import static com.weatherapp.gui.WeatherAppGui.FONT_BOLD_30;
+import static com.weatherapp.gui.WeatherAppGui.FONT_REGULAR_16;
+import static com.weatherapp.gui.WeatherAppGui.PLACEHOLDER_TEXT_COLOR;
+import static com.weatherapp.gui.WeatherAppGui.TEXT_COLOR;
+
+/**
+ * A window showing the current weather of every tracked city in a scrolling grid.
+ * <p>
+ * The grid is a {@link JList} whose single renderer paints each cell directly, so there are no
+ * components per city: a thousand cities cost a thousand small rows in the model, and painting
+ * costs only the cells on screen. Weather is fetched when a cell first scrolls into view, and
+ * the visible cells are refreshed in the background. When new data arrives only the cells whose
+ * displayed values changed are repainted.
+ */
+public class DashboardFrame extends JFrame {
+    private static final int CELL_WIDTH = 220;
+    private static final int CELL_HEIGHT = 130;
+    private static final int CELL_GAP = 10;
+
+    /** Where the dashboard gets its cities and their weather from. */
+    public interface Source {
+        /** @return The cities to show, in display order. Called on the EDT. */
+        List<SearchHistory.Entry> trackedCities();
+
+        /** @return The last stored weather for a city, or null. Called on the EDT. */
+        WeatherData lastKnown(String cityName);
+
+        /**
+         * Fetches current weather. Called off the EDT.
+         * @return The weather for each city, in the same order; null where a lookup failed.
+         */
+        List<WeatherData> fetch(List<SearchHistory.Entry> cities);
+
+        /** Shows a city in the main window. Called on the EDT. */
+        void open(SearchHistory.Entry city);
+    }
+
+    private final Source source;
+    private final DashboardModel model = new DashboardModel();
+    private final JList<Row> grid = new JList<>(model);
+    private final RefreshScheduler refreshScheduler;
+    // The cities in view, read by the background refresh.
+    private volatile List<SearchHistory.Entry> visibleCities = List.of();
+
+    /**
+     * @param source Supplies the cities and their weather.
+     * @param refreshMillis How often the visible cities are refreshed, normally the cache lifetime.
+     */
+    public DashboardFrame(Source source, long refreshMillis) {
+        this.source = source;
+        setTitle("Weather Dashboard");
+        setSize(CELL_WIDTH * 4 + 80, CELL_HEIGHT * 5 + 80);
+        setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+        getContentPane().setBackground(BACKGROUND_COLOR);
+
+        grid.setOpaque(false);
+        grid.setLayoutOrientation(JList.HORIZONTAL_WRAP);
+        grid.setVisibleRowCount(-1); // Wrap to the window's width.
+        grid.setFixedCellWidth(CELL_WIDTH);
+        grid.setFixedCellHeight(CELL_HEIGHT);
+        grid.setCellRenderer(new CellRenderer());
+        grid.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        grid.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int index = grid.locationToIndex(e.getPoint());
+                if (index >= 0 && grid.getCellBounds(index, index).contains(e.getPoint())) {
+                    source.open(model.getElementAt(index).city);
+                }
+            }
+        });
+
+        JScrollPane scrollPane = new JScrollPane(grid, ScrollPaneConstants.VERTICAL_SCROLLBAR_AS_NEEDED,
+                ScrollPaneConstants.HORIZONTAL_SCROLLBAR_NEVER);
+        scrollPane.setOpaque(false);
+        scrollPane.getViewport().setOpaque(false);
+        scrollPane.setBorder(new EmptyBorder(20, 20, 20, 20));
+        scrollPane.getVerticalScrollBar().setUnitIncrement(CELL_HEIGHT / 4);
+        scrollPane.getViewport().addChangeListener(e -> loadVisibleWeather());
+        add(scrollPane);
+
+        AppConfig config = AppConfig.getDefault();
+        refreshScheduler = new RefreshScheduler(() -> refreshVisible(refreshMillis),
+                TimeUnit.SECONDS.toMillis(config.getLong("refresh.minIntervalSeconds", 60)),
+                TimeUnit.SECONDS.toMillis(config.getLong("refresh.maxIntervalSeconds", 1800)),
+                config.getDouble("refresh.jitter", 0.1));
+        refreshScheduler.start(refreshMillis);
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowIconified(WindowEvent e) {
+                refreshScheduler.pause();
+            }
+
+            @Override
+            public void windowDeiconified(WindowEvent e) {
+                refreshScheduler.resume();
+            }
+
+            @Override
+            public void windowClosed(WindowEvent e) {
+                refreshScheduler.shutdown();
+            }
+        });
+
+        citiesChanged();
+    }
+
+    /**
+     * Re-reads the tracked cities, e.g. after a search. Weather already known is kept.
+     * Must be called on the EDT.
+     */
+    public void citiesChanged() {
+        model.setCities(source.trackedCities());
+        SwingUtilities.invokeLater(this::loadVisibleWeather);
+    }
+
+    /**
+     * Shows weather obtained elsewhere, such as by a search in the main window. Must be called on the EDT.
+     */
+    public void showWeather(WeatherData weatherData) {
+        model.update(weatherData);
+    }
+
+    /**
+     * Fetches weather for the cells in view that have not been requested yet. Until it arrives,
+     * a cell shows the city's last stored weather, if any.
+     */
+    private void loadVisibleWeather() {
+        int first = grid.getFirstVisibleIndex();
+        int last = grid.getLastVisibleIndex();
+        if (first < 0) {
+            visibleCities = List.of();
+            return;
+        }
+        List<SearchHistory.Entry> visible = new ArrayList<>(last - first + 1);
+        List<SearchHistory.Entry> toFetch = new ArrayList<>();
+        for (int i = first; i <= last; i++) {
+            Row row = model.getElementAt(i);
+            visible.add(row.city);
+            if (row.requested) continue;
+            row.requested = true;
+            if (row.weather == null) model.update(source.lastKnown(row.city.getCityName()));
+            toFetch.add(row.city);
+        }
+        visibleCities = List.copyOf(visible);
+        if (toFetch.isEmpty()) return;
+
+        SwingWorker<List<WeatherData>, Void> worker = new SwingWorker<>() {
+            @Override
+            protected List<WeatherData> doInBackground() {
+                return source.fetch(toFetch);
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    showResults(toFetch, get());
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+            }
+        };
+        worker.execute();
+    }
+
+    /**
+     * Refreshes the cities in view. Runs on the refresh scheduler's thread.
+     * @return The delay until the next refresh.
+     */
+    private long refreshVisible(long refreshMillis) {
+        List<SearchHistory.Entry> cities = visibleCities;
+        if (!cities.isEmpty()) {
+            List<WeatherData> results = source.fetch(cities);
+            SwingUtilities.invokeLater(() -> showResults(cities, results));
+        }
+        return refreshMillis;
+    }
+
+    private void showResults(List<SearchHistory.Entry> cities, List<WeatherData> results) {
+        for (int i = 0; i < results.size(); i++) {
+            WeatherData data = results.get(i);
+            if (data != null) {
+                model.update(data);
+            } else {
+                model.markNotRequested(cities.get(i)); // Try again when the cell next scrolls into view.
+            }
+        }
+    }
+
+    private static String key(String cityName) {
+        return cityName.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /** One cell of the grid. Only touched on the EDT. */
+    private static class Row {
+        final SearchHistory.Entry city;
+        WeatherData weather;
+        String temperatureText = "--°"; // Formatted once per update rather than on every paint.
+        boolean requested;
+
+        Row(SearchHistory.Entry city) {
+            this.city = city;
+        }
+
+        void setWeather(WeatherData weatherData) {
+            weather = weatherData;
+            temperatureText = String.format("%.0f°", weatherData.getTemperature());
+        }
+    }
+
+    /**
+     * The tracked cities and their latest weather. An update fires a change event for the one
+     * affected cell, and only if something the cell shows has changed.
+     */
+    private static class DashboardModel extends AbstractListModel<Row> {
+        private List<Row> rows = List.of();
+        private Map<String, Integer> indexByCity = Map.of();
+
+        void setCities(List<SearchHistory.Entry> cities) {
+            Map<String, Row> previous = new HashMap<>(rows.size() * 2);
+            for (Row row : rows) {
+                previous.put(key(row.city.getCityName()), row);
+            }
+            List<Row> newRows = new ArrayList<>(cities.size());
+            Map<String, Integer> newIndex = new HashMap<>(cities.size() * 2);
+            for (SearchHistory.Entry city : cities) {
+                String key = key(city.getCityName());
+                if (newIndex.containsKey(key)) continue;
+                Row old = previous.get(key);
+                Row row = new Row(city);
+                if (old != null) {
+                    row.weather = old.weather;
+                    row.temperatureText = old.temperatureText;
+                    row.requested = old.requested;
+                }
+                newIndex.put(key, newRows.size());
+                newRows.add(row);
+            }
+
+            int oldSize = rows.size();
+            rows = newRows;
+            indexByCity = newIndex;
+            if (oldSize > newRows.size()) fireIntervalRemoved(this, newRows.size(), oldSize - 1);
+            if (newRows.size() > oldSize) fireIntervalAdded(this, oldSize, newRows.size() - 1);
+            if (!newRows.isEmpty()) fireContentsChanged(this, 0, newRows.size() - 1);
+        }
+
+        void update(WeatherData weatherData) {
+            if (weatherData == null) return;
+            Integer index = indexByCity.get(key(weatherData.getCityName()));
+            if (index == null) return;
+            Row row = rows.get(index);
+            WeatherData previous = row.weather;
+            row.setWeather(weatherData);
+            if (previous == null || previous.getTemperature() != weatherData.getTemperature()
+                    || !Objects.equals(previous.getDescription(), weatherData.getDescription())
+                    || !Objects.equals(previous.getIconCode(), weatherData.getIconCode())) {
+                fireContentsChanged(this, index, index);
+            }
+        }
+
+        void markNotRequested(SearchHistory.Entry city) {
+            Integer index = indexByCity.get(key(city.getCityName()));
+            if (index != null) rows.get(index).requested = false;
+        }
+
+        @Override
+        public int getSize() {
+            return rows.size();
+        }
+
+        @Override
+        public Row getElementAt(int index) {
+            return rows.get(index);
+        }
+    }
+
+    /**
+     * Paints a cell in one pass: a rounded card with the city, description, temperature and icon.
+     * Painting directly instead of laying out child labels keeps each cell's cost constant.
+     * The anti-aliased card costs more to fill than everything else in the cell together,
+     * so it is drawn from a {@link RoundedBackground} that every cell shares.
+     */
+    private static class CellRenderer extends JComponent implements ListCellRenderer<Row> {
+        private static final int ARC = 20;
+        private static final int PADDING = 14;
+        private static final int ICON_SIZE = 50;
+
+        private Row row;
+        private final RoundedBackground card = new RoundedBackground();
+
+        @Override
+        public Component getListCellRendererComponent(JList<? extends Row> list, Row value, int index,
+                                                      boolean isSelected, boolean cellHasFocus) {
+            this.row = value;
+            return this;
+        }
+
+        @Override
+        protected void paintComponent(Graphics g) {
+            Graphics2D graphics = (Graphics2D) g.create();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+                graphics.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+                int width = getWidth() - CELL_GAP, height = getHeight() - CELL_GAP;
+                card.paint(graphics, width, height, ARC, COMPONENT_COLOR);
+                graphics.clipRect(0, 0, width, height);
+
+                WeatherData weather = row.weather;
+                int textWidth = width - 2 * PADDING - ICON_SIZE;
+                graphics.setFont(FONT_BOLD_20);
+                graphics.setColor(TEXT_COLOR);
+                FontMetrics metrics = graphics.getFontMetrics();
+                int baseline = PADDING + metrics.getAscent();
+                graphics.drawString(fit(row.city.getCityName(), metrics, textWidth), PADDING, baseline);
+
+                graphics.setFont(FONT_REGULAR_16);
+                graphics.setColor(PLACEHOLDER_TEXT_COLOR);
+                metrics = graphics.getFontMetrics();
+                String description = weather != null ? weather.getDescription() : "Loading…";
+                graphics.drawString(fit(description, metrics, textWidth), PADDING, baseline + metrics.getHeight());
+
+                graphics.setFont(FONT_BOLD_30);
+                graphics.setColor(TEXT_COLOR);
+                metrics = graphics.getFontMetrics();
+                graphics.drawString(row.temperatureText, PADDING, height - PADDING - metrics.getDescent());
+
+                if (weather != null) {
+                    ImageIcon icon = IconLoader.getIcon(weather.getIconCode(), ICON_SIZE);
+                    if (icon != null) icon.paintIcon(this, graphics, width - PADDING - ICON_SIZE, (height - ICON_SIZE) / 2);
+                }
+            } finally {
+                graphics.dispose();
+            }
+        }
+
+        /**
+         * @return The text, shortened with an ellipsis if it is wider than the space available.
+         */
+        private static String fit(String text, FontMetrics metrics, int maxWidth) {
+            if (metrics.stringWidth(text) <= maxWidth) return text;
+            // Binary search for the longest prefix that fits alongside the ellipsis.
+            int low = 0, high = text.length() - 1;
+            while (low < high) {
+                int mid = (low + high + 1) >>> 1;
+                if (metrics.stringWidth(text.substring(0, mid) + "…") <= maxWidth) {
+                    low = mid;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            return text.substring(0, low) + "…";
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package com.weatherapp.gui;
+
+import com.weatherapp.gui.component.RoundedBackground;
+import com.weatherapp.store.ObservationStore;
+
+import javax.swing.*;
+import javax.swing.border.EmptyBorder;
+import java.awt.*;
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.ExecutionException;
+
+import static com.weatherapp.gui.WeatherAppGui.BACKGROUND_COLOR;
+import static com.weatherapp.gui.WeatherAppGui.COMPONENT_COLOR;
+import static com.weatherapp.gui.WeatherAppGui.FONT_BOLD_20;
+import static com.weatherapp.gui.WeatherAppGui.FONT_BOLD_30;
+import static com.weatherapp.gui.WeatherAppGui.FONT_REGULAR_16;
+import static com.weatherapp.gui.WeatherAppGui.PLACEHOLDER_TEXT_COLOR;
+import static com.weatherapp.gui.WeatherAppGui.TEXT_COLOR;
+
+/**
+ * A window listing the weather observed for one city over a chosen span, newest first: one row
+ * per hour for the last day or week, one per day for the last month or year. Rows come from the
+ * {@link ObservationStore}'s precomputed rollups, so even a year is a few hundred rows read in
+ * milliseconds. Like the dashboard, the list paints every row with one renderer.
+ */
+public class HistoryFrame extends JFrame {
+    private static final int ROW_HEIGHT = 56;
+    private static final int ROW_GAP = 8;
+    private static final DateTimeFormatter HOUR_FORMATTER = DateTimeFormatter.ofPattern("EEE d MMM, HH:mm");
+    private static final DateTimeFormatter DAY_FORMATTER = DateTimeFormatter.ofPattern("EEE d MMM yyyy");
+
+    /** The spans offered, and the rollups each is listed from. */
+    private enum Span {
+        DAY("24 hours", 1, ObservationStore.Resolution.HOURLY),
+        WEEK("7 days", 7, ObservationStore.Resolution.HOURLY),
+        MONTH("30 days", 30, ObservationStore.Resolution.DAILY),
+        YEAR("1 year", 365, ObservationStore.Resolution.DAILY);
+
+        final String label;
+        final int days;
+        final ObservationStore.Resolution resolution;
+
+        Span(String label, int days, ObservationStore.Resolution resolution) {
+            this.label = label;
+            this.days = days;
+            this.resolution = resolution;
+        }
+    }
+
+    private final ObservationStore store;
+    private final JLabel titleLabel = new JLabel();
+    private final JLabel summaryLabel = new JLabel(" ");
+    private final DefaultListModel<String[]> rows = new DefaultListModel<>();
+    private Span span = Span.MONTH;
+    private long cityId;
+    private String cityName;
+    // Incremented for every load; results of older loads are discarded.
+    private long latestLoadId;
+
+    public HistoryFrame(ObservationStore store) {
+        this.store = store;
+        setTitle("Weather History");
+        setSize(620, 640);
+        setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+        getContentPane().setBackground(BACKGROUND_COLOR);
+
+        JPanel header = new JPanel(new BorderLayout(0, 6));
+        header.setOpaque(false);
+        header.setBorder(new EmptyBorder(20, 20, 10, 20));
+        titleLabel.setFont(FONT_BOLD_30);
+        titleLabel.setForeground(TEXT_COLOR);
+        summaryLabel.setFont(FONT_REGULAR_16);
+        summaryLabel.setForeground(PLACEHOLDER_TEXT_COLOR);
+        header.add(titleLabel, BorderLayout.NORTH);
+        header.add(summaryLabel, BorderLayout.CENTER);
+
+        JPanel spans = new JPanel(new FlowLayout(FlowLayout.LEFT, 0, 0));
+        spans.setOpaque(false);
+        ButtonGroup group = new ButtonGroup();
+        for (Span option : Span.values()) {
+            JToggleButton button = new JToggleButton(option.label, option == span);
+            button.setFont(FONT_REGULAR_16);
+            button.setForeground(PLACEHOLDER_TEXT_COLOR);
+            button.setContentAreaFilled(false);
+            button.setBorderPainted(false);
+            button.setFocusPainted(false);
+            button.setCursor(Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
+            button.addItemListener(e -> button.setForeground(button.isSelected() ? TEXT_COLOR : PLACEHOLDER_TEXT_COLOR));
+            button.addActionListener(e -> {
+                span = option;
+                reload();
+            });
+            if (option == span) button.setForeground(TEXT_COLOR);
+            group.add(button);
+            spans.add(button);
+        }
+        header.add(spans, BorderLayout.SOUTH);
+        add(header, BorderLayout.NORTH);
+
+        JList<String[]> list = new JList<>(rows);
+        list.setOpaque(false);
+        list.setFixedCellHeight(ROW_HEIGHT);
+        list.setCellRenderer(new RowRenderer());
+        JScrollPane scrollPane = new JScrollPane(list);
+        scrollPane.setOpaque(false);
+        scrollPane.getViewport().setOpaque(false);
+        scrollPane.setBorder(new EmptyBorder(0, 20, 20, 20));
+        scrollPane.getVerticalScrollBar().setUnitIncrement(ROW_HEIGHT / 2);
+        add(scrollPane, BorderLayout.CENTER);
+    }
+
+    /**
+     * Shows the history of a city, or reloads it if it is already shown, e.g. after a new observation.
+     * Must be called on the EDT.
+     * @param cityId The OpenWeatherMap city ID the observations are stored under.
+     */
+    public void showCity(long cityId, String cityName) {
+        this.cityId = cityId;
+        this.cityName = cityName;
+        reload();
+    }
+
+    private void reload() {
+        titleLabel.setText(cityName);
+        if (cityId == 0) {
+            rows.clear();
+            summaryLabel.setText("No history is kept for this city.");
+            return;
+        }
+        final long loadId = ++latestLoadId;
+        final long id = cityId;
+        final Span shown = span;
+        SwingWorker<ObservationStore.Rollups, Void> worker = new SwingWorker<>() {
+            @Override
+            protected ObservationStore.Rollups doInBackground() throws IOException {
+                long now = System.currentTimeMillis() / 1000;
+                return store.rollups(id, shown.resolution, now - shown.days * 86_400L, now);
+            }
+
+            @Override
+            protected void done() {
+                if (loadId != latestLoadId) return;
+                try {
+                    showRollups(get(), shown);
+                } catch (ExecutionException e) {
+                    rows.clear();
+                    summaryLabel.setText("Could not read the history: " + e.getCause().getMessage());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        worker.execute();
+    }
+
+    private void showRollups(ObservationStore.Rollups rollups, Span shown) {
+        rows.clear();
+        if (rollups.size() == 0) {
+            summaryLabel.setText("Nothing observed in the last " + shown.label + " yet.");
+            return;
+        }
+        float min = Float.MAX_VALUE, max = -Float.MAX_VALUE;
+        double sum = 0;
+        int samples = 0;
+        String[][] newRows = new String[rollups.size()][];
+        for (int i = rollups.size() - 1; i >= 0; i--) {
+            int count = rollups.getSampleCount(i);
+            min = Math.min(min, rollups.getMinTemperature(i));
+            max = Math.max(max, rollups.getMaxTemperature(i));
+            sum += rollups.getMeanTemperature(i) * count;
+            samples += count;
+            newRows[rollups.size() - 1 - i] = new String[] {
+                    formatStart(rollups.getStart(i), shown.resolution),
+                    String.format("%.0f° / %.0f° / %.0f°", rollups.getMinTemperature(i),
+                            rollups.getMeanTemperature(i), rollups.getMaxTemperature(i)),
+                    String.format("%.0f %% humidity, %.1f km/h wind", rollups.getMeanHumidity(i), rollups.getMeanWindSpeed(i))
+            };
+        }
+        for (String[] row : newRows) rows.addElement(row);
+        summaryLabel.setText(String.format("Last %s: %.0f° to %.0f°, averaging %.1f° over %d observations",
+                shown.label, min, max, sum / samples, samples));
+    }
+
+    // Daily rollups cover UTC days, so they are labelled with the UTC date.
+    private static String formatStart(long epochSecond, ObservationStore.Resolution resolution) {
+        if (resolution == ObservationStore.Resolution.DAILY) {
+            return DAY_FORMATTER.format(LocalDate.ofEpochDay(epochSecond / 86_400));
+        }
+        return HOUR_FORMATTER.format(Instant.ofEpochSecond(epochSecond).atZone(ZoneId.systemDefault()));
+    }
+
+    /**
+     * Paints a row on a shared rounded card: the bucket's time, its min / mean / max temperature,
+     * and its mean humidity and wind.
+     */
+    private static class RowRenderer extends JComponent implements ListCellRenderer<String[]> {
+        private static final int ARC = 16;
+        private static final int PADDING = 14;
+
+        private String[] row;
+        private final RoundedBackground card = new RoundedBackground();
+
+        @Override
+        public Component getListCellRendererComponent(JList<? extends String[]> list, String[] value, int index,
+                                                      boolean isSelected, boolean cellHasFocus) {
+            this.row = value;
+            return this;
+        }
+
+        @Override
+        protected void paintComponent(Graphics g) {
+            Graphics2D graphics = (Graphics2D) g.create();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+                graphics.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+                int width = getWidth(), height = getHeight() - ROW_GAP;
+                card.paint(graphics, width, height, ARC, COMPONENT_COLOR);
+
+                graphics.setFont(FONT_REGULAR_16);
+                graphics.setColor(TEXT_COLOR);
+                FontMetrics metrics = graphics.getFontMetrics();
+                int baseline = (height - 2 * metrics.getHeight()) / 2 + metrics.getAscent();
+                graphics.drawString(row[0], PADDING, baseline);
+                graphics.setColor(PLACEHOLDER_TEXT_COLOR);
+                graphics.drawString(row[2], PADDING, baseline + metrics.getHeight());
+
+                graphics.setFont(FONT_BOLD_20);
+                graphics.setColor(TEXT_COLOR);
+                metrics = graphics.getFontMetrics();
+                graphics.drawString(row[1], width - PADDING - metrics.stringWidth(row[1]),
+                        (height + metrics.getAscent() - metrics.getDescent()) / 2);
+            } finally {
+                graphics.dispose();
+            }
+        }
+    }
+}
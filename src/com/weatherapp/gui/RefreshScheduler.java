@@ -0,0 +1,153 @@
+package com.weatherapp.gui;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs a refresh task repeatedly on a single background thread.
+ * <p>
+ * After each run the task suggests when it should run next, e.g. when its data is due to change
+ * upstream. The suggestion is clamped to a minimum and maximum interval and spread by a random
+ * jitter, so many windows started at the same time do not hit the API in lock step.
+ * A failed run is retried with exponential backoff instead. While paused nothing runs; a run
+ * that fell due in the meantime happens shortly after {@link #resume()}.
+ */
+public class RefreshScheduler {
+
+    /**
+     * The work to repeat. Runs on the scheduler thread, never on the EDT.
+     */
+    public interface Task {
+        /**
+         * @return The suggested delay until the next run, in milliseconds.
+         * @throws Exception If the refresh failed; the next run is then scheduled with backoff.
+         */
+        long refresh() throws Exception;
+    }
+
+    private static final long RESUME_DELAY_MILLIS = 500; // Lets the window repaint before the first refresh.
+
+    private final Task task;
+    private final long minIntervalMillis;
+    private final long maxIntervalMillis;
+    private final double jitter;
+    private final ScheduledExecutorService executor;
+
+    // Guarded by this.
+    private ScheduledFuture<?> pending;
+    private long nextRunAt;
+    private boolean paused;
+    private boolean running;
+    private int consecutiveFailures;
+
+    /**
+     * @param task The refresh to run.
+     * @param minIntervalMillis The shortest delay between runs.
+     * @param maxIntervalMillis The longest delay between runs, also the cap for failure backoff.
+     * @param jitter The random spread applied to each delay, as a fraction, e.g. 0.1 for +/-10%.
+     */
+    public RefreshScheduler(Task task, long minIntervalMillis, long maxIntervalMillis, double jitter) {
+        this.task = task;
+        this.minIntervalMillis = minIntervalMillis;
+        this.maxIntervalMillis = Math.max(minIntervalMillis, maxIntervalMillis);
+        this.jitter = jitter;
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "weather-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Schedules the first run. Later runs are scheduled by the task's own suggestions.
+     * @param initialDelayMillis The delay before the first run, before jitter.
+     */
+    public synchronized void start(long initialDelayMillis) {
+        schedule(withJitter(initialDelayMillis));
+    }
+
+    /**
+     * Stops running the task until {@link #resume()}, e.g. while the window is minimized.
+     * A run already in progress is allowed to finish.
+     */
+    public synchronized void pause() {
+        paused = true;
+        if (pending != null) {
+            pending.cancel(false);
+            pending = null;
+        }
+    }
+
+    /**
+     * Continues after {@link #pause()}. If a run fell due while paused, it happens almost at once.
+     */
+    public synchronized void resume() {
+        if (!paused) return;
+        paused = false;
+        if (!running) {
+            long remaining = nextRunAt - System.currentTimeMillis();
+            schedule(Math.max(remaining, RESUME_DELAY_MILLIS));
+        }
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void runTask() {
+        synchronized (this) {
+            pending = null;
+            running = true;
+        }
+        long delay;
+        try {
+            long suggested = task.refresh();
+            synchronized (this) {
+                consecutiveFailures = 0;
+            }
+            delay = clamp(suggested);
+        } catch (Exception e) {
+            int failures;
+            synchronized (this) {
+                failures = ++consecutiveFailures;
+            }
+            System.err.println("Background refresh failed (attempt " + failures + "): " + e.getMessage());
+            delay = backoff(failures);
+        }
+        synchronized (this) {
+            running = false;
+            if (paused) {
+                nextRunAt = System.currentTimeMillis() + delay; // Picked up by resume().
+            } else {
+                schedule(withJitter(delay));
+            }
+        }
+    }
+
+    private void schedule(long delayMillis) {
+        if (executor.isShutdown()) return;
+        if (pending != null) pending.cancel(false);
+        nextRunAt = System.currentTimeMillis() + delayMillis;
+        pending = executor.schedule(this::runTask, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private long clamp(long delayMillis) {
+        return Math.max(minIntervalMillis, Math.min(maxIntervalMillis, delayMillis));
+    }
+
+    /**
+     * Doubles the delay with each consecutive failure, starting from the minimum interval.
+     */
+    private long backoff(int failures) {
+        long delay = minIntervalMillis << Math.min(failures - 1, 20);
+        return delay <= 0 ? maxIntervalMillis : clamp(delay);
+    }
+
+    private long withJitter(long delayMillis) {
+        double factor = 1 + jitter * (2 * ThreadLocalRandom.current().nextDouble() - 1);
+        return Math.max(0, (long) (delayMillis * factor));
+    }
+}
@@ -1,12 +1,24 @@
 package com.weatherapp.gui;
 
-import com.weatherapp.api.JsonParser;
+import com.weatherapp.analytics.WeatherAnalytics;
+import com.weatherapp.api.ApiException;
 import com.weatherapp.api.WeatherApiClient;
 import com.weatherapp.gui.component.RoundedPanel;
+import com.weatherapp.gui.component.TemperatureChart;
+import com.weatherapp.metrics.Metrics;
+import com.weatherapp.metrics.StartupTimings;
+import com.weatherapp.model.City;
 import com.weatherapp.model.ForecastData;
+import com.weatherapp.model.ForecastSeries;
 import com.weatherapp.model.WeatherData;
+import com.weatherapp.model.WeatherSnapshot;
+import com.weatherapp.search.CityIndex;
+import com.weatherapp.store.SearchHistory;
+import com.weatherapp.store.ObservationStore;
+import com.weatherapp.store.SnapshotStore;
 import com.weatherapp.util.FontLoader;
-import org.json.simple.JSONObject;
+import com.weatherapp.util.AppConfig;
+import com.weatherapp.util.IconLoader;
 
 import javax.swing.*;
 import javax.swing.border.Border;
@@ -15,11 +27,29 @@ import javax.swing.border.EmptyBorder;
 import java.awt.*;
 import java.awt.event.FocusAdapter;
 import java.awt.event.FocusEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 /**
  * The main Graphical User Interface (GUI) for the Weather App.
@@ -28,33 +58,77 @@ import java.util.List;
  */
 public class WeatherAppGui extends JFrame {
 
-    // Define the application's color palette for a modern, dark theme.
-    private static final Color BACKGROUND_COLOR = new Color(0x0D0F12); // Very Dark Blue
-    private static final Color COMPONENT_COLOR = new Color(0x1C1F27);  // Dark Slate Blue
-    private static final Color TEXT_COLOR = new Color(0xE2E8F0);      // Off-white/Light Gray
-    private static final Color PLACEHOLDER_TEXT_COLOR = new Color(0x718096); // Muted Slate
+    // Define the application's color palette for a modern, dark theme. Shared with the dashboard window.
+    static final Color BACKGROUND_COLOR = new Color(0x0D0F12); // Very Dark Blue
+    static final Color COMPONENT_COLOR = new Color(0x1C1F27);  // Dark Slate Blue
+    static final Color TEXT_COLOR = new Color(0xE2E8F0);      // Off-white/Light Gray
+    static final Color PLACEHOLDER_TEXT_COLOR = new Color(0x718096); // Muted Slate
 
     // Load custom fonts to be used throughout the application.
-    private static final Font FONT_REGULAR_16 = FontLoader.loadFont("/fonts/Montserrat-Regular.ttf", 16f);
-    private static final Font FONT_BOLD_20 = FontLoader.loadFont("/fonts/Montserrat-Bold.ttf", 20f);
-    private static final Font FONT_BOLD_60 = FontLoader.loadFont("/fonts/Montserrat-Bold.ttf", 60f);
-    private static final Font FONT_REGULAR_22 = FontLoader.loadFont("/fonts/Montserrat-Regular.ttf", 22f);
-    private static final Font FONT_BOLD_30 = FontLoader.loadFont("/fonts/Montserrat-Bold.ttf", 30f);
+    static final Font FONT_REGULAR_16 = FontLoader.loadFont(FontLoader.REGULAR, 16f);
+    static final Font FONT_BOLD_20 = FontLoader.loadFont(FontLoader.BOLD, 20f);
+    static final Font FONT_BOLD_60 = FontLoader.loadFont(FontLoader.BOLD, 60f);
+    static final Font FONT_REGULAR_22 = FontLoader.loadFont(FontLoader.REGULAR, 22f);
+    static final Font FONT_BOLD_30 = FontLoader.loadFont(FontLoader.BOLD, 30f);
+    static final Font FONT_REGULAR_13 = FontLoader.loadFont(FontLoader.REGULAR, 13f);
+
+    // How much observed history the forecast chart shows before the forecast begins.
+    private static final long CHART_HISTORY_SECONDS = TimeUnit.DAYS.toSeconds(2);
 
     private final WeatherApiClient apiClient;
-    private final LinkedList<String> searchHistory = new LinkedList<>(List.of("Mumbai", "Pune"));
+    private final SnapshotStore snapshotStore;
+    // Every observation fetched, for the history window.
+    private final ObservationStore observationStore;
+    // Runs the forecast request alongside the current weather request so a search
+    // waits for the slower of the two calls instead of their sum.
+    private final ExecutorService fetchExecutor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "weather-fetch");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // Incremented on the EDT for every search; responses for older searches are discarded.
+    private long latestSearchId;
+    private final SearchHistory searchHistory;
 
     // Declare all UI components that need to be updated with weather data.
     private JLabel cityLabel, tempLabel, descriptionLabel, weatherIconLabel;
     private JLabel windValueLabel, humidityValueLabel, sunriseValueLabel, sunsetValueLabel;
     private JPanel forecastPanel;
-    private JLabel recentCity1Name, recentCity1Temp, recentCity1Icon;
-    private JLabel recentCity2Name, recentCity2Temp, recentCity2Icon;
+    private final ForecastTile[] forecastTiles = new ForecastTile[5];
+    // The forecast area shows either the tiles or the chart.
+    private JPanel forecastCards;
+    private TemperatureChart forecastChart;
     private JPanel recentSearchesPanel;
+    private JList<SearchHistory.Entry> recentList;
+    private final RecentSearchesModel recentModel = new RecentSearchesModel();
+    private DashboardFrame dashboard; // Created when first opened.
+    private HistoryFrame history; // Created when first opened.
+    // The latest weather for recent searches, keyed by normalized city name. EDT only.
+    private final Map<String, WeatherData> recentWeather = new HashMap<>();
+    // Recent searches whose weather has been requested since they were last listed. EDT only.
+    private final Set<String> recentRequested = new HashSet<>();
+
+    // What is on screen, so refreshes only touch the labels whose values changed.
+    private WeatherData displayedWeather;
+    private List<ForecastData> displayedForecast;
+    // Read by the background refresh; written on the EDT. The ID is 0 when upstream gave none.
+    private volatile String displayedCity;
+    private volatile long displayedCityId;
+    // The recent searches currently scrolled into view.
+    private volatile List<SearchHistory.Entry> recentCities = List.of();
+    private final RefreshScheduler refreshScheduler;
+    // Loaded in the background; suggestions appear once it is set.
+    private volatile CityIndex cityIndex;
+    private final long upstreamUpdateMillis;
 
 
     public WeatherAppGui() {
         this.apiClient = new WeatherApiClient();
+        this.snapshotStore = new SnapshotStore(SnapshotStore.defaultPath());
+        this.observationStore = new ObservationStore(ObservationStore.defaultPath());
+        AppConfig config = AppConfig.getDefault();
+        this.searchHistory = new SearchHistory(SearchHistory.defaultPath(),
+                TimeUnit.DAYS.toMillis(config.getLong("history.halfLifeDays", 7)), config.getInt("history.maxEntries", 5000));
         setTitle("Weather Information App");
         setSize(950, 640);
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
@@ -64,9 +138,48 @@ public class WeatherAppGui extends JFrame {
 
         createUI();
 
-        // Load initial data on startup.
+        // Paint the last known data from disk first, then refresh it in the background.
+        // The window opens on the user's top ranked city, or Mumbai on first run.
+        snapshotStore.load();
+        searchHistory.load();
+        List<SearchHistory.Entry> history = searchHistory.ranked();
+        String startCity = history.isEmpty() ? "Mumbai" : history.get(0).getCityName();
+        WeatherSnapshot lastSnapshot = snapshotStore.get(startCity);
+        if (lastSnapshot != null) {
+            showWeatherData(lastSnapshot.getCurrentWeather(), lastSnapshot.getForecast());
+        }
         updateRecentSearchesPanel();
-        updateWeatherData("Mumbai");
+        updateWeatherData(startCity);
+
+        // Open (or build, on first run) the city index for search suggestions without delaying the window.
+        String cityListFile = config.getString("search.cityListFile", "");
+        Path cityList = cityListFile.isEmpty() ? CityIndex.defaultCityListPath() : Paths.get(cityListFile);
+        fetchExecutor.execute(() -> {
+            try {
+                cityIndex = CityIndex.openOrBuild(cityList, CityIndex.defaultIndexPath());
+            } catch (IOException e) {
+                System.err.println("City suggestions unavailable: " + e.getMessage());
+            }
+        });
+
+        // Keep the displayed and recent cities current while the window stays open.
+        upstreamUpdateMillis = TimeUnit.SECONDS.toMillis(config.getLong("refresh.upstreamUpdateSeconds", 600));
+        refreshScheduler = new RefreshScheduler(this::refreshDisplayedData,
+                TimeUnit.SECONDS.toMillis(config.getLong("refresh.minIntervalSeconds", 60)),
+                TimeUnit.SECONDS.toMillis(config.getLong("refresh.maxIntervalSeconds", 1800)),
+                config.getDouble("refresh.jitter", 0.1));
+        refreshScheduler.start(apiClient.getCurrentWeatherTtlMillis());
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowIconified(WindowEvent e) {
+                refreshScheduler.pause();
+            }
+
+            @Override
+            public void windowDeiconified(WindowEvent e) {
+                refreshScheduler.resume();
+            }
+        });
     }
 
     /**
@@ -74,7 +187,22 @@ public class WeatherAppGui extends JFrame {
      * The layout is divided into a top search bar and two main columns below it.
      */
     private void createUI() {
-        JPanel mainPanel = new JPanel(new GridBagLayout());
+        JPanel mainPanel = new JPanel(new GridBagLayout()) {
+            private boolean painted;
+
+            @Override
+            protected void paintComponent(Graphics g) {
+                super.paintComponent(g);
+                if (!painted) {
+                    painted = true;
+                    // Queued behind the rest of this paint, so it runs once the whole window is on screen.
+                    SwingUtilities.invokeLater(() -> {
+                        StartupTimings.mark("first paint");
+                        StartupTimings.report();
+                    });
+                }
+            }
+        };
         mainPanel.setBackground(BACKGROUND_COLOR);
         mainPanel.setBorder(new EmptyBorder(20, 20, 20, 20));
         add(mainPanel);
@@ -138,16 +266,47 @@ public class WeatherAppGui extends JFrame {
         GridBagConstraints gbc = new GridBagConstraints();
         gbc.fill = GridBagConstraints.BOTH;
 
-        // Forecast Panel (now smaller)
-        forecastPanel = new JPanel(new GridLayout(1, 5, 10, 0));
+        // Forecast Panel (now smaller): a row of daily tiles, or a chart of every forecast step.
+        JPanel tilesPanel = new JPanel(new GridLayout(1, 5, 10, 0));
+        tilesPanel.setOpaque(false);
+        for (int i = 0; i < forecastTiles.length; i++) {
+            forecastTiles[i] = createForecastItem();
+            tilesPanel.add(forecastTiles[i].panel);
+        }
+        forecastChart = new TemperatureChart();
+        forecastChart.setBackground(COMPONENT_COLOR);
+        forecastChart.setForeground(PLACEHOLDER_TEXT_COLOR);
+        forecastChart.setFont(FONT_REGULAR_13);
+        forecastCards = new JPanel(new CardLayout());
+        forecastCards.setOpaque(false);
+        forecastCards.add(tilesPanel, "days");
+        forecastCards.add(forecastChart, "chart");
+
+        JLabel forecastTitle = new JLabel("5-Day Forecast");
+        forecastTitle.setFont(FONT_REGULAR_16);
+        forecastTitle.setForeground(TEXT_COLOR);
+        JButton chartToggle = new JButton("Chart");
+        chartToggle.setFont(FONT_REGULAR_16);
+        chartToggle.setForeground(PLACEHOLDER_TEXT_COLOR);
+        chartToggle.setContentAreaFilled(false);
+        chartToggle.setBorder(new EmptyBorder(0, 0, 0, 0));
+        chartToggle.setFocusPainted(false);
+        chartToggle.setCursor(Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
+        chartToggle.addActionListener(e -> {
+            boolean showChart = chartToggle.getText().equals("Chart");
+            ((CardLayout) forecastCards.getLayout()).show(forecastCards, showChart ? "chart" : "days");
+            chartToggle.setText(showChart ? "Days" : "Chart");
+        });
+        JPanel forecastHeader = new JPanel(new BorderLayout());
+        forecastHeader.setOpaque(false);
+        forecastHeader.setBorder(new EmptyBorder(0, 0, 10, 0));
+        forecastHeader.add(forecastTitle, BorderLayout.WEST);
+        forecastHeader.add(chartToggle, BorderLayout.EAST);
+
+        forecastPanel = new JPanel(new BorderLayout());
         forecastPanel.setOpaque(false);
-        Border forecastTitleBorder = BorderFactory.createTitledBorder(
-                new EmptyBorder(0, 0, 0, 0), "5-Day Forecast", 0, 0, FONT_REGULAR_16, TEXT_COLOR
-        );
-        forecastPanel.setBorder(new CompoundBorder(
-                forecastTitleBorder,
-                new EmptyBorder(10, 0, 0, 0) // Add 10px top padding
-        ));
+        forecastPanel.add(forecastHeader, BorderLayout.NORTH);
+        forecastPanel.add(forecastCards, BorderLayout.CENTER);
 
         // Recent Searches Panel
         recentSearchesPanel = createRecentSearchesPanel();
@@ -165,10 +324,13 @@ public class WeatherAppGui extends JFrame {
         return bottomPanel;
     }
 
+    /**
+     * Builds the recent searches list. It scrolls through the whole history; weather is only
+     * fetched for the rows scrolled into view.
+     */
     private JPanel createRecentSearchesPanel() {
-        JPanel panel = new JPanel();
+        JPanel panel = new JPanel(new BorderLayout());
         panel.setOpaque(false);
-        panel.setLayout(new BoxLayout(panel, BoxLayout.Y_AXIS));
         Border recentTitleBorder = BorderFactory.createTitledBorder(
                 new EmptyBorder(0, 0, 0, 0), "Recent Searches", 0, 0, FONT_REGULAR_16, TEXT_COLOR
         );
@@ -177,19 +339,29 @@ public class WeatherAppGui extends JFrame {
                 new EmptyBorder(10, 0, 0, 0) // Add 10px top padding
         ));
 
-        recentCity1Name = new JLabel("--");
-        recentCity1Temp = new JLabel("--°");
-        recentCity1Icon = new JLabel();
-        panel.add(createRecentCityItem(recentCity1Name, recentCity1Temp, recentCity1Icon));
-
-        panel.add(Box.createVerticalStrut(10));
-
-        recentCity2Name = new JLabel("--");
-        recentCity2Temp = new JLabel("--°");
-        recentCity2Icon = new JLabel();
-        panel.add(createRecentCityItem(recentCity2Name, recentCity2Temp, recentCity2Icon));
+        recentList = new JList<>(recentModel);
+        recentList.setOpaque(false);
+        recentList.setCellRenderer(new RecentCityRenderer());
+        recentList.setFixedCellHeight(new RecentCityRenderer().getPreferredSize().height);
+        recentList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        recentList.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int row = recentList.locationToIndex(e.getPoint());
+                if (row >= 0 && recentList.getCellBounds(row, row).contains(e.getPoint())) {
+                    updateWeatherData(recentModel.getElementAt(row));
+                }
+            }
+        });
 
-        panel.add(Box.createVerticalGlue()); // Pushes items to the top
+        JScrollPane scrollPane = new JScrollPane(recentList, ScrollPaneConstants.VERTICAL_SCROLLBAR_AS_NEEDED,
+                ScrollPaneConstants.HORIZONTAL_SCROLLBAR_NEVER);
+        scrollPane.setOpaque(false);
+        scrollPane.getViewport().setOpaque(false);
+        scrollPane.setBorder(null);
+        scrollPane.getVerticalScrollBar().setUnitIncrement(16);
+        scrollPane.getViewport().addChangeListener(e -> loadVisibleRecentWeather());
+        panel.add(scrollPane, BorderLayout.CENTER);
 
         return panel;
     }
@@ -226,7 +398,7 @@ public class WeatherAppGui extends JFrame {
         RoundedPanel searchPanel = new RoundedPanel(new BorderLayout(10, 0), 20);
         searchPanel.setBackground(COMPONENT_COLOR);
         searchPanel.setBorder(new EmptyBorder(5, 15, 5, 15));
-        JLabel searchIcon = new JLabel(new ImageIcon(getClass().getResource("/icons/search.png")));
+        JLabel searchIcon = new JLabel(IconLoader.getResourceIcon("/icons/search.png"));
         searchPanel.add(searchIcon, BorderLayout.WEST);
         final String placeholder = "Search your location";
         JTextField searchField = new JTextField(placeholder);
@@ -239,8 +411,34 @@ public class WeatherAppGui extends JFrame {
             public void focusGained(FocusEvent e) { if (searchField.getText().equals(placeholder)) { searchField.setText(""); searchField.setForeground(TEXT_COLOR); } }
             public void focusLost(FocusEvent e) { if (searchField.getText().isEmpty()) { searchField.setText(placeholder); searchField.setForeground(PLACEHOLDER_TEXT_COLOR); } }
         });
-        searchField.addActionListener(e -> updateWeatherData(searchField.getText()));
+        CityAutocomplete autocomplete = new CityAutocomplete(searchField, () -> cityIndex, this::updateWeatherData);
+        // Enter picks the highlighted suggestion; without one, the typed text is searched by name.
+        searchField.addActionListener(e -> {
+            if (!autocomplete.acceptSelection()) updateWeatherData(searchField.getText());
+        });
         searchPanel.add(searchField, BorderLayout.CENTER);
+
+        JButton dashboardButton = new JButton("Dashboard");
+        dashboardButton.setFont(FONT_REGULAR_16);
+        dashboardButton.setForeground(PLACEHOLDER_TEXT_COLOR);
+        dashboardButton.setContentAreaFilled(false);
+        dashboardButton.setBorderPainted(false);
+        dashboardButton.setFocusPainted(false);
+        dashboardButton.setCursor(Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
+        dashboardButton.addActionListener(e -> openDashboard());
+        JButton historyButton = new JButton("History");
+        historyButton.setFont(FONT_REGULAR_16);
+        historyButton.setForeground(PLACEHOLDER_TEXT_COLOR);
+        historyButton.setContentAreaFilled(false);
+        historyButton.setBorderPainted(false);
+        historyButton.setFocusPainted(false);
+        historyButton.setCursor(Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
+        historyButton.addActionListener(e -> openHistory());
+        JPanel buttons = new JPanel(new FlowLayout(FlowLayout.RIGHT, 0, 0));
+        buttons.setOpaque(false);
+        buttons.add(historyButton);
+        buttons.add(dashboardButton);
+        searchPanel.add(buttons, BorderLayout.EAST);
         return searchPanel;
     }
 
@@ -262,7 +460,7 @@ public class WeatherAppGui extends JFrame {
         RoundedPanel cityPanel = new RoundedPanel(new FlowLayout(FlowLayout.LEFT, 15, 0), 20);
         cityPanel.setBackground(COMPONENT_COLOR);
         cityPanel.setBorder(new EmptyBorder(15, 20, 15, 20));
-        JLabel locationIcon = new JLabel(new ImageIcon(getClass().getResource("/icons/location.png")));
+        JLabel locationIcon = new JLabel(IconLoader.getResourceIcon("/icons/location.png"));
         cityLabel = new JLabel("City Name");
         cityLabel.setFont(FONT_BOLD_30);
         cityLabel.setForeground(TEXT_COLOR);
@@ -335,7 +533,7 @@ public class WeatherAppGui extends JFrame {
         panel.setBackground(COMPONENT_COLOR);
         panel.setBorder(new EmptyBorder(15, 25, 15, 25));
         GridBagConstraints gbc = new GridBagConstraints();
-        JLabel iconLabel = new JLabel(new ImageIcon(getClass().getResource(iconPath)));
+        JLabel iconLabel = new JLabel(IconLoader.getResourceIcon(iconPath));
         gbc.gridx = 0;
         gbc.anchor = GridBagConstraints.CENTER;
         panel.add(iconLabel, gbc);
@@ -363,76 +561,301 @@ public class WeatherAppGui extends JFrame {
 
     private void updateWeatherData(String cityName) {
         if (cityName.equalsIgnoreCase("Search your location") || cityName.trim().isEmpty()) return;
+        search(cityName, () -> apiClient.getCurrentWeather(cityName), () -> apiClient.getForecastSeries(cityName));
+    }
+
+    /**
+     * Searches for a city chosen from the suggestions. It is looked up by ID, so a name shared
+     * by several cities cannot resolve to the wrong one.
+     */
+    private void updateWeatherData(City city) {
+        search(city.getLabel(), () -> apiClient.getCurrentWeather(city.getId()), () -> apiClient.getForecastSeries(city.getId()));
+    }
+
+    /**
+     * Searches again for a city from the history, by ID when it is known.
+     */
+    private void updateWeatherData(SearchHistory.Entry entry) {
+        long cityId = entry.getCityId();
+        if (cityId == 0) {
+            updateWeatherData(entry.getCityName());
+        } else {
+            search(entry.getCityName(), () -> apiClient.getCurrentWeather(cityId), () -> apiClient.getForecastSeries(cityId));
+        }
+    }
+
+    /** One of the client's fetches, run on a background thread. */
+    private interface Fetch<T> {
+        T fetch() throws ApiException;
+    }
+
+    /**
+     * Fetches the current weather and the forecast in parallel and shows them once both arrive.
+     * @param cityName What the user searched for, for error messages.
+     */
+    private void search(String cityName, Fetch<WeatherData> currentWeather, Fetch<ForecastSeries> forecast) {
+        final long searchId = ++latestSearchId;
+        final long searchStart = System.nanoTime();
+        SwingWorker<WeatherData, Void> worker = new SwingWorker<>() {
+            private List<ForecastData> forecastList;
+            private ForecastSeries forecastSeries;
+            private ForecastSeries observedSeries;
+
+            @Override
+            protected WeatherData doInBackground() throws ApiException {
+                // Fire the forecast request first so both round trips overlap.
+                // The client streams and parses each response on the calling thread.
+                CompletableFuture<ForecastSeries> forecastFuture = CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return forecast.fetch();
+                    } catch (ApiException e) {
+                        return null; // The current weather is still worth showing.
+                    }
+                }, fetchExecutor);
+
+                WeatherData currentData;
+                try {
+                    currentData = currentWeather.fetch();
+                } catch (ApiException e) {
+                    forecastFuture.cancel(false);
+                    throw e;
+                }
+                forecastSeries = forecastFuture.join();
+                if (forecastSeries != null) {
+                    forecastList = WeatherApiClient.toFiveDayForecast(forecastSeries);
+                    snapshotStore.save(new WeatherSnapshot(currentData, forecastList, System.currentTimeMillis()));
+                } else {
+                    forecastList = List.of();
+                    snapshotStore.saveCurrentWeather(currentData); // Keep the last good forecast on disk.
+                }
+                observationStore.append(currentData);
+                observedSeries = recentObservations(currentData.getCityId());
+                searchHistory.record(currentData.getCityName(), currentData.getCityId());
+                return currentData;
+            }
 
-        JSONObject currentDataJson = apiClient.getCurrentWeather(cityName);
-        WeatherData currentData = JsonParser.parseCurrentWeather(currentDataJson);
+            @Override
+            protected void done() {
+                // A newer search was started while this one was in flight; drop the result.
+                if (searchId != latestSearchId) return;
+                try {
+                    applyWeatherData(get(), forecastList);
+                    forecastChart.setSeries(observedSeries, forecastSeries);
+                    Metrics.recordSince(Metrics.Stage.WEATHER_UPDATE, searchStart);
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof ApiException) {
+                        JOptionPane.showMessageDialog(WeatherAppGui.this, searchErrorMessage(cityName, (ApiException) e.getCause()),
+                                "Error", JOptionPane.ERROR_MESSAGE);
+                    } else {
+                        e.printStackTrace();
+                    }
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+            }
+        };
+        worker.execute();
+    }
 
-        if (currentData != null) {
-            // Update main display
+    /**
+     * @return The message to show when a search failed, telling the user whether to fix the
+     *         city name or simply try again later.
+     */
+    private static String searchErrorMessage(String cityName, ApiException e) {
+        switch (e.getKind()) {
+            case NOT_FOUND:
+                return "Could not find city: " + cityName;
+            case RATE_LIMITED:
+                return "Too many requests to the weather service. Please try again in a moment.";
+            case UNAUTHORIZED:
+                return "The weather service rejected the API key.";
+            default:
+                return "The weather service is unavailable right now. Please try again later.";
+        }
+    }
+
+    /**
+     * Applies a completed search to every affected component in a single pass on the EDT.
+     * @param currentData The parsed current weather.
+     * @param forecastList The parsed 5-day forecast, fetched in parallel with the current weather.
+     */
+    private void applyWeatherData(WeatherData currentData, List<ForecastData> forecastList) {
+        showWeatherData(currentData, forecastList);
+
+        // The search was recorded in the history by the worker; show the new ranking.
+        recentWeather.put(recentKey(currentData.getCityName()), currentData);
+        updateRecentSearchesPanel();
+        if (dashboard != null) dashboard.showWeather(currentData);
+        if (history != null && history.isDisplayable()) history.showCity(currentData.getCityId(), currentData.getCityName());
+    }
+
+    /**
+     * Displays weather data in the main panel and the forecast row without touching the search history.
+     * @param currentData The current weather to display.
+     * @param forecastList The 5-day forecast to display.
+     */
+    private void showWeatherData(WeatherData currentData, List<ForecastData> forecastList) {
+        long start = System.nanoTime();
+        // Update main display, skipping values that are already shown.
+        WeatherData previous = displayedWeather;
+        if (previous == null || !previous.getCityName().equals(currentData.getCityName())) {
             cityLabel.setText(currentData.getCityName());
+        }
+        if (previous == null || previous.getTemperature() != currentData.getTemperature()) {
             tempLabel.setText(String.format("%.0f°C", currentData.getTemperature()));
-            descriptionLabel.setText(currentData.getDescription());
+        }
+        // The description carries how the temperature feels, when that differs from the reading.
+        float feelsLike = WeatherAnalytics.feelsLike((float) currentData.getTemperature(), currentData.getHumidity(),
+                (float) currentData.getWindSpeed());
+        setTextIfChanged(descriptionLabel, Math.round(feelsLike) == Math.round(currentData.getTemperature())
+                ? currentData.getDescription()
+                : String.format("%s, feels like %.0f°C", currentData.getDescription(), feelsLike));
+        if (previous == null || previous.getWindSpeed() != currentData.getWindSpeed()) {
             windValueLabel.setText(String.format("%.2f km/h", currentData.getWindSpeed()));
+        }
+        if (previous == null || previous.getHumidity() != currentData.getHumidity()) {
             humidityValueLabel.setText(currentData.getHumidity() + " %");
+        }
+        if (previous == null || previous.getSunrise() != currentData.getSunrise()) {
             sunriseValueLabel.setText(convertTimestampToTime(currentData.getSunrise()));
+        }
+        if (previous == null || previous.getSunset() != currentData.getSunset()) {
             sunsetValueLabel.setText(convertTimestampToTime(currentData.getSunset()));
+        }
+        if (previous == null || !previous.getIconCode().equals(currentData.getIconCode())) {
             loadWeatherIcon(weatherIconLabel, currentData.getIconCode(), 120);
+        }
+        displayedWeather = currentData;
+        displayedCityId = currentData.getCityId();
+        displayedCity = currentData.getCityName();
 
-            // Update search history and recent searches panel
-            updateSearchHistory(currentData.getCityName());
-            updateRecentSearchesPanel();
-
-            // Update forecast
-            JSONObject forecastDataJson = apiClient.getFiveDayForecast(cityName);
-            List<ForecastData> forecastList = JsonParser.parseFiveDayForecast(forecastDataJson);
+        // Update forecast; the tiles are only touched when the forecast changed.
+        if (!Objects.equals(forecastList, displayedForecast)) {
             updateForecastPanel(forecastList);
+            displayedForecast = forecastList;
+        }
+        Metrics.recordSince(Metrics.Stage.SWING_UPDATE, start);
+    }
+
+    /**
+     * Refreshes the displayed city and the recent searches in the background.
+     * Runs on the refresh scheduler's thread.
+     * @return When to refresh next: once the cached data expires, or once the upstream service
+     *         is expected to publish a newer observation, whichever is later.
+     * @throws ApiException If the displayed city could not be refreshed; the scheduler then backs off.
+     */
+    private long refreshDisplayedData() throws ApiException {
+        long cityId = displayedCityId;
+        String city = displayedCity;
+        List<SearchHistory.Entry> cities = recentCities;
+        if (city == null) return apiClient.getCurrentWeatherTtlMillis();
+
+        // By ID whenever there is one: a name can resolve to another city than the one on screen.
+        WeatherData currentData = cityId != 0 ? apiClient.refreshCurrentWeather(cityId) : apiClient.refreshCurrentWeather(city);
+        ForecastSeries series;
+        try {
+            series = cityId != 0 ? apiClient.getForecastSeries(cityId) : apiClient.getForecastSeries(city);
+        } catch (ApiException e) {
+            series = null; // Keep showing the forecast already on screen.
+        }
+        List<ForecastData> forecast = series != null ? WeatherApiClient.toFiveDayForecast(series) : null;
+        List<WeatherData> recentResults = fetchCurrentWeather(cities);
+
+        if (forecast != null) {
+            snapshotStore.save(new WeatherSnapshot(currentData, forecast, System.currentTimeMillis()));
         } else {
-            JOptionPane.showMessageDialog(this, "Could not find city: " + cityName, "Error", JOptionPane.ERROR_MESSAGE);
+            snapshotStore.saveCurrentWeather(currentData); // Keep the last good forecast on disk.
         }
+        boolean observed = observationStore.append(currentData);
+        ForecastSeries observedSeries = recentObservations(currentData.getCityId());
+        saveCurrentWeather(recentResults);
+
+        List<ForecastData> refreshedForecast = forecast;
+        ForecastSeries refreshedSeries = series;
+        SwingUtilities.invokeLater(() -> {
+            // The user searched for another city meanwhile; that search updates the display.
+            if (cityId != displayedCityId || !city.equals(displayedCity)) return;
+            showWeatherData(currentData, refreshedForecast != null ? refreshedForecast : displayedForecast);
+            if (refreshedSeries != null) forecastChart.setSeries(observedSeries, refreshedSeries);
+            showRecentWeather(cities, recentResults);
+            if (observed && history != null && history.isDisplayable()) history.showCity(currentData.getCityId(), city);
+        });
+
+        long now = System.currentTimeMillis();
+        long cacheAge = Math.max(0, cityId != 0 ? apiClient.getCurrentWeatherAgeMillis(cityId) : apiClient.getCurrentWeatherAgeMillis(city));
+        long untilExpiry = apiClient.getCurrentWeatherTtlMillis() - cacheAge;
+        long untilNextObservation = currentData.getObservedAt() > 0
+                ? currentData.getObservedAt() * 1000 + upstreamUpdateMillis - now : 0;
+        return Math.max(untilExpiry, untilNextObservation);
     }
 
-    private void updateSearchHistory(String cityName) {
-        // Prevent duplicates at the top of the list
-        searchHistory.remove(cityName);
-        // Add new city to the front
-        searchHistory.addFirst(cityName);
-        // Ensure history size does not exceed 2
-        while (searchHistory.size() > 2) {
-            searchHistory.removeLast();
+    /**
+     * @return What was observed for a city over the last two days, for the forecast chart to
+     *         lead in with, or null if there is no history for it.
+     */
+    private ForecastSeries recentObservations(long cityId) {
+        if (cityId == 0) return null;
+        long now = System.currentTimeMillis() / 1000;
+        try {
+            return observationStore.range(cityId, now - CHART_HISTORY_SECONDS, now);
+        } catch (IOException e) {
+            System.err.println("Could not read observed history: " + e.getMessage());
+            return null;
         }
     }
 
+    /**
+     * Lists the search history, best ranked first, and loads weather for the rows in view.
+     * Rows show the last stored snapshot until live data arrives.
+     */
     private void updateRecentSearchesPanel() {
-        // Reset labels
-        recentCity1Name.setText("--"); recentCity1Temp.setText("--°"); recentCity1Icon.setIcon(null);
-        recentCity2Name.setText("--"); recentCity2Temp.setText("--°"); recentCity2Icon.setIcon(null);
+        recentModel.setEntries(searchHistory.ranked());
+        if (dashboard != null && dashboard.isDisplayable()) dashboard.citiesChanged();
+        recentRequested.clear(); // Reload each visible row once per update, as the old fixed rows did.
+        // The list lays out its new rows before its visible range is known.
+        SwingUtilities.invokeLater(this::loadVisibleRecentWeather);
+    }
 
-        // Update with history using a background worker
-        if (!searchHistory.isEmpty()) {
-            updateRecentCity(searchHistory.get(0), recentCity1Name, recentCity1Temp, recentCity1Icon);
+    /**
+     * Fetches weather for the recent searches scrolled into view that have not been requested
+     * yet, and records them as the cities the background refresh keeps current.
+     */
+    private void loadVisibleRecentWeather() {
+        int first = recentList.getFirstVisibleIndex();
+        int last = recentList.getLastVisibleIndex();
+        if (first < 0) {
+            recentCities = List.of();
+            return;
         }
-        if (searchHistory.size() > 1) {
-            updateRecentCity(searchHistory.get(1), recentCity2Name, recentCity2Temp, recentCity2Icon);
+        List<SearchHistory.Entry> visible = new ArrayList<>(last - first + 1);
+        List<SearchHistory.Entry> toFetch = new ArrayList<>();
+        for (int i = first; i <= last; i++) {
+            SearchHistory.Entry entry = recentModel.getElementAt(i);
+            visible.add(entry);
+            String key = recentKey(entry.getCityName());
+            if (!recentRequested.add(key)) continue;
+            if (!recentWeather.containsKey(key)) {
+                WeatherSnapshot lastSnapshot = snapshotStore.get(entry.getCityName());
+                if (lastSnapshot != null) recentWeather.put(key, lastSnapshot.getCurrentWeather());
+            }
+            toFetch.add(entry);
         }
-    }
+        recentCities = List.copyOf(visible);
+        if (toFetch.isEmpty()) return;
+        recentList.repaint();
 
-    private void updateRecentCity(String cityName, JLabel nameLabel, JLabel tempLabel, JLabel iconLabel) {
-        SwingWorker<WeatherData, Void> worker = new SwingWorker<>() {
+        SwingWorker<List<WeatherData>, Void> worker = new SwingWorker<>() {
             @Override
-            protected WeatherData doInBackground() {
-                JSONObject data = apiClient.getCurrentWeather(cityName);
-                return JsonParser.parseCurrentWeather(data);
+            protected List<WeatherData> doInBackground() {
+                List<WeatherData> weatherList = fetchCurrentWeather(toFetch);
+                saveCurrentWeather(weatherList);
+                return weatherList;
             }
 
             @Override
             protected void done() {
                 try {
-                    WeatherData data = get();
-                    if (data != null) {
-                        nameLabel.setText(data.getCityName());
-                        tempLabel.setText(String.format("%.0f°", data.getTemperature()));
-                        loadWeatherIcon(iconLabel, data.getIconCode(), 40);
-                    }
+                    showRecentWeather(toFetch, get());
                 } catch (Exception e) {
                     e.printStackTrace();
                 }
@@ -441,42 +864,188 @@ public class WeatherAppGui extends JFrame {
         worker.execute();
     }
 
+    /**
+     * Stores fetched weather for recent searches and repaints their rows. Must be called on the EDT.
+     * @param cities The recent searches that were fetched.
+     * @param weatherList Their weather, in the same order; null where a lookup failed.
+     */
+    private void showRecentWeather(List<SearchHistory.Entry> cities, List<WeatherData> weatherList) {
+        for (int i = 0; i < weatherList.size(); i++) {
+            WeatherData data = weatherList.get(i);
+            String key = recentKey(cities.get(i).getCityName());
+            if (data != null) {
+                recentWeather.put(key, data);
+                if (dashboard != null) dashboard.showWeather(data);
+            } else recentRequested.remove(key); // Try again when the row next scrolls into view.
+        }
+        recentList.repaint();
+    }
+
+    private static String recentKey(String cityName) {
+        return cityName.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Opens the dashboard of every city in the search history, or brings it to the front.
+     */
+    private void openDashboard() {
+        if (dashboard == null || !dashboard.isDisplayable()) {
+            dashboard = new DashboardFrame(new DashboardFrame.Source() {
+                @Override
+                public List<SearchHistory.Entry> trackedCities() {
+                    return searchHistory.ranked();
+                }
+
+                @Override
+                public WeatherData lastKnown(String cityName) {
+                    WeatherSnapshot lastSnapshot = snapshotStore.get(cityName);
+                    return lastSnapshot != null ? lastSnapshot.getCurrentWeather() : null;
+                }
+
+                @Override
+                public List<WeatherData> fetch(List<SearchHistory.Entry> cities) {
+                    List<WeatherData> weatherList = fetchCurrentWeather(cities);
+                    saveCurrentWeather(weatherList);
+                    return weatherList;
+                }
+
+                @Override
+                public void open(SearchHistory.Entry city) {
+                    updateWeatherData(city);
+                    WeatherAppGui.this.toFront();
+                }
+            }, apiClient.getCurrentWeatherTtlMillis());
+            dashboard.setLocationRelativeTo(this);
+        }
+        dashboard.setVisible(true);
+        dashboard.toFront();
+    }
+
+    /**
+     * Opens the history of the displayed city, or brings it to the front.
+     */
+    private void openHistory() {
+        if (history == null || !history.isDisplayable()) {
+            history = new HistoryFrame(observationStore);
+            history.setLocationRelativeTo(this);
+        }
+        if (displayedWeather != null) history.showCity(displayedWeather.getCityId(), displayedWeather.getCityName());
+        history.setVisible(true);
+        history.toFront();
+    }
+
+    /**
+     * Stores fetched current weather as each city's last known snapshot and in its history.
+     * @param weatherList The fetched weather; null entries, for failed lookups, are skipped.
+     */
+    private void saveCurrentWeather(List<WeatherData> weatherList) {
+        for (WeatherData weatherData : weatherList) {
+            if (weatherData == null) continue;
+            snapshotStore.saveCurrentWeather(weatherData);
+            observationStore.append(weatherData);
+        }
+    }
+
+    /**
+     * Fetches current weather for several cities. Cities whose ID is known from the history or a
+     * stored snapshot are fetched together in one group request; the others are looked up by name.
+     * Must be called off the EDT.
+     * @param cities The recent searches.
+     * @return The weather for each city, in the same order; null where a lookup failed.
+     */
+    private List<WeatherData> fetchCurrentWeather(List<SearchHistory.Entry> cities) {
+        long[] knownIds = new long[cities.size()];
+        List<Long> cityIds = new ArrayList<>();
+        for (int i = 0; i < cities.size(); i++) {
+            SearchHistory.Entry entry = cities.get(i);
+            long cityId = entry.getCityId();
+            if (cityId == 0) {
+                WeatherSnapshot lastSnapshot = snapshotStore.get(entry.getCityName());
+                if (lastSnapshot != null) cityId = lastSnapshot.getCurrentWeather().getCityId();
+            }
+            knownIds[i] = cityId;
+            if (cityId != 0) cityIds.add(cityId);
+        }
+        Map<Long, WeatherData> byId = Map.of();
+        if (!cityIds.isEmpty()) {
+            try {
+                byId = apiClient.getCurrentWeatherForCities(cityIds);
+            } catch (ApiException e) {
+                System.err.println("Group weather request failed: " + e.getMessage());
+            }
+        }
+
+        List<WeatherData> weatherList = new ArrayList<>();
+        for (int i = 0; i < cities.size(); i++) {
+            String city = cities.get(i).getCityName();
+            WeatherData weatherData = byId.get(knownIds[i]);
+            if (weatherData == null) {
+                try {
+                    weatherData = apiClient.getCurrentWeather(city);
+                } catch (ApiException e) {
+                    System.err.println("Could not fetch weather for " + city + ": " + e.getMessage());
+                }
+            }
+            weatherList.add(weatherData);
+        }
+        return weatherList;
+    }
+
+    /**
+     * Shows a forecast in the row's tiles, changing only the labels whose values differ.
+     * The tiles are built once; days without data leave their tile hidden.
+     */
     private void updateForecastPanel(List<ForecastData> forecastList) {
-        forecastPanel.removeAll();
-        if (forecastList == null || forecastList.isEmpty()) return;
-        for (ForecastData data : forecastList) {
-            forecastPanel.add(createForecastItem(data));
+        int count = forecastList == null ? 0 : Math.min(forecastList.size(), forecastTiles.length);
+        for (int i = 0; i < forecastTiles.length; i++) {
+            ForecastTile tile = forecastTiles[i];
+            if (i >= count) {
+                tile.panel.setVisible(false);
+                continue;
+            }
+            ForecastData data = forecastList.get(i);
+            setTextIfChanged(tile.dayLabel, data.getDayOfWeek());
+            setTextIfChanged(tile.tempLabel, String.format("%.0f°", data.getTemperature()));
+            if (!Objects.equals(tile.iconCode, data.getIconCode())) {
+                loadWeatherIcon(tile.iconLabel, data.getIconCode(), 50);
+                tile.iconCode = data.getIconCode();
+            }
+            tile.panel.setVisible(true);
+        }
+    }
+
+    private static void setTextIfChanged(JLabel label, String text) {
+        if (!text.equals(label.getText())) {
+            label.setText(text);
         }
-        forecastPanel.revalidate();
-        forecastPanel.repaint();
     }
 
-    private JPanel createForecastItem(ForecastData data) {
+    private ForecastTile createForecastItem() {
+        ForecastTile tile = new ForecastTile();
         RoundedPanel dayPanel = new RoundedPanel(new GridBagLayout(), 20);
         dayPanel.setBackground(COMPONENT_COLOR);
         GridBagConstraints gbc = new GridBagConstraints();
         gbc.gridx = 0;
         gbc.anchor = GridBagConstraints.CENTER;
-        JLabel dayLabel = new JLabel(data.getDayOfWeek());
-        dayLabel.setFont(FONT_REGULAR_16); // Smaller font for day
-        dayLabel.setForeground(TEXT_COLOR);
+        tile.dayLabel.setFont(FONT_REGULAR_16); // Smaller font for day
+        tile.dayLabel.setForeground(TEXT_COLOR);
         gbc.gridy = 0;
         // Increased vertical insets for more height
         gbc.insets = new Insets(15, 0, 0, 0);
-        dayPanel.add(dayLabel, gbc);
-        JLabel iconLabel = new JLabel();
-        loadWeatherIcon(iconLabel, data.getIconCode(), 50); // Smaller icon
+        dayPanel.add(tile.dayLabel, gbc);
+        tile.iconLabel.setPreferredSize(new Dimension(50, 50)); // Keeps the tile's size while the icon loads.
         gbc.gridy = 1;
         gbc.insets = new Insets(8, 0, 8, 0);
-        dayPanel.add(iconLabel, gbc);
-        JLabel tempLabel = new JLabel(String.format("%.0f°", data.getTemperature()));
-        tempLabel.setFont(FONT_BOLD_20); // Smaller font for temp
-        tempLabel.setForeground(TEXT_COLOR);
+        dayPanel.add(tile.iconLabel, gbc);
+        tile.tempLabel.setFont(FONT_BOLD_20); // Smaller font for temp
+        tile.tempLabel.setForeground(TEXT_COLOR);
         gbc.gridy = 2;
         // Increased vertical insets for more height
         gbc.insets = new Insets(0, 0, 15, 0);
-        dayPanel.add(tempLabel, gbc);
-        return dayPanel;
+        dayPanel.add(tile.tempLabel, gbc);
+        dayPanel.setVisible(false); // Until there is a forecast to show.
+        tile.panel = dayPanel;
+        return tile;
     }
 
     private String convertTimestampToTime(long timestamp) {
@@ -484,14 +1053,74 @@ public class WeatherAppGui extends JFrame {
     }
 
     private void loadWeatherIcon(JLabel iconLabel, String iconCode, int size) {
-        String path = "/assets/" + iconCode + ".png";
-        try {
-            ImageIcon icon = new ImageIcon(getClass().getResource(path));
-            iconLabel.setIcon(new ImageIcon(icon.getImage().getScaledInstance(size, size, Image.SCALE_SMOOTH)));
-        } catch (Exception e) {
-            System.err.println("Could not find icon file: " + path);
-            iconLabel.setIcon(null);
+        // IconLoader logs missing icons and returns null, which clears the label.
+        iconLabel.setIcon(IconLoader.getIcon(iconCode, size));
+    }
+
+    /** The components of one day in the forecast row, kept to update them in place. */
+    private static class ForecastTile {
+        final JLabel dayLabel = new JLabel();
+        final JLabel iconLabel = new JLabel();
+        final JLabel tempLabel = new JLabel();
+        JPanel panel;
+        String iconCode;
+    }
+
+    /**
+     * Draws one recent search with its latest known weather. One instance stamps every row.
+     */
+    private class RecentCityRenderer extends JPanel implements ListCellRenderer<SearchHistory.Entry> {
+        private final JLabel nameLabel = new JLabel("--");
+        private final JLabel tempLabel = new JLabel("--°");
+        private final JLabel iconLabel = new JLabel();
+
+        RecentCityRenderer() {
+            super(new BorderLayout());
+            setOpaque(false);
+            setBorder(new EmptyBorder(0, 0, 10, 0)); // The gap between rows.
+            add(createRecentCityItem(nameLabel, tempLabel, iconLabel), BorderLayout.CENTER);
+            iconLabel.setPreferredSize(new Dimension(40, 40));
+        }
+
+        @Override
+        public Component getListCellRendererComponent(JList<? extends SearchHistory.Entry> list, SearchHistory.Entry entry,
+                                                      int index, boolean isSelected, boolean cellHasFocus) {
+            WeatherData data = recentWeather.get(recentKey(entry.getCityName()));
+            nameLabel.setText(entry.getCityName());
+            if (data != null) {
+                tempLabel.setText(String.format("%.0f°", data.getTemperature()));
+                loadWeatherIcon(iconLabel, data.getIconCode(), 40);
+            } else {
+                tempLabel.setText("--°");
+                iconLabel.setIcon(null);
+            }
+            return this;
         }
     }
-}
 
+    /**
+     * The search history as a list model. Replacing the entries fires a single change event,
+     * however long the history is.
+     */
+    private static class RecentSearchesModel extends AbstractListModel<SearchHistory.Entry> {
+        private List<SearchHistory.Entry> entries = List.of();
+
+        void setEntries(List<SearchHistory.Entry> newEntries) {
+            int oldSize = entries.size();
+            entries = newEntries;
+            if (oldSize > newEntries.size()) fireIntervalRemoved(this, newEntries.size(), oldSize - 1);
+            if (newEntries.size() > oldSize) fireIntervalAdded(this, oldSize, newEntries.size() - 1);
+            if (!newEntries.isEmpty()) fireContentsChanged(this, 0, newEntries.size() - 1);
+        }
+
+        @Override
+        public int getSize() {
+            return entries.size();
+        }
+
+        @Override
+        public SearchHistory.Entry getElementAt(int index) {
+            return entries.get(index);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.weatherapp.gui.component;
+
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+
+/**
+ * A rounded rectangle whose anti-aliased corners are rendered once and copied on every later paint.
+ * <p>
+ * Anti-aliasing a rounded rectangle on every repaint is costly, and a window repaints dozens of
+ * them at once. Only the corners need it, though: the straight edges are pixel-aligned, so the
+ * body is two plain rectangle fills and the four corners are copied from a small cached image
+ * of a rounded rectangle cut into quarters. Caching the whole background instead would blend
+ * every pixel of a translucent image, which costs more than a solid fill for large panels.
+ * <p>
+ * The corners are rendered at the device's pixel scale, so they stay sharp on HiDPI screens,
+ * and are rendered again only when the color, corner radius or scale changes.
+ */
+public final class RoundedBackground {
+    private Image corners;
+    private int cornerPixelsX;
+    private int cornerPixelsY;
+    private double scaleX;
+    private double scaleY;
+    private Color color;
+    private int cornerRadius;
+
+    /**
+     * Paints a rounded rectangle covering {@code width} x {@code height} at the origin, the same as
+     * {@code fillRoundRect(0, 0, width, height, cornerRadius, cornerRadius)} with anti-aliasing.
+     * @param cornerRadius The diameter of the corner arcs, as passed to {@code fillRoundRect}.
+     */
+    public void paint(Graphics2D g, int width, int height, int cornerRadius, Color color) {
+        if (width <= 0 || height <= 0) return;
+        int corner = (cornerRadius + 1) / 2;
+        if (corner == 0 || width < 2 * corner || height < 2 * corner) {
+            // Too small to slice; this is rare enough to simply draw directly.
+            Object antialiasing = g.getRenderingHint(RenderingHints.KEY_ANTIALIASING);
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g.setColor(color);
+            g.fillRoundRect(0, 0, width, height, cornerRadius, cornerRadius);
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, antialiasing);
+            return;
+        }
+
+        AffineTransform transform = g.getTransform();
+        double scaleX = transform.getScaleX();
+        double scaleY = transform.getScaleY();
+        if (corners == null || cornerRadius != this.cornerRadius || scaleX != this.scaleX
+                || scaleY != this.scaleY || !color.equals(this.color)) {
+            renderCorners(g.getDeviceConfiguration(), corner, scaleX, scaleY, cornerRadius, color);
+        }
+
+        g.setColor(color);
+        g.fillRect(corner, 0, width - 2 * corner, height);
+        g.fillRect(0, corner, corner, height - 2 * corner);
+        g.fillRect(width - corner, corner, corner, height - 2 * corner);
+
+        // Each quarter of the image is one corner, one device pixel per image pixel.
+        int px = cornerPixelsX, py = cornerPixelsY, right = width - corner, bottom = height - corner;
+        g.drawImage(corners, 0, 0, corner, corner, 0, 0, px, py, null);
+        g.drawImage(corners, right, 0, width, corner, px, 0, 2 * px, py, null);
+        g.drawImage(corners, 0, bottom, corner, height, 0, py, px, 2 * py, null);
+        g.drawImage(corners, right, bottom, width, height, px, py, 2 * px, 2 * py, null);
+    }
+
+    private void renderCorners(GraphicsConfiguration configuration, int corner,
+                               double scaleX, double scaleY, int cornerRadius, Color color) {
+        int pixelsX = Math.max(1, (int) Math.round(corner * scaleX));
+        int pixelsY = Math.max(1, (int) Math.round(corner * scaleY));
+        BufferedImage image = configuration != null
+                ? configuration.createCompatibleImage(2 * pixelsX, 2 * pixelsY, Transparency.TRANSLUCENT)
+                : new BufferedImage(2 * pixelsX, 2 * pixelsY, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = image.createGraphics();
+        try {
+            graphics.scale(pixelsX / (double) corner, pixelsY / (double) corner);
+            graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            graphics.setColor(color);
+            graphics.fillRoundRect(0, 0, 2 * corner, 2 * corner, cornerRadius, cornerRadius);
+        } finally {
+            graphics.dispose();
+        }
+        corners = image;
+        cornerPixelsX = pixelsX;
+        cornerPixelsY = pixelsY;
+        this.scaleX = scaleX;
+        this.scaleY = scaleY;
+        this.cornerRadius = cornerRadius;
+        this.color = color;
+    }
+}
@@ -9,6 +9,7 @@ import java.awt.*;
  */
 public class RoundedPanel extends JPanel {
     private final int cornerRadius;
+    private final RoundedBackground background = new RoundedBackground();
 
     /**
      * Constructs a new RoundedPanel.
@@ -25,22 +26,14 @@ public class RoundedPanel extends JPanel {
 
     /**
      * Overrides the default painting behavior to draw a rounded rectangle.
-     * This is where the custom "rounded" look is created.
+     * This is where the custom "rounded" look is created. The body is filled directly and the
+     * four anti-aliased corners are copied from a cached image, so resizing re-renders nothing;
+     * the corners are only re-rendered when the color, radius or device scale changes.
      * @param g The Graphics object provided by Swing for drawing.
      */
     @Override
     protected void paintComponent(Graphics g) {
         super.paintComponent(g);
-        Dimension arcs = new Dimension(cornerRadius, cornerRadius);
-        int width = getWidth();
-        int height = getHeight();
-        Graphics2D graphics = (Graphics2D) g;
-
-        // Enable anti-aliasing for smooth, high-quality corners.
-        graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-
-        // Draw the rounded rectangle background with the panel's background color.
-        graphics.setColor(getBackground());
-        graphics.fillRoundRect(0, 0, width - 1, height - 1, arcs.width, arcs.height);
+        background.paint((Graphics2D) g, getWidth() - 1, getHeight() - 1, cornerRadius, getBackground());
     }
 }
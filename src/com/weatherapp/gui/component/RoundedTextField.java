@@ -9,8 +9,9 @@ import java.awt.geom.RoundRectangle2D;
  * This component overrides its painting behavior to match the modern, rounded UI theme.
  */
 public class RoundedTextField extends JTextField {
-    private Shape shape;
+    private RoundRectangle2D.Float shape;
     private final int cornerRadius;
+    private final RoundedBackground background = new RoundedBackground();
 
     public RoundedTextField(int cornerRadius) {
         super();
@@ -21,22 +22,17 @@ public class RoundedTextField extends JTextField {
 
     /**
      * Overrides the default component painting. This method first draws the
-     * rounded background and then calls the superclass's paintComponent
+     * cached rounded background and then calls the superclass's paintComponent
      * to draw the text on top of it.
      * @param g The Graphics object provided by Swing.
      */
     @Override
     protected void paintComponent(Graphics g) {
-        Graphics2D g2 = (Graphics2D) g.create();
-        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-
-        // Fill the background with a rounded rectangle shape.
-        g2.setColor(getBackground());
-        g2.fill(new RoundRectangle2D.Float(0, 0, getWidth() - 1, getHeight() - 1, cornerRadius, cornerRadius));
+        // Fill the background with a rounded rectangle: a plain fill plus cached anti-aliased corners.
+        background.paint((Graphics2D) g, getWidth() - 1, getHeight() - 1, cornerRadius, getBackground());
 
         // Let the original JTextField class handle painting the text.
-        super.paintComponent(g2);
-        g2.dispose();
+        super.paintComponent(g);
     }
 
     /**
@@ -55,7 +51,8 @@ public class RoundedTextField extends JTextField {
      */
     @Override
     public boolean contains(int x, int y) {
-        if (shape == null || !shape.getBounds().equals(getBounds())) {
+        // The shape is at the origin while getBounds() is in the parent's coordinates, so compare sizes only.
+        if (shape == null || shape.getWidth() != getWidth() - 1 || shape.getHeight() != getHeight() - 1) {
             shape = new RoundRectangle2D.Float(0, 0, getWidth() - 1, getHeight() - 1, cornerRadius, cornerRadius);
         }
         return shape.contains(x, y);
@@ -0,0 +1,408 @@
+package com.weatherapp.gui.component;
+
+import com.weatherapp.model.ForecastSeries;
+
+import javax.swing.JComponent;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Line2D;
+import java.awt.geom.Path2D;
+import java.awt.image.BufferedImage;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+
+/**
+ * A line chart of temperature over time: a forecast, optionally preceded by observed history,
+ * with a readout of the point under the mouse.
+ * <p>
+ * Everything except the readout (the card, grid, axis labels and both lines) is drawn once into
+ * an offscreen image at the device's pixel scale, and drawn again only when the data, size or
+ * scale changes; a repaint copies the image and adds the readout. Moving the mouse repaints just
+ * the strips under the old and the new readout, so hovering costs the same for ten points as for
+ * ten thousand. The lines are drawn from the series' primitive arrays, and a series with more
+ * points than the chart has pixel columns is first reduced to each column's lowest and highest
+ * value, which keeps every peak visible.
+ */
+public class TemperatureChart extends JComponent {
+    private static final int ARC = 20;
+    private static final int INSET_LEFT = 44;
+    private static final int INSET_RIGHT = 16;
+    private static final int INSET_TOP = 14;
+    private static final int INSET_BOTTOM = 26;
+    private static final int MARKER_RADIUS = 4;
+    private static final int READOUT_PADDING = 6;
+    private static final float[] GRID_STEPS = { 1, 2, 5, 10, 20, 50 };
+    private static final DateTimeFormatter DAY_FORMATTER = DateTimeFormatter.ofPattern("EEE");
+    private static final DateTimeFormatter READOUT_FORMATTER = DateTimeFormatter.ofPattern("EEE HH:mm");
+
+    private Color forecastColor = new Color(0x63B3ED);
+    private Color observedColor = new Color(0xF6AD55);
+    private Color gridColor = new Color(255, 255, 255, 28);
+    private final ZoneId zone = ZoneId.systemDefault();
+
+    // Observed points first, then the forecast, in time order. Only replaced on the EDT.
+    private long[] times = new long[0];
+    private float[] temperatures = new float[0];
+    private int forecastStart;
+
+    // The scales the cached layer was drawn with.
+    private long minTime, maxTime;
+    private float minTemperature, maxTemperature;
+    private float[] pointX = new float[0];
+
+    private BufferedImage layer;
+    private int layerWidth, layerHeight;
+    private double layerScaleX, layerScaleY;
+    private boolean layerValid;
+
+    private int hovered = -1;
+
+    public TemperatureChart() {
+        setOpaque(false);
+        MouseAdapter mouse = new MouseAdapter() {
+            @Override
+            public void mouseMoved(MouseEvent e) {
+                setHovered(nearestPoint(e.getX()));
+            }
+
+            @Override
+            public void mouseExited(MouseEvent e) {
+                setHovered(-1);
+            }
+        };
+        addMouseListener(mouse);
+        addMouseMotionListener(mouse);
+    }
+
+    /**
+     * Replaces the data. Observed points at or after the forecast's first time step are left out.
+     * Must be called on the EDT.
+     * @param observed The observed history, or null.
+     * @param forecast The forecast, or null.
+     */
+    public void setSeries(ForecastSeries observed, ForecastSeries forecast) {
+        int forecastSize = forecast != null ? forecast.size() : 0;
+        long forecastFrom = forecastSize > 0 ? forecast.getTimestamp(0) : Long.MAX_VALUE;
+        int observedSize = 0;
+        if (observed != null) {
+            while (observedSize < observed.size() && observed.getTimestamp(observedSize) < forecastFrom) observedSize++;
+        }
+        long[] newTimes = new long[observedSize + forecastSize];
+        float[] newTemperatures = new float[newTimes.length];
+        for (int i = 0; i < observedSize; i++) {
+            newTimes[i] = observed.getTimestamp(i);
+            newTemperatures[i] = observed.getTemperature(i);
+        }
+        for (int i = 0; i < forecastSize; i++) {
+            newTimes[observedSize + i] = forecast.getTimestamp(i);
+            newTemperatures[observedSize + i] = forecast.getTemperature(i);
+        }
+        if (Arrays.equals(newTimes, times) && Arrays.equals(newTemperatures, temperatures) && forecastStart == observedSize) {
+            return; // A refresh that brought the same data.
+        }
+        times = newTimes;
+        temperatures = newTemperatures;
+        forecastStart = observedSize;
+        hovered = -1;
+        layerValid = false;
+        repaint();
+    }
+
+    public void setForecastColor(Color color) {
+        forecastColor = color;
+        layerValid = false;
+        repaint();
+    }
+
+    public void setObservedColor(Color color) {
+        observedColor = color;
+        layerValid = false;
+        repaint();
+    }
+
+    @Override
+    public void setBackground(Color background) {
+        super.setBackground(background);
+        layerValid = false;
+    }
+
+    @Override
+    public void setForeground(Color foreground) {
+        super.setForeground(foreground);
+        layerValid = false;
+    }
+
+    @Override
+    public void setFont(Font font) {
+        super.setFont(font);
+        layerValid = false;
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        int width = getWidth(), height = getHeight();
+        if (width <= 0 || height <= 0) return;
+        Graphics2D graphics = (Graphics2D) g.create();
+        try {
+            AffineTransform transform = graphics.getTransform();
+            if (!layerValid || width != layerWidth || height != layerHeight
+                    || transform.getScaleX() != layerScaleX || transform.getScaleY() != layerScaleY) {
+                renderLayer(graphics.getDeviceConfiguration(), width, height, transform.getScaleX(), transform.getScaleY());
+            }
+            // One image pixel per device pixel.
+            graphics.drawImage(layer, 0, 0, width, height, null);
+            if (hovered >= 0) paintReadout(graphics, hovered);
+        } finally {
+            graphics.dispose();
+        }
+    }
+
+    private void setHovered(int index) {
+        if (index == hovered) return;
+        if (hovered >= 0) repaint(readoutBounds(hovered));
+        hovered = index;
+        if (index >= 0) repaint(readoutBounds(index));
+    }
+
+    // The point whose x position is closest to the mouse, or -1 when there is nothing to point at.
+    private int nearestPoint(int x) {
+        if (!layerValid || pointX.length == 0) return -1;
+        if (x < INSET_LEFT - MARKER_RADIUS || x > getWidth() - INSET_RIGHT + MARKER_RADIUS) return -1;
+        int index = Arrays.binarySearch(pointX, x);
+        if (index >= 0) return index;
+        int after = -index - 1;
+        if (after == 0) return 0;
+        if (after == pointX.length) return pointX.length - 1;
+        return x - pointX[after - 1] <= pointX[after] - x ? after - 1 : after;
+    }
+
+    private void renderLayer(GraphicsConfiguration configuration, int width, int height, double scaleX, double scaleY) {
+        int pixelsX = Math.max(1, (int) Math.ceil(width * scaleX));
+        int pixelsY = Math.max(1, (int) Math.ceil(height * scaleY));
+        if (layer == null || layer.getWidth() != pixelsX || layer.getHeight() != pixelsY) {
+            layer = configuration != null
+                    ? configuration.createCompatibleImage(pixelsX, pixelsY, Transparency.TRANSLUCENT)
+                    : new BufferedImage(pixelsX, pixelsY, BufferedImage.TYPE_INT_ARGB);
+        }
+        Graphics2D graphics = layer.createGraphics();
+        try {
+            graphics.setComposite(AlphaComposite.Clear);
+            graphics.fillRect(0, 0, pixelsX, pixelsY);
+            graphics.setComposite(AlphaComposite.SrcOver);
+            graphics.scale(pixelsX / (double) width, pixelsY / (double) height);
+            graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            graphics.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            graphics.setRenderingHint(RenderingHints.KEY_STROKE_CONTROL, RenderingHints.VALUE_STROKE_PURE);
+            if (getBackground() != null) {
+                graphics.setColor(getBackground());
+                graphics.fillRoundRect(0, 0, width - 1, height - 1, ARC, ARC);
+            }
+            computeScales(width);
+            if (times.length > 0) {
+                paintGrid(graphics, width, height);
+                paintLine(graphics, 0, forecastStart, observedColor, false, height);
+                paintLine(graphics, forecastStart, times.length, forecastColor, true, height);
+            }
+        } finally {
+            graphics.dispose();
+        }
+        layerWidth = width;
+        layerHeight = height;
+        layerScaleX = scaleX;
+        layerScaleY = scaleY;
+        layerValid = true;
+    }
+
+    private void computeScales(int width) {
+        pointX = new float[times.length];
+        if (times.length == 0) return;
+        minTime = times[0];
+        maxTime = Math.max(times[times.length - 1], minTime + 1);
+        float low = Float.MAX_VALUE, high = -Float.MAX_VALUE;
+        for (float temperature : temperatures) {
+            if (Float.isNaN(temperature)) continue;
+            low = Math.min(low, temperature);
+            high = Math.max(high, temperature);
+        }
+        if (low > high) low = high = 0;
+        float step = gridStep(high - low);
+        minTemperature = (float) Math.floor(low / step) * step;
+        maxTemperature = Math.max((float) Math.ceil(high / step) * step, minTemperature + step);
+        for (int i = 0; i < times.length; i++) {
+            pointX[i] = x(times[i], width);
+        }
+    }
+
+    private static float gridStep(float range) {
+        for (float step : GRID_STEPS) {
+            if (range / step <= 4) return step;
+        }
+        return GRID_STEPS[GRID_STEPS.length - 1];
+    }
+
+    private void paintGrid(Graphics2D graphics, int width, int height) {
+        graphics.setFont(getFont());
+        FontMetrics metrics = graphics.getFontMetrics();
+        Color textColor = getForeground();
+        int right = width - INSET_RIGHT, bottom = height - INSET_BOTTOM;
+
+        float step = gridStep(maxTemperature - minTemperature);
+        for (float value = minTemperature; value <= maxTemperature + step / 2; value += step) {
+            float y = y(value, height);
+            graphics.setColor(gridColor);
+            graphics.draw(new Line2D.Float(INSET_LEFT, y, right, y));
+            String label = String.format("%.0f°", value);
+            graphics.setColor(textColor);
+            graphics.drawString(label, INSET_LEFT - 6 - metrics.stringWidth(label), y + metrics.getAscent() / 2f - 1);
+        }
+
+        // A line at each local midnight, labelled with the day that starts there.
+        LocalDate day = Instant.ofEpochSecond(minTime).atZone(zone).toLocalDate();
+        int labelBaseline = bottom + 6 + metrics.getAscent();
+        while (true) {
+            day = day.plusDays(1);
+            long midnight = day.atStartOfDay(zone).toEpochSecond();
+            if (midnight >= maxTime) break;
+            float x = x(midnight, width);
+            graphics.setColor(gridColor);
+            graphics.draw(new Line2D.Float(x, INSET_TOP, x, bottom));
+            String label = DAY_FORMATTER.format(day);
+            // Each label sits in the middle of its day, clipped to the plot.
+            float end = x(Math.min(day.plusDays(1).atStartOfDay(zone).toEpochSecond(), maxTime), width);
+            float labelX = (x + end - metrics.stringWidth(label)) / 2;
+            if (end - x >= metrics.stringWidth(label)) {
+                graphics.setColor(textColor);
+                graphics.drawString(label, labelX, labelBaseline);
+            }
+        }
+    }
+
+    private void paintLine(Graphics2D graphics, int from, int to, Color color, boolean filled, int height) {
+        if (to - from <= 0) return;
+        Path2D.Float line = new Path2D.Float(Path2D.WIND_NON_ZERO, Math.min(to - from, 4 * getWidth()) + 4);
+        appendPoints(line, from, to, height);
+        if (filled && to - from > 1) {
+            Path2D.Float area = new Path2D.Float(line);
+            float bottom = height - INSET_BOTTOM;
+            area.lineTo(pointX[to - 1], bottom);
+            area.lineTo(pointX[from], bottom);
+            area.closePath();
+            graphics.setPaint(new GradientPaint(0, INSET_TOP, withAlpha(color, 90), 0, bottom, withAlpha(color, 0)));
+            graphics.fill(area);
+        }
+        graphics.setColor(color);
+        graphics.setStroke(new BasicStroke(2f, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
+        graphics.draw(line);
+        if (to - from == 1) {
+            float y = y(temperatures[from], height);
+            graphics.fill(new Ellipse2D.Float(pointX[from] - 2, y - 2, 4, 4));
+        }
+    }
+
+    /**
+     * Adds the points to the path. Where several points share a pixel column only the first, the
+     * lowest, the highest and the last are kept, which draws the same pixels as all of them.
+     */
+    private void appendPoints(Path2D.Float path, int from, int to, int height) {
+        boolean started = false;
+        int i = from;
+        while (i < to) {
+            int column = (int) pointX[i];
+            int end = i + 1;
+            while (end < to && (int) pointX[end] == column) end++;
+            if (end - i <= 4) {
+                for (int j = i; j < end; j++) {
+                    started = addPoint(path, j, temperatures[j], started, height);
+                }
+            } else {
+                int low = i, high = i;
+                for (int j = i + 1; j < end; j++) {
+                    if (temperatures[j] < temperatures[low]) low = j;
+                    if (temperatures[j] > temperatures[high]) high = j;
+                }
+                started = addPoint(path, i, temperatures[i], started, height);
+                started = addPoint(path, Math.min(low, high), temperatures[Math.min(low, high)], started, height);
+                started = addPoint(path, Math.max(low, high), temperatures[Math.max(low, high)], started, height);
+                started = addPoint(path, end - 1, temperatures[end - 1], started, height);
+            }
+            i = end;
+        }
+    }
+
+    private boolean addPoint(Path2D.Float path, int index, float temperature, boolean started, int height) {
+        if (Float.isNaN(temperature)) return false; // A gap in the data breaks the line.
+        float y = y(temperature, height);
+        if (started) path.lineTo(pointX[index], y);
+        else path.moveTo(pointX[index], y);
+        return true;
+    }
+
+    private void paintReadout(Graphics2D graphics, int index) {
+        graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        graphics.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        int height = getHeight();
+        float x = pointX[index];
+        Color color = index < forecastStart ? observedColor : forecastColor;
+        graphics.setColor(withAlpha(getForeground(), 120));
+        graphics.draw(new Line2D.Float(x, INSET_TOP, x, height - INSET_BOTTOM));
+        if (!Float.isNaN(temperatures[index])) {
+            float y = y(temperatures[index], height);
+            graphics.setColor(color);
+            graphics.fill(new Ellipse2D.Float(x - MARKER_RADIUS, y - MARKER_RADIUS, 2 * MARKER_RADIUS, 2 * MARKER_RADIUS));
+        }
+
+        Rectangle box = readoutBox(index);
+        graphics.setColor(withAlpha(Color.BLACK, 170));
+        graphics.fillRoundRect(box.x, box.y, box.width, box.height, 10, 10);
+        graphics.setFont(getFont());
+        FontMetrics metrics = graphics.getFontMetrics();
+        graphics.setColor(color);
+        graphics.drawString(readoutText(index), box.x + READOUT_PADDING, box.y + READOUT_PADDING + metrics.getAscent());
+    }
+
+    private String readoutText(int index) {
+        ZonedDateTime time = Instant.ofEpochSecond(times[index]).atZone(zone);
+        String temperature = Float.isNaN(temperatures[index]) ? "--" : String.format("%.1f°", temperatures[index]);
+        return READOUT_FORMATTER.format(time) + "  " + temperature + (index < forecastStart ? "  observed" : "");
+    }
+
+    // The readout's label, beside the point and inside the plot.
+    private Rectangle readoutBox(int index) {
+        FontMetrics metrics = getFontMetrics(getFont());
+        int width = metrics.stringWidth(readoutText(index)) + 2 * READOUT_PADDING;
+        int height = metrics.getHeight() + 2 * READOUT_PADDING;
+        int x = Math.round(pointX[index]) + 8;
+        if (x + width > getWidth() - INSET_RIGHT) x = Math.round(pointX[index]) - 8 - width;
+        return new Rectangle(Math.max(0, x), INSET_TOP, width, height);
+    }
+
+    // Everything paintReadout may touch: the guide line, the marker and the label.
+    private Rectangle readoutBounds(int index) {
+        int x = Math.round(pointX[index]);
+        Rectangle bounds = new Rectangle(x - MARKER_RADIUS - 2, INSET_TOP - 1, 2 * MARKER_RADIUS + 4,
+                getHeight() - INSET_TOP - INSET_BOTTOM + 2 + MARKER_RADIUS + 2);
+        bounds.add(readoutBox(index));
+        bounds.grow(1, 1);
+        return bounds;
+    }
+
+    private float x(long time, int width) {
+        return INSET_LEFT + (float) ((time - minTime) / (double) (maxTime - minTime)) * (width - INSET_LEFT - INSET_RIGHT);
+    }
+
+    private float y(float temperature, int height) {
+        float plotHeight = height - INSET_TOP - INSET_BOTTOM;
+        return INSET_TOP + (maxTemperature - temperature) / (maxTemperature - minTemperature) * plotHeight;
+    }
+
+    private static Color withAlpha(Color color, int alpha) {
+        return new Color(color.getRed(), color.getGreen(), color.getBlue(), alpha);
+    }
+}
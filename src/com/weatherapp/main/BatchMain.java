@@ -0,0 +1,380 @@
+package com.weatherapp.main;
+
+import com.weatherapp.api.ApiException;
+import com.weatherapp.api.WeatherApiClient;
+import com.weatherapp.metrics.LatencyHistogram;
+import com.weatherapp.model.ForecastData;
+import com.weatherapp.model.WeatherData;
+import com.weatherapp.server.ModelJson;
+import org.json.simple.JSONValue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The entry point for exporting the weather of a long list of cities to a file, without a window.
+ * Usage: {@code BatchMain <cityFile> <outputFile> [--concurrency N] [--format csv|ndjson] [--no-forecast]}.
+ * <p>
+ * The city file holds one city per line, either an OpenWeatherMap city ID or a name; blank lines and
+ * lines starting with {@code #} are skipped. Consecutive IDs are fetched through the group endpoint,
+ * 20 per call. Each city becomes one CSV row or one JSON line, written as soon as it arrives, so memory
+ * use does not grow with the list. The format follows the output file's extension unless given.
+ * <p>
+ * Finished input lines are recorded in {@code <outputFile>.checkpoint}. If the export is interrupted,
+ * running it again with the same arguments appends to the output and skips those lines; cities that
+ * failed are retried. The checkpoint is removed once every city has been exported. A city may appear
+ * twice if the process was killed between writing its row and recording it.
+ */
+public class BatchMain {
+    private static final int GROUP_SIZE = 20;
+    private static final int FORECAST_DAYS = 5;
+    // Rows written between flushes of the output and the checkpoint.
+    private static final int CHECKPOINT_INTERVAL = 100;
+    // How long to wait before retrying a call the local rate limiter or circuit breaker turned away.
+    private static final long THROTTLED_RETRY_MILLIS = 1000;
+
+    private final WeatherApiClient apiClient;
+    private final int concurrency;
+    private final boolean withForecast;
+    private final boolean csv;
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final AtomicInteger exported = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private final AtomicLong throttledWaits = new AtomicLong();
+
+    // Guarded by this.
+    private Writer output;
+    private Writer checkpoint;
+    private int rowsSinceFlush;
+    private boolean closed;
+
+    /**
+     * @param apiClient The client to fetch with; its rate limiter paces the whole export.
+     * @param concurrency The most cities (or groups of IDs) fetched at the same time.
+     * @param withForecast Whether to fetch each city's 5-day forecast as well.
+     * @param csv Whether to write CSV rather than newline-delimited JSON.
+     */
+    public BatchMain(WeatherApiClient apiClient, int concurrency, boolean withForecast, boolean csv) {
+        this.apiClient = apiClient;
+        this.concurrency = concurrency;
+        this.withForecast = withForecast;
+        this.csv = csv;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        List<String> positional = new ArrayList<>();
+        int concurrency = 8;
+        boolean withForecast = true;
+        String format = null;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--concurrency": concurrency = Integer.parseInt(args[++i]); break;
+                case "--format": format = args[++i].toLowerCase(Locale.ROOT); break;
+                case "--no-forecast": withForecast = false; break;
+                default: positional.add(args[i]);
+            }
+        }
+        if (positional.size() != 2 || concurrency < 1) {
+            System.err.println("Usage: BatchMain <cityFile> <outputFile> [--concurrency N] [--format csv|ndjson] [--no-forecast]");
+            System.exit(2);
+        }
+        Path input = Paths.get(positional.get(0));
+        Path output = Paths.get(positional.get(1));
+        boolean csv = format != null ? format.equals("csv") : output.getFileName().toString().endsWith(".csv");
+
+        int failures = new BatchMain(new WeatherApiClient(), concurrency, withForecast, csv).run(input, output);
+        System.exit(failures == 0 ? 0 : 1);
+    }
+
+    /**
+     * Exports every city in the input file that an earlier, interrupted run did not finish.
+     * @return The number of cities that could not be exported.
+     */
+    public int run(Path input, Path outputFile) throws IOException, InterruptedException {
+        Path checkpointFile = outputFile.resolveSibling(outputFile.getFileName() + ".checkpoint");
+        BitSet done = readCheckpoint(checkpointFile);
+        boolean resuming = done != null;
+        if (!resuming) done = new BitSet();
+        openFiles(outputFile, checkpointFile, resuming);
+        // On Ctrl-C, keep what was written so far and record it, so the next run resumes from there.
+        Thread closeOnExit = new Thread(this::close);
+        Runtime.getRuntime().addShutdownHook(closeOnExit);
+        if (resuming) {
+            System.out.println("Resuming: " + done.cardinality() + " cities already exported to " + outputFile);
+        }
+
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency, runnable -> {
+            Thread thread = new Thread(runnable, "batch-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Bounds the work read ahead of the workers, so a huge list is never queued in memory at once.
+        Semaphore inFlight = new Semaphore(concurrency * 2);
+        long startNanos = System.nanoTime();
+
+        try (BufferedReader reader = Files.newBufferedReader(input, StandardCharsets.UTF_8)) {
+            List<Line> idGroup = new ArrayList<>(GROUP_SIZE);
+            String text;
+            int number = 0;
+            while ((text = reader.readLine()) != null) {
+                number++;
+                text = text.trim();
+                if (text.isEmpty() || text.startsWith("#") || done.get(number)) continue;
+                Line line = new Line(number, text);
+                if (line.cityId >= 0) {
+                    idGroup.add(line);
+                    if (idGroup.size() == GROUP_SIZE) {
+                        submit(workers, inFlight, idGroup);
+                        idGroup = new ArrayList<>(GROUP_SIZE);
+                    }
+                } else {
+                    submit(workers, inFlight, Collections.singletonList(line));
+                }
+            }
+            if (!idGroup.isEmpty()) submit(workers, inFlight, idGroup);
+        } finally {
+            workers.shutdown();
+            workers.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        }
+
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        boolean finished = close();
+        Runtime.getRuntime().removeShutdownHook(closeOnExit);
+        if (finished && failed.get() == 0) Files.deleteIfExists(checkpointFile);
+        System.out.printf(Locale.ROOT, "Exported %d cities in %.1f s (%.1f cities/s), %d failed%n",
+                exported.get(), seconds, exported.get() / Math.max(seconds, 1e-9), failed.get());
+        System.out.printf(Locale.ROOT, "Latency per city: p50 %.1f ms, p99 %.1f ms, max %.1f ms; waited for the rate limit %d times%n",
+                latency.getPercentileMillis(50), latency.getPercentileMillis(99), latency.getMaxMillis(), throttledWaits.get());
+        if (failed.get() > 0) {
+            System.out.println("Run again with the same arguments to retry the failed cities.");
+        }
+        return failed.get();
+    }
+
+    private void submit(ExecutorService workers, Semaphore inFlight, List<Line> lines) throws InterruptedException {
+        inFlight.acquire();
+        workers.execute(() -> {
+            try {
+                export(lines);
+            } finally {
+                inFlight.release();
+            }
+        });
+    }
+
+    private void export(List<Line> lines) {
+        long startNanos = System.nanoTime();
+        Map<Long, WeatherData> group = null;
+        if (lines.get(0).cityId >= 0) {
+            List<Long> cityIds = new ArrayList<>(lines.size());
+            for (Line line : lines) cityIds.add(line.cityId);
+            try {
+                group = throttled(() -> apiClient.getCurrentWeatherForCities(cityIds));
+            } catch (ApiException e) {
+                for (Line line : lines) fail(line, e);
+                return;
+            }
+        }
+        for (Line line : lines) {
+            try {
+                WeatherData weather;
+                if (group != null) {
+                    weather = group.get(line.cityId);
+                    if (weather == null) throw new ApiException(ApiException.Kind.NOT_FOUND, 404, "City not found");
+                } else {
+                    weather = throttled(() -> apiClient.getCurrentWeather(line.text));
+                }
+                List<ForecastData> forecast = withForecast
+                        ? throttled(() -> line.cityId >= 0 ? apiClient.getFiveDayForecast(line.cityId) : apiClient.getFiveDayForecast(line.text))
+                        : Collections.emptyList();
+                write(line, weather, forecast);
+                // Cities fetched as a group share the group call, so each one's latency includes it.
+                latency.recordSince(startNanos);
+                exported.incrementAndGet();
+            } catch (ApiException e) {
+                fail(line, e);
+            } catch (UncheckedIOException e) {
+                System.err.println("Line " + line.number + " (" + line.text + "): could not write: " + e.getCause().getMessage());
+                failed.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Runs a call, waiting and trying again for as long as the client turns it away before it reaches
+     * upstream: the export is meant to take as long as the API plan's quota requires, not to fail.
+     */
+    private <T> T throttled(Call<T> call) throws ApiException {
+        while (true) {
+            try {
+                return call.run();
+            } catch (ApiException e) {
+                boolean local = e.getStatusCode() == 0
+                        && (e.getKind() == ApiException.Kind.RATE_LIMITED || e.getKind() == ApiException.Kind.CIRCUIT_OPEN);
+                if (!local) throw e;
+                throttledWaits.incrementAndGet();
+                try {
+                    Thread.sleep(Math.max(THROTTLED_RETRY_MILLIS, e.getRetryAfterMillis()));
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private void fail(Line line, ApiException e) {
+        failed.incrementAndGet();
+        System.err.println("Line " + line.number + " (" + line.text + "): " + e.getMessage());
+    }
+
+    private synchronized void openFiles(Path outputFile, Path checkpointFile, boolean resuming) throws IOException {
+        boolean writeHeader = csv && (!resuming || !Files.exists(outputFile) || Files.size(outputFile) == 0);
+        StandardOpenOption mode = resuming ? StandardOpenOption.APPEND : StandardOpenOption.TRUNCATE_EXISTING;
+        output = Files.newBufferedWriter(outputFile, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.WRITE, mode);
+        checkpoint = Files.newBufferedWriter(checkpointFile, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.WRITE, mode);
+        if (writeHeader) output.write(csvHeader());
+        // Create the checkpoint straight away, so a run interrupted before its first flush still resumes.
+        checkpoint.flush();
+    }
+
+    private synchronized void write(Line line, WeatherData weather, List<ForecastData> forecast) {
+        // After close() the process is exiting; the row is left for the next run, as it was never recorded.
+        if (closed) return;
+        try {
+            output.write(csv ? csvRow(line, weather, forecast) : jsonLine(line, weather, forecast));
+            checkpoint.write(line.number + "\n");
+            if (++rowsSinceFlush >= CHECKPOINT_INTERVAL) flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // The output is flushed first, so the checkpoint never names a line whose row could be lost.
+    private void flush() throws IOException {
+        output.flush();
+        checkpoint.flush();
+        rowsSinceFlush = 0;
+    }
+
+    /**
+     * Flushes and closes the output and the checkpoint; rows finishing afterwards are dropped.
+     * @return Whether both were written out completely.
+     */
+    private synchronized boolean close() {
+        if (closed || output == null) return !closed;
+        closed = true;
+        try {
+            flush();
+            output.close();
+            checkpoint.close();
+            return true;
+        } catch (IOException e) {
+            System.err.println("Failed to save the export: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private static BitSet readCheckpoint(Path checkpointFile) throws IOException {
+        if (!Files.exists(checkpointFile)) return null;
+        BitSet done = new BitSet();
+        try (BufferedReader reader = Files.newBufferedReader(checkpointFile, StandardCharsets.UTF_8)) {
+            String text;
+            while ((text = reader.readLine()) != null) {
+                // A line cut short by a crash is ignored; that city is simply exported again.
+                try {
+                    done.set(Integer.parseInt(text.trim()));
+                } catch (NumberFormatException ignored) {
+                }
+            }
+        }
+        return done;
+    }
+
+    private static String csvHeader() {
+        StringBuilder header = new StringBuilder(
+                "input,cityId,cityName,temperature,description,iconCode,windSpeed,humidity,sunrise,sunset,observedAt");
+        for (int day = 1; day <= FORECAST_DAYS; day++) {
+            header.append(",day").append(day).append(",day").append(day).append("Temperature,day").append(day).append("Icon");
+        }
+        return header.append('\n').toString();
+    }
+
+    private static String csvRow(Line line, WeatherData weather, List<ForecastData> forecast) {
+        StringBuilder row = new StringBuilder(256);
+        appendCsv(row, line.text).append(',').append(weather.getCityId()).append(',');
+        appendCsv(row, weather.getCityName()).append(',').append(weather.getTemperature()).append(',');
+        appendCsv(row, weather.getDescription()).append(',');
+        appendCsv(row, weather.getIconCode()).append(',').append(weather.getWindSpeed())
+                .append(',').append(weather.getHumidity())
+                .append(',').append(weather.getSunrise())
+                .append(',').append(weather.getSunset())
+                .append(',').append(weather.getObservedAt());
+        for (int day = 0; day < FORECAST_DAYS; day++) {
+            if (day < forecast.size()) {
+                ForecastData entry = forecast.get(day);
+                row.append(',');
+                appendCsv(row, entry.getDayOfWeek()).append(',').append(entry.getTemperature()).append(',');
+                appendCsv(row, entry.getIconCode());
+            } else {
+                row.append(",,,");
+            }
+        }
+        return row.append('\n').toString();
+    }
+
+    private static StringBuilder appendCsv(StringBuilder row, String value) {
+        if (value == null) return row;
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return row.append(value);
+        }
+        return row.append('"').append(value.replace("\"", "\"\"")).append('"');
+    }
+
+    private static String jsonLine(Line line, WeatherData weather, List<ForecastData> forecast) {
+        StringBuilder json = new StringBuilder(512);
+        json.append("{\"input\":\"").append(JSONValue.escape(line.text)).append("\",\"weather\":");
+        json.append(ModelJson.toJson(weather));
+        if (!forecast.isEmpty()) json.append(",\"forecast\":").append(ModelJson.toJson(forecast));
+        return json.append("}\n").toString();
+    }
+
+    /**
+     * One city from the input file: an ID if the line is all digits, otherwise a name.
+     */
+    private static final class Line {
+        final int number;
+        final String text;
+        final long cityId;
+
+        Line(int number, String text) {
+            this.number = number;
+            this.text = text;
+            this.cityId = text.chars().allMatch(Character::isDigit) && text.length() < 19 ? Long.parseLong(text) : -1;
+        }
+    }
+
+    private interface Call<T> {
+        T run() throws ApiException;
+    }
+}
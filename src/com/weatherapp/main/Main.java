@@ -1,6 +1,9 @@
 package com.weatherapp.main;
 
 import com.weatherapp.gui.WeatherAppGui;
+import com.weatherapp.metrics.Metrics;
+import com.weatherapp.metrics.StartupTimings;
+import com.weatherapp.util.AssetPreloader;
 import javax.swing.SwingUtilities;
 
 /**
@@ -9,15 +12,27 @@ import javax.swing.SwingUtilities;
  */
 public class Main {
     public static void main(String[] args) {
+        StartupTimings.mark("main");
+
+        // Parse the fonts and decode the icons on background threads while the window is being built.
+        AssetPreloader.start().thenRun(() -> StartupTimings.mark("assets loaded"));
+
         // All Swing GUI updates must be done on the Event Dispatch Thread (EDT)
         // for thread safety. SwingUtilities.invokeLater ensures that the GUI
         // creation and visibility are handled correctly on the EDT.
         SwingUtilities.invokeLater(new Runnable() {
             @Override
             public void run() {
-                // Create and display the main GUI window.
-                new WeatherAppGui().setVisible(true);
+                // Create and display the main GUI window. It reports the startup timings once painted.
+                WeatherAppGui gui = new WeatherAppGui();
+                StartupTimings.mark("window built");
+                gui.setVisible(true);
             }
         });
+
+        // Publish latency histograms and counters over JMX and log them periodically.
+        // Registering with JMX is slow, so it runs here on the main thread, alongside the EDT.
+        Metrics.start();
+        StartupTimings.mark("metrics started");
     }
 }
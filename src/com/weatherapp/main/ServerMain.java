@@ -0,0 +1,37 @@
+package com.weatherapp.main;
+
+import com.weatherapp.api.WeatherApiClient;
+import com.weatherapp.metrics.Metrics;
+import com.weatherapp.search.CityIndex;
+import com.weatherapp.server.WeatherServer;
+import com.weatherapp.util.AppConfig;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * The entry point for running the app headless, as a shared weather service for many dashboards.
+ * Usage: {@code ServerMain [port] [workerThreads]}, defaulting to port 8080 and 64 worker threads.
+ */
+public class ServerMain {
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+        int workerThreads = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+
+        Metrics.start();
+        // Nearest-city queries need OpenWeatherMap's city list; everything else works without it.
+        String cityListFile = AppConfig.getDefault().getString("search.cityListFile", "");
+        Path cityList = cityListFile.isEmpty() ? CityIndex.defaultCityListPath() : Paths.get(cityListFile);
+        CityIndex cityIndex = null;
+        try {
+            cityIndex = CityIndex.openOrBuild(cityList, CityIndex.defaultIndexPath());
+        } catch (IOException e) {
+            System.err.println("Nearby cities unavailable: " + e.getMessage());
+        }
+        WeatherServer server = new WeatherServer(new WeatherApiClient(), cityIndex, port, workerThreads);
+        Runtime.getRuntime().addShutdownHook(new Thread(server::stop));
+        server.start();
+        System.out.println("Weather service listening on http://localhost:" + server.getPort() + "/");
+    }
+}
@@ -0,0 +1,13 @@
+package com.weatherapp.metrics;
+
+import java.util.Map;
+
+/**
+ * The JMX view of the failure and cache counters, registered as {@code com.weatherapp:type=Counters}.
+ */
+public interface CountersMXBean {
+    /**
+     * @return Every counter's current value, keyed by its name.
+     */
+    Map<String, Long> getCounters();
+}
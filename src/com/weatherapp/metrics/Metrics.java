@@ -0,0 +1,179 @@
+package com.weatherapp.metrics;
+
+import com.weatherapp.util.AppConfig;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * The application-wide registry of latency histograms and counters.
+ * <p>
+ * Each stage a weather update passes through has one {@link LatencyHistogram}, so comparing
+ * their percentiles shows which stage dominates what the user waits for. Recording is always on
+ * and lock-free; {@link #start()} additionally publishes everything over JMX and logs a summary
+ * periodically.
+ */
+public class Metrics {
+    private static final Logger LOGGER = Logger.getLogger(Metrics.class.getName());
+
+    /** The timed stages of fetching and showing weather, in the order they happen. */
+    public enum Stage {
+        /** Finding type-ahead matches for the search field in the local city index. */
+        CITY_LOOKUP,
+        /** Sending the request until the response headers arrive. */
+        HTTP_CALL,
+        /** Time spent waiting on the network for response body bytes. */
+        BODY_READ,
+        /** Tokenizing the JSON body, excluding the time spent in BODY_READ. */
+        JSON_PARSE,
+        /** Turning parsed fields into model objects, e.g. picking one forecast entry per day. */
+        MODEL_BUILD,
+        /** Looking up, decoding or scaling a weather icon. */
+        ICON_LOAD,
+        /** Updating the Swing components on the EDT. */
+        SWING_UPDATE,
+        /** From a search being submitted until its result is on screen. */
+        WEATHER_UPDATE
+    }
+
+    /** Events counted across the application. */
+    public enum Counter {
+        API_REQUESTS,
+        API_FAILURES,
+        API_RETRIES,
+        HTTP_ERRORS,
+        CIRCUIT_OPEN_REJECTIONS,
+        RATE_LIMIT_REJECTIONS,
+        PARSE_FAILURES,
+        CACHE_HITS,
+        CACHE_STALE_HITS,
+        CACHE_MISSES,
+        ICON_LOAD_FAILURES
+    }
+
+    private static final Map<Stage, LatencyHistogram> HISTOGRAMS = new EnumMap<>(Stage.class);
+    private static final LongAdder[] COUNTERS = new LongAdder[Counter.values().length];
+    private static boolean started;
+
+    static {
+        for (Stage stage : Stage.values()) {
+            HISTOGRAMS.put(stage, new LatencyHistogram());
+        }
+        for (int i = 0; i < COUNTERS.length; i++) {
+            COUNTERS[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * @return The histogram for a stage. The same instance is returned for the life of the application.
+     */
+    public static LatencyHistogram histogram(Stage stage) {
+        return HISTOGRAMS.get(stage);
+    }
+
+    /**
+     * Records the time elapsed since a {@link System#nanoTime()} reading against a stage.
+     */
+    public static void recordSince(Stage stage, long startNanos) {
+        HISTOGRAMS.get(stage).recordSince(startNanos);
+    }
+
+    public static void increment(Counter counter) {
+        COUNTERS[counter.ordinal()].increment();
+    }
+
+    public static long count(Counter counter) {
+        return COUNTERS[counter.ordinal()].sum();
+    }
+
+    /**
+     * @return Every counter's current value, keyed by name in declaration order.
+     */
+    public static Map<String, Long> counters() {
+        Map<String, Long> values = new LinkedHashMap<>();
+        for (Counter counter : Counter.values()) {
+            values.put(counter.name(), count(counter));
+        }
+        return values;
+    }
+
+    /**
+     * Registers the JMX MBeans and, if {@code metrics.logIntervalSeconds} is positive, starts
+     * logging a summary at that interval. Calling this more than once has no further effect.
+     */
+    public static synchronized void start() {
+        if (started) return;
+        started = true;
+        registerMBeans();
+
+        long intervalSeconds = AppConfig.getDefault().getLong("metrics.logIntervalSeconds", 60);
+        if (intervalSeconds > 0) {
+            ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "metrics-log");
+                thread.setDaemon(true);
+                return thread;
+            });
+            scheduler.scheduleAtFixedRate(() -> LOGGER.info(summary()), intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * @return A multi-line summary of every stage that has recorded something, followed by the counters.
+     */
+    public static String summary() {
+        StringBuilder summary = new StringBuilder("Weather app metrics:");
+        for (Stage stage : Stage.values()) {
+            LatencyHistogram histogram = HISTOGRAMS.get(stage);
+            if (histogram.getCount() > 0) {
+                summary.append(System.lineSeparator()).append("  ").append(stage).append(": ").append(histogram);
+            }
+        }
+        return summary.append(System.lineSeparator()).append("  counters: ").append(counters()).toString();
+    }
+
+    private static void registerMBeans() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            for (Stage stage : Stage.values()) {
+                server.registerMBean(new StageLatency(HISTOGRAMS.get(stage)),
+                        new ObjectName("com.weatherapp:type=Latency,stage=" + stage.name()));
+            }
+            server.registerMBean(new Counters(), new ObjectName("com.weatherapp:type=Counters"));
+        } catch (JMException e) {
+            System.err.println("Could not register metrics MBeans: " + e.getMessage());
+        }
+    }
+
+    private static class StageLatency implements StageLatencyMXBean {
+        private final LatencyHistogram histogram;
+
+        StageLatency(LatencyHistogram histogram) {
+            this.histogram = histogram;
+        }
+
+        @Override public long getCount() { return histogram.getCount(); }
+        @Override public double getMeanMillis() { return histogram.getMeanMillis(); }
+        @Override public double getP50Millis() { return histogram.getPercentileMillis(50); }
+        @Override public double getP90Millis() { return histogram.getPercentileMillis(90); }
+        @Override public double getP99Millis() { return histogram.getPercentileMillis(99); }
+        @Override public double getMaxMillis() { return histogram.getMaxMillis(); }
+        @Override public void reset() { histogram.reset(); }
+    }
+
+    private static class Counters implements CountersMXBean {
+        @Override
+        public Map<String, Long> getCounters() {
+            return counters();
+        }
+    }
+}
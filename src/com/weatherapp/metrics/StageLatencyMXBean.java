@@ -0,0 +1,17 @@
+package com.weatherapp.metrics;
+
+/**
+ * The JMX view of one stage's {@link LatencyHistogram}, registered as
+ * {@code com.weatherapp:type=Latency,stage=<STAGE>}. All times are in milliseconds.
+ */
+public interface StageLatencyMXBean {
+    long getCount();
+    double getMeanMillis();
+    double getP50Millis();
+    double getP90Millis();
+    double getP99Millis();
+    double getMaxMillis();
+
+    /** Clears the histogram, e.g. before reproducing a slow interaction. */
+    void reset();
+}
@@ -0,0 +1,50 @@
+package com.weatherapp.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * Records when each phase of startup finished, measured from the moment the JVM started.
+ * <p>
+ * Phases may finish on any thread and in any order. {@link #report()} logs everything recorded
+ * so far on one line; a phase that finishes after that is logged on its own.
+ */
+public final class StartupTimings {
+    private static final Logger LOGGER = Logger.getLogger(StartupTimings.class.getName());
+    private static final long JVM_START_MILLIS = ManagementFactory.getRuntimeMXBean().getStartTime();
+
+    private static final Map<String, Long> phases = new LinkedHashMap<>();
+    private static boolean reported;
+
+    private StartupTimings() {
+    }
+
+    /**
+     * Records that a phase has just finished. Only the first mark of each phase counts.
+     * @param phase A short name, e.g. "window built".
+     */
+    public static synchronized void mark(String phase) {
+        if (phases.containsKey(phase)) return;
+        long elapsed = System.currentTimeMillis() - JVM_START_MILLIS;
+        phases.put(phase, elapsed);
+        if (reported) {
+            LOGGER.info("Startup: " + phase + " at " + elapsed + " ms");
+        }
+    }
+
+    /**
+     * Logs every phase recorded so far. Calling this more than once has no further effect.
+     */
+    public static synchronized void report() {
+        if (reported) return;
+        reported = true;
+        StringBuilder line = new StringBuilder("Startup (ms since JVM start):");
+        for (Map.Entry<String, Long> phase : phases.entrySet()) {
+            line.append(' ').append(phase.getKey()).append('=').append(phase.getValue()).append(';');
+        }
+        if (!phases.isEmpty()) line.setLength(line.length() - 1);
+        LOGGER.info(line.toString());
+    }
+}
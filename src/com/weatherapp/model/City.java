@@ -0,0 +1,51 @@
+package com.weatherapp.model;
+
+/**
+ * A data model class (POJO) for one entry of the OpenWeatherMap city list.
+ */
+public class City {
+    private final long id;
+    private final String name;
+    private final String state;
+    private final String country;
+    private final double latitude;
+    private final double longitude;
+
+    /**
+     * @param id The OpenWeatherMap city ID.
+     * @param state The state code, e.g. "IL" for US cities, or an empty string.
+     * @param country The ISO 3166 country code, or an empty string.
+     */
+    public City(long id, String name, String state, String country, double latitude, double longitude) {
+        this.id = id;
+        this.name = name;
+        this.state = state;
+        this.country = country;
+        this.latitude = latitude;
+        this.longitude = longitude;
+    }
+
+    // Getters for all private fields.
+    public long getId() { return id; }
+    public String getName() { return name; }
+    public String getState() { return state; }
+    public String getCountry() { return country; }
+    public double getLatitude() { return latitude; }
+    public double getLongitude() { return longitude; }
+
+    /**
+     * @return The name followed by the state and country, e.g. "Springfield, IL, US",
+     *         which tells apart cities sharing a name.
+     */
+    public String getLabel() {
+        StringBuilder label = new StringBuilder(name);
+        if (!state.isEmpty()) label.append(", ").append(state);
+        if (!country.isEmpty()) label.append(", ").append(country);
+        return label.toString();
+    }
+
+    @Override
+    public String toString() {
+        return getLabel();
+    }
+}
@@ -1,5 +1,7 @@
 package com.weatherapp.model;
 
+import java.util.Objects;
+
 /**
  * A data model class (POJO) that holds the essential weather information
  * for a single day in the 5-day forecast.
@@ -19,4 +21,19 @@ public class ForecastData {
     public String getDayOfWeek() { return dayOfWeek; }
     public double getTemperature() { return temperature; }
     public String getIconCode() { return iconCode; }
+
+    // Value equality lets the forecast row skip rebuilding when a refresh brings the same forecast.
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ForecastData)) return false;
+        ForecastData other = (ForecastData) o;
+        return Double.compare(temperature, other.temperature) == 0
+                && Objects.equals(dayOfWeek, other.dayOfWeek) && Objects.equals(iconCode, other.iconCode);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(dayOfWeek, temperature, iconCode);
+    }
 }
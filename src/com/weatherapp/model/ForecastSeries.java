@@ -0,0 +1,308 @@
+package com.weatherapp.model;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Every time step of a forecast, held column by column in primitive arrays.
+ * <p>
+ * The 5-day endpoint returns 40 three-hourly samples. Keeping them as parallel arrays instead of
+ * one object per sample means aggregations, charts and downsampling are plain loops over
+ * {@code float[]} with no boxing or per-sample allocation, and the memory cost stays small as
+ * series grow to hourly or long-range data. The one-entry-per-day {@link ForecastData} summary
+ * shown in the forecast row is derived from it with {@link #toDailySummary(ZoneId, int)}.
+ * <p>
+ * Instances are immutable; build them with {@link Builder}.
+ */
+public final class ForecastSeries {
+    /** The icon ID stored for a missing or unrecognized icon code. */
+    public static final short UNKNOWN_ICON = -1;
+
+    private static final String[] ICON_CODES_BY_ID = new String[200];
+    private static final DateTimeFormatter DAY_FORMATTER = DateTimeFormatter.ofPattern("EEE");
+    private static final long SECONDS_PER_DAY = 86_400;
+
+    static {
+        for (int number = 0; number < 100; number++) {
+            ICON_CODES_BY_ID[number * 2] = String.format("%02dd", number);
+            ICON_CODES_BY_ID[number * 2 + 1] = String.format("%02dn", number);
+        }
+    }
+
+    private final int size;
+    private final long[] timestamps;
+    private final float[] temperatures;
+    private final float[] humidities;
+    private final float[] windSpeeds;
+    private final short[] iconIds;
+    private final float[] precipitationProbabilities;
+
+    private ForecastSeries(int size, long[] timestamps, float[] temperatures, float[] humidities,
+                           float[] windSpeeds, short[] iconIds, float[] precipitationProbabilities) {
+        this.size = size;
+        this.timestamps = timestamps;
+        this.temperatures = temperatures;
+        this.humidities = humidities;
+        this.windSpeeds = windSpeeds;
+        this.iconIds = iconIds;
+        this.precipitationProbabilities = precipitationProbabilities;
+    }
+
+    /**
+     * Encodes an OpenWeatherMap icon code such as "10n" as a small number: the condition number
+     * times two, plus one for the night variant.
+     * @return The icon ID, or {@link #UNKNOWN_ICON} if the code is not in that format.
+     */
+    public static short iconId(String iconCode) {
+        if (iconCode == null || iconCode.length() != 3) return UNKNOWN_ICON;
+        char tens = iconCode.charAt(0), ones = iconCode.charAt(1), variant = iconCode.charAt(2);
+        if (tens < '0' || tens > '9' || ones < '0' || ones > '9' || (variant != 'd' && variant != 'n')) {
+            return UNKNOWN_ICON;
+        }
+        return (short) (((tens - '0') * 10 + (ones - '0')) * 2 + (variant == 'n' ? 1 : 0));
+    }
+
+    /**
+     * Decodes an icon ID back into its code. The strings are shared, so this never allocates.
+     * @return The icon code, or null for {@link #UNKNOWN_ICON}.
+     */
+    public static String iconCode(short iconId) {
+        return iconId >= 0 && iconId < ICON_CODES_BY_ID.length ? ICON_CODES_BY_ID[iconId] : null;
+    }
+
+    // Per-sample accessors. Index 0 is the earliest sample.
+    public int size() { return size; }
+    public long getTimestamp(int index) { return timestamps[checkIndex(index)]; }
+    public float getTemperature(int index) { return temperatures[checkIndex(index)]; }
+    public float getHumidity(int index) { return humidities[checkIndex(index)]; }
+    public float getWindSpeed(int index) { return windSpeeds[checkIndex(index)]; }
+    public short getIconId(int index) { return iconIds[checkIndex(index)]; }
+    public String getIconCode(int index) { return iconCode(iconIds[checkIndex(index)]); }
+    /** @return The probability of precipitation from 0 to 1 (the API's "pop"), or NaN if unknown. */
+    public float getPrecipitationProbability(int index) { return precipitationProbabilities[checkIndex(index)]; }
+
+    /**
+     * Groups the samples by calendar day in the given zone and computes temperature statistics
+     * for each day in a single pass.
+     * @param zone The zone whose midnight separates the days.
+     * @return The per-day statistics, in time order.
+     */
+    public DailyStats daily(ZoneId zone) {
+        DailyStats stats = new DailyStats(size);
+        DayClock clock = new DayClock(zone);
+        long currentDay = Long.MIN_VALUE;
+        double sum = 0;
+        for (int i = 0; i < size; i++) {
+            long day = clock.epochDay(timestamps[i]);
+            float temperature = temperatures[i];
+            if (day != currentDay) {
+                if (stats.dayCount > 0) stats.meanTemperatures[stats.dayCount - 1] = (float) (sum / stats.sampleCounts[stats.dayCount - 1]);
+                int d = stats.dayCount++;
+                stats.epochDays[d] = day;
+                stats.firstIndexes[d] = i;
+                stats.minTemperatures[d] = temperature;
+                stats.maxTemperatures[d] = temperature;
+                currentDay = day;
+                sum = 0;
+            }
+            int d = stats.dayCount - 1;
+            stats.sampleCounts[d]++;
+            if (temperature < stats.minTemperatures[d]) stats.minTemperatures[d] = temperature;
+            if (temperature > stats.maxTemperatures[d]) stats.maxTemperatures[d] = temperature;
+            sum += temperature;
+        }
+        if (stats.dayCount > 0) stats.meanTemperatures[stats.dayCount - 1] = (float) (sum / stats.sampleCounts[stats.dayCount - 1]);
+        return stats;
+    }
+
+    /**
+     * Derives the forecast row's summary: for each day after today, the first sample of that day.
+     * @param zone The zone that decides what "today" and each day's first sample are.
+     * @param maxDays The most days to return.
+     * @return One ForecastData per day, at most {@code maxDays}.
+     */
+    public List<ForecastData> toDailySummary(ZoneId zone, int maxDays) {
+        long today = LocalDate.now(zone).toEpochDay();
+        DailyStats stats = daily(zone);
+        List<ForecastData> summary = new ArrayList<>(maxDays);
+        for (int d = 0; d < stats.getDayCount() && summary.size() < maxDays; d++) {
+            if (stats.getEpochDay(d) == today) continue;
+            int first = stats.getFirstIndex(d);
+            // The API reports two decimals; rounding drops the float-to-double widening noise.
+            double temperature = Math.round(temperatures[first] * 100.0) / 100.0;
+            summary.add(new ForecastData(DAY_FORMATTER.format(LocalDate.ofEpochDay(stats.getEpochDay(d))),
+                    temperature, iconCode(iconIds[first])));
+        }
+        return summary;
+    }
+
+    /**
+     * Reduces the series to at most {@code maxPoints} samples by averaging consecutive buckets,
+     * e.g. to fit a chart narrower than the number of samples. Each bucket keeps its first
+     * timestamp and its middle sample's icon.
+     * @return A downsampled series, or this series if it is already small enough.
+     */
+    public ForecastSeries downsample(int maxPoints) {
+        if (maxPoints <= 0) throw new IllegalArgumentException("maxPoints must be positive");
+        if (size <= maxPoints) return this;
+        int bucketSize = (size + maxPoints - 1) / maxPoints;
+        Builder builder = new Builder((size + bucketSize - 1) / bucketSize);
+        for (int start = 0; start < size; start += bucketSize) {
+            int end = Math.min(start + bucketSize, size);
+            double temperature = 0, humidity = 0, wind = 0;
+            float precipitation = Float.NaN;
+            for (int i = start; i < end; i++) {
+                temperature += temperatures[i];
+                humidity += humidities[i];
+                wind += windSpeeds[i];
+                // The chance of precipitation over a bucket is at least that of its likeliest step.
+                if (!(precipitationProbabilities[i] <= precipitation)) precipitation = precipitationProbabilities[i];
+            }
+            int count = end - start;
+            builder.add(timestamps[start], (float) (temperature / count), (float) (humidity / count),
+                    (float) (wind / count), iconIds[start + count / 2], precipitation);
+        }
+        return builder.build();
+    }
+
+    private int checkIndex(int index) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException("Index " + index + ", size " + size);
+        return index;
+    }
+
+    /**
+     * Temperature statistics per calendar day, as parallel arrays indexed by day.
+     */
+    public static final class DailyStats {
+        private int dayCount;
+        private final long[] epochDays;
+        private final int[] firstIndexes;
+        private final int[] sampleCounts;
+        private final float[] minTemperatures;
+        private final float[] maxTemperatures;
+        private final float[] meanTemperatures;
+
+        private DailyStats(int capacity) {
+            epochDays = new long[capacity];
+            firstIndexes = new int[capacity];
+            sampleCounts = new int[capacity];
+            minTemperatures = new float[capacity];
+            maxTemperatures = new float[capacity];
+            meanTemperatures = new float[capacity];
+        }
+
+        public int getDayCount() { return dayCount; }
+        public long getEpochDay(int day) { return epochDays[day]; }
+        /** @return The series index of the day's first sample. */
+        public int getFirstIndex(int day) { return firstIndexes[day]; }
+        public int getSampleCount(int day) { return sampleCounts[day]; }
+        public float getMinTemperature(int day) { return minTemperatures[day]; }
+        public float getMaxTemperature(int day) { return maxTemperatures[day]; }
+        public float getMeanTemperature(int day) { return meanTemperatures[day]; }
+    }
+
+    /**
+     * Maps epoch seconds to local epoch days. The zone offset is looked up again only when a
+     * timestamp crosses the next offset transition, so the common case is plain arithmetic.
+     * Fastest when timestamps come in time order. Not thread-safe; use one per thread.
+     */
+    public static final class DayClock {
+        private final ZoneRules rules;
+        private long validFrom = Long.MAX_VALUE;
+        private long validUntil = Long.MIN_VALUE;
+        private int offsetSeconds;
+
+        public DayClock(ZoneId zone) {
+            this.rules = zone.getRules();
+        }
+
+        public long epochDay(long epochSecond) {
+            if (epochSecond < validFrom || epochSecond >= validUntil) {
+                Instant instant = Instant.ofEpochSecond(epochSecond);
+                offsetSeconds = rules.getOffset(instant).getTotalSeconds();
+                ZoneOffsetTransition next = rules.nextTransition(instant);
+                validFrom = epochSecond;
+                validUntil = next != null ? next.toEpochSecond() : Long.MAX_VALUE;
+            }
+            return Math.floorDiv(epochSecond + offsetSeconds, SECONDS_PER_DAY);
+        }
+    }
+
+    /**
+     * Accumulates samples into growable primitive arrays while a response is parsed.
+     */
+    public static final class Builder {
+        private int size;
+        private long[] timestamps;
+        private float[] temperatures;
+        private float[] humidities;
+        private float[] windSpeeds;
+        private short[] iconIds;
+        private float[] precipitationProbabilities;
+
+        /**
+         * @param expectedSize The expected number of samples, e.g. the response's {@code cnt}; the arrays grow if it is exceeded.
+         */
+        public Builder(int expectedSize) {
+            int capacity = Math.max(expectedSize, 8);
+            timestamps = new long[capacity];
+            temperatures = new float[capacity];
+            humidities = new float[capacity];
+            windSpeeds = new float[capacity];
+            iconIds = new short[capacity];
+            precipitationProbabilities = new float[capacity];
+        }
+
+        /**
+         * Appends a sample without a precipitation probability. Samples must be added in time order.
+         */
+        public Builder add(long timestamp, float temperature, float humidity, float windSpeed, short iconId) {
+            return add(timestamp, temperature, humidity, windSpeed, iconId, Float.NaN);
+        }
+
+        /**
+         * Appends a sample. Samples must be added in time order.
+         * @param precipitationProbability From 0 to 1, or NaN if unknown.
+         */
+        public Builder add(long timestamp, float temperature, float humidity, float windSpeed, short iconId,
+                           float precipitationProbability) {
+            if (size == timestamps.length) {
+                int capacity = size * 2;
+                timestamps = Arrays.copyOf(timestamps, capacity);
+                temperatures = Arrays.copyOf(temperatures, capacity);
+                humidities = Arrays.copyOf(humidities, capacity);
+                windSpeeds = Arrays.copyOf(windSpeeds, capacity);
+                iconIds = Arrays.copyOf(iconIds, capacity);
+                precipitationProbabilities = Arrays.copyOf(precipitationProbabilities, capacity);
+            }
+            timestamps[size] = timestamp;
+            temperatures[size] = temperature;
+            humidities[size] = humidity;
+            windSpeeds[size] = windSpeed;
+            iconIds[size] = iconId;
+            precipitationProbabilities[size] = precipitationProbability;
+            size++;
+            return this;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        /**
+         * @return A series holding copies of the samples added so far, trimmed to size.
+         */
+        public ForecastSeries build() {
+            return new ForecastSeries(size, Arrays.copyOf(timestamps, size), Arrays.copyOf(temperatures, size),
+                    Arrays.copyOf(humidities, size), Arrays.copyOf(windSpeeds, size), Arrays.copyOf(iconIds, size),
+                    Arrays.copyOf(precipitationProbabilities, size));
+        }
+    }
+}
@@ -5,6 +5,7 @@ package com.weatherapp.model;
  * for the current weather conditions.
  */
 public class WeatherData {
+    private final long cityId;
     private final String cityName;
     private final double temperature;
     private final String description;
@@ -13,8 +14,25 @@ public class WeatherData {
     private final int humidity;
     private final long sunrise;
     private final long sunset;
+    private final long observedAt;
 
     public WeatherData(String cityName, double temperature, String description, String iconCode, double windSpeed, int humidity, long sunrise, long sunset) {
+        this(0, cityName, temperature, description, iconCode, windSpeed, humidity, sunrise, sunset);
+    }
+
+    /**
+     * @param cityId The OpenWeatherMap city ID, or 0 if unknown.
+     */
+    public WeatherData(long cityId, String cityName, double temperature, String description, String iconCode, double windSpeed, int humidity, long sunrise, long sunset) {
+        this(cityId, cityName, temperature, description, iconCode, windSpeed, humidity, sunrise, sunset, 0);
+    }
+
+    /**
+     * @param cityId The OpenWeatherMap city ID, or 0 if unknown.
+     * @param observedAt When the upstream service calculated this data (its "dt" field), in Unix seconds, or 0 if unknown.
+     */
+    public WeatherData(long cityId, String cityName, double temperature, String description, String iconCode, double windSpeed, int humidity, long sunrise, long sunset, long observedAt) {
+        this.cityId = cityId;
         this.cityName = cityName;
         this.temperature = temperature;
         this.description = description;
@@ -23,9 +41,11 @@ public class WeatherData {
         this.humidity = humidity;
         this.sunrise = sunrise;
         this.sunset = sunset;
+        this.observedAt = observedAt;
     }
 
     // Getters for all private fields.
+    public long getCityId() { return cityId; }
     public String getCityName() { return cityName; }
     public double getTemperature() { return temperature; }
     public String getDescription() { return description; }
@@ -34,4 +54,5 @@ public class WeatherData {
     public int getHumidity() { return humidity; }
     public long getSunrise() { return sunrise; }
     public long getSunset() { return sunset; }
+    public long getObservedAt() { return observedAt; }
 }
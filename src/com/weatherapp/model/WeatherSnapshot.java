@@ -0,0 +1,24 @@
+package com.weatherapp.model;
+
+import java.util.List;
+
+/**
+ * A data model class (POJO) that pairs the last known current weather and
+ * 5-day forecast for a city with the time they were fetched.
+ */
+public class WeatherSnapshot {
+    private final WeatherData currentWeather;
+    private final List<ForecastData> forecast;
+    private final long fetchedAt;
+
+    public WeatherSnapshot(WeatherData currentWeather, List<ForecastData> forecast, long fetchedAt) {
+        this.currentWeather = currentWeather;
+        this.forecast = List.copyOf(forecast);
+        this.fetchedAt = fetchedAt;
+    }
+
+    // Getters for all private fields.
+    public WeatherData getCurrentWeather() { return currentWeather; }
+    public List<ForecastData> getForecast() { return forecast; }
+    public long getFetchedAt() { return fetchedAt; }
+}
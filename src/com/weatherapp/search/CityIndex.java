@@ -0,0 +1,424 @@
+package com.weatherapp.search;
+
+import com.weatherapp.api.JsonReader;
+import com.weatherapp.model.City;
+import okio.BufferedSource;
+import okio.Okio;
+import okio.Options;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.logging.Logger;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * A prefix index over the OpenWeatherMap city list, for type-ahead search.
+ * <p>
+ * The list (about 200,000 cities) is converted once into a binary file of fixed-size records
+ * sorted by normalized name, followed by the name strings. The file is memory-mapped rather
+ * than read, so opening it costs almost nothing and the operating system pages in only the
+ * parts a search touches. A search is a binary search for the first name with the prefix,
+ * then a bounded scan of the names that follow; neither allocates per record.
+ * <p>
+ * Names are compared after {@link #normalize(String) normalization}, so "sao" finds "São Paulo".
+ * Instances are immutable and safe to search from any thread.
+ */
+public class CityIndex {
+    private static final Logger LOGGER = Logger.getLogger(CityIndex.class.getName());
+
+    private static final int MAGIC = 0x57434931; // "WCI1"
+    private static final int HEADER_SIZE = 16;
+    // id(8) keyOffset(4) nameOffset(4) keyLength(2) nameLength(2) country(2) state(2) lat(4) lon(4)
+    private static final int RECORD_SIZE = 32;
+    // Matches examined per search. Common one-letter prefixes match tens of thousands of cities;
+    // past this many the ranking is only approximate, which is fine until the user types more.
+    private static final int MAX_SCAN = 2048;
+
+    private static final Options CITY_FIELDS = JsonReader.options("id", "name", "state", "country", "coord");
+    private static final Options COORD_FIELDS = JsonReader.options("lat", "lon");
+
+    private final ByteBuffer buffer;
+    private final int size;
+    private final int stringsStart;
+    private volatile GeoIndex geoIndex; // Built on the first nearest-city query.
+
+    private CityIndex(ByteBuffer buffer, int size, int stringsStart) {
+        this.buffer = buffer;
+        this.size = size;
+        this.stringsStart = stringsStart;
+    }
+
+    /**
+     * @return The default city list location, {@code ~/.weatherapp/city.list.json.gz},
+     *         as downloaded from OpenWeatherMap's bulk data.
+     */
+    public static Path defaultCityListPath() {
+        return Paths.get(System.getProperty("user.home"), ".weatherapp", "city.list.json.gz");
+    }
+
+    /**
+     * @return The default index location, {@code ~/.weatherapp/cities.idx}.
+     */
+    public static Path defaultIndexPath() {
+        return Paths.get(System.getProperty("user.home"), ".weatherapp", "cities.idx");
+    }
+
+    /**
+     * Opens the index, first (re)building it if the city list is newer than the index.
+     * @param cityList The OpenWeatherMap city list, plain or gzipped JSON.
+     * @param indexFile Where the built index is kept.
+     * @return The index, or null if neither the index nor the city list exists.
+     * @throws IOException If the index could not be built or read.
+     */
+    public static CityIndex openOrBuild(Path cityList, Path indexFile) throws IOException {
+        boolean haveList = Files.exists(cityList);
+        if (Files.exists(indexFile) && (!haveList
+                || Files.getLastModifiedTime(indexFile).compareTo(Files.getLastModifiedTime(cityList)) >= 0)) {
+            try {
+                return open(indexFile);
+            } catch (IOException e) {
+                if (!haveList) throw e;
+                LOGGER.warning("Rebuilding unreadable city index " + indexFile + ": " + e.getMessage());
+            }
+        }
+        if (!haveList) return null;
+        build(cityList, indexFile);
+        return open(indexFile);
+    }
+
+    /**
+     * Memory-maps a previously built index.
+     * @throws IOException If the file cannot be read or is not a valid index.
+     */
+    public static CityIndex open(Path indexFile) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(indexFile, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) throw new IOException("City index too large: " + indexFile);
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()); // Stays valid after close.
+        }
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a city index: " + indexFile);
+        }
+        int size = buffer.getInt(4);
+        int stringsStart = buffer.getInt(8);
+        int stringsLength = buffer.getInt(12);
+        if (size < 0 || stringsStart != HEADER_SIZE + (long) size * RECORD_SIZE
+                || (long) stringsStart + stringsLength != buffer.capacity()) {
+            throw new IOException("Corrupt city index: " + indexFile);
+        }
+        return new CityIndex(buffer, size, stringsStart);
+    }
+
+    /**
+     * Converts the OpenWeatherMap city list into an index file. The list is streamed, and the
+     * index is written to a temporary file that atomically replaces any previous one.
+     * @param cityList The city list, gzipped if its name ends in ".gz".
+     * @param indexFile The index file to write.
+     */
+    public static void build(Path cityList, Path indexFile) throws IOException {
+        long start = System.nanoTime();
+        List<Entry> entries = new ArrayList<>(1 << 18);
+        InputStream in = Files.newInputStream(cityList);
+        if (cityList.getFileName().toString().endsWith(".gz")) in = new GZIPInputStream(in, 1 << 16);
+        try (BufferedSource source = Okio.buffer(Okio.source(in))) {
+            JsonReader reader = new JsonReader(source);
+            reader.beginArray();
+            while (reader.hasNext()) {
+                Entry entry = readEntry(reader);
+                if (entry.key.length > 0) entries.add(entry);
+            }
+            reader.endArray();
+        }
+        entries.sort((a, b) -> {
+            int order = Arrays.compareUnsigned(a.key, b.key);
+            return order != 0 ? order : Long.compare(a.id, b.id);
+        });
+
+        Path tempFile = indexFile.resolveSibling(indexFile.getFileName() + ".tmp");
+        Files.createDirectories(indexFile.toAbsolutePath().getParent());
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile), 1 << 16))) {
+            int stringsLength = 0;
+            for (Entry entry : entries) {
+                stringsLength += entry.key.length + (entry.sharesKey() ? 0 : entry.name.length);
+            }
+            out.writeInt(MAGIC);
+            out.writeInt(entries.size());
+            out.writeInt(HEADER_SIZE + entries.size() * RECORD_SIZE);
+            out.writeInt(stringsLength);
+
+            int offset = 0;
+            for (Entry entry : entries) {
+                out.writeLong(entry.id);
+                out.writeInt(offset);
+                out.writeInt(entry.sharesKey() ? offset : offset + entry.key.length);
+                out.writeShort(entry.key.length);
+                out.writeShort(entry.name.length);
+                writeCode(out, entry.country);
+                writeCode(out, entry.state);
+                out.writeFloat(entry.latitude);
+                out.writeFloat(entry.longitude);
+                offset += entry.key.length + (entry.sharesKey() ? 0 : entry.name.length);
+            }
+            for (Entry entry : entries) {
+                out.write(entry.key);
+                if (!entry.sharesKey()) out.write(entry.name);
+            }
+        }
+        Files.move(tempFile, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        LOGGER.info(String.format("Indexed %d cities from %s in %d ms", entries.size(), cityList,
+                (System.nanoTime() - start) / 1_000_000));
+    }
+
+    /**
+     * Folds a name for matching: accents removed, lower case, runs of whitespace collapsed.
+     */
+    public static String normalize(String text) {
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        StringBuilder normalized = new StringBuilder(decomposed.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK) continue;
+            if (Character.isWhitespace(c)) {
+                pendingSpace = normalized.length() > 0;
+                continue;
+            }
+            if (pendingSpace) normalized.append(' ');
+            pendingSpace = false;
+            normalized.append(Character.toLowerCase(c));
+        }
+        return normalized.toString();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param index A record index, from 0 to {@link #size()} - 1.
+     * @return The city stored at that position.
+     */
+    public City get(int index) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException("Index " + index + ", size " + size);
+        int record = HEADER_SIZE + index * RECORD_SIZE;
+        return new City(buffer.getLong(record),
+                readString(buffer.getInt(record + 12), buffer.getShort(record + 18) & 0xFFFF),
+                readCode(record + 22), readCode(record + 20),
+                buffer.getFloat(record + 24), buffer.getFloat(record + 28));
+    }
+
+    /**
+     * Finds the cities whose normalized name starts with the query.
+     * <p>
+     * An exact name match ranks first, then shorter names before longer ones, then alphabetical
+     * order; the city list has no population figures to rank by.
+     * @param query The text typed so far.
+     * @param limit The most matches to return.
+     * @return The best matches, best first; empty if the query is blank.
+     */
+    public List<City> search(String query, int limit) {
+        byte[] prefix = normalize(query).getBytes(StandardCharsets.UTF_8);
+        if (prefix.length == 0 || limit <= 0) return List.of();
+
+        // The best matches so far, ordered by key length; scanning in key order keeps ties alphabetical.
+        int[] best = new int[limit];
+        int[] bestLengths = new int[limit];
+        int found = 0;
+        int first = lowerBound(prefix);
+        int end = Math.min(size, first + MAX_SCAN);
+        for (int i = first; i < end && startsWith(i, prefix); i++) {
+            int length = keyLength(i);
+            if (found == limit && length >= bestLengths[limit - 1]) continue;
+            int slot = found < limit ? found++ : limit - 1;
+            while (slot > 0 && bestLengths[slot - 1] > length) {
+                best[slot] = best[slot - 1];
+                bestLengths[slot] = bestLengths[slot - 1];
+                slot--;
+            }
+            best[slot] = i;
+            bestLengths[slot] = length;
+        }
+
+        List<City> matches = new ArrayList<>(found);
+        for (int i = 0; i < found; i++) {
+            matches.add(get(best[i]));
+        }
+        return matches;
+    }
+
+    /**
+     * Finds the cities nearest to a point, by great-circle distance. The first query builds a
+     * spatial index over every city, which takes a fraction of a second; later queries take
+     * microseconds.
+     * @param latitude The point's latitude in degrees.
+     * @param longitude The point's longitude in degrees.
+     * @param limit The most cities to return.
+     * @return The nearest cities, nearest first.
+     */
+    public List<City> nearest(double latitude, double longitude, int limit) {
+        int[] records = geoIndex().nearest(latitude, longitude, limit);
+        List<City> cities = new ArrayList<>(records.length);
+        for (int record : records) {
+            cities.add(get(record));
+        }
+        return cities;
+    }
+
+    private GeoIndex geoIndex() {
+        GeoIndex index = geoIndex;
+        if (index == null) {
+            synchronized (this) {
+                index = geoIndex;
+                if (index == null) {
+                    long start = System.nanoTime();
+                    float[] latitudes = new float[size];
+                    float[] longitudes = new float[size];
+                    for (int i = 0; i < size; i++) {
+                        int record = HEADER_SIZE + i * RECORD_SIZE;
+                        latitudes[i] = buffer.getFloat(record + 24);
+                        longitudes[i] = buffer.getFloat(record + 28);
+                    }
+                    geoIndex = index = new GeoIndex(latitudes, longitudes);
+                    LOGGER.info(String.format("Built the spatial index of %d cities in %d ms",
+                            size, (System.nanoTime() - start) / 1_000_000));
+                }
+            }
+        }
+        return index;
+    }
+
+    /**
+     * @return The first record whose key is not less than the prefix.
+     */
+    private int lowerBound(byte[] prefix) {
+        int low = 0, high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compareKey(mid, prefix) < 0) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    private int compareKey(int index, byte[] other) {
+        int record = HEADER_SIZE + index * RECORD_SIZE;
+        int offset = stringsStart + buffer.getInt(record + 8);
+        int length = keyLength(index);
+        int common = Math.min(length, other.length);
+        for (int i = 0; i < common; i++) {
+            int order = Integer.compare(buffer.get(offset + i) & 0xFF, other[i] & 0xFF);
+            if (order != 0) return order;
+        }
+        return Integer.compare(length, other.length);
+    }
+
+    private boolean startsWith(int index, byte[] prefix) {
+        if (keyLength(index) < prefix.length) return false;
+        int offset = stringsStart + buffer.getInt(HEADER_SIZE + index * RECORD_SIZE + 8);
+        for (int i = 0; i < prefix.length; i++) {
+            if (buffer.get(offset + i) != prefix[i]) return false;
+        }
+        return true;
+    }
+
+    private int keyLength(int index) {
+        return buffer.getShort(HEADER_SIZE + index * RECORD_SIZE + 16) & 0xFFFF;
+    }
+
+    private String readString(int offset, int length) {
+        byte[] bytes = new byte[length];
+        buffer.get(stringsStart + offset, bytes); // Absolute bulk get; the buffer's position is never used.
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private String readCode(int position) {
+        char first = (char) (buffer.get(position) & 0xFF), second = (char) (buffer.get(position + 1) & 0xFF);
+        if (first == 0) return "";
+        return second == 0 ? String.valueOf(first) : new String(new char[] { first, second });
+    }
+
+    private static void writeCode(DataOutputStream out, String code) throws IOException {
+        // Country and US state codes are two ASCII letters; anything else is not worth the space.
+        boolean valid = code.length() <= 2 && code.chars().allMatch(c -> c > 0 && c < 128);
+        out.writeByte(valid && code.length() > 0 ? code.charAt(0) : 0);
+        out.writeByte(valid && code.length() > 1 ? code.charAt(1) : 0);
+    }
+
+    private static Entry readEntry(JsonReader reader) throws IOException {
+        Entry entry = new Entry();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.selectName(CITY_FIELDS)) {
+                case 0: // id
+                    entry.id = reader.nextLong();
+                    break;
+                case 1: // name
+                    String name = nextStringOrEmpty(reader).trim();
+                    entry.name = name.getBytes(StandardCharsets.UTF_8);
+                    entry.key = normalize(name).getBytes(StandardCharsets.UTF_8);
+                    break;
+                case 2: // state
+                    entry.state = nextStringOrEmpty(reader).trim().toUpperCase(Locale.ROOT);
+                    break;
+                case 3: // country
+                    entry.country = nextStringOrEmpty(reader).trim().toUpperCase(Locale.ROOT);
+                    break;
+                case 4: // coord
+                    reader.beginObject();
+                    while (reader.hasNext()) {
+                        int field = reader.selectName(COORD_FIELDS);
+                        if (field == 0) entry.latitude = (float) reader.nextDouble();
+                        else if (field == 1) entry.longitude = (float) reader.nextDouble();
+                        else reader.skipValue();
+                    }
+                    reader.endObject();
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+        // Names longer than a record can describe are not real city names.
+        if (entry.key.length > 0xFFFF || entry.name.length > 0xFFFF) entry.key = new byte[0];
+        return entry;
+    }
+
+    private static String nextStringOrEmpty(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonReader.Token.NULL) {
+            reader.nextNull();
+            return "";
+        }
+        return reader.nextString();
+    }
+
+    /** A city while the index is being built. */
+    private static class Entry {
+        long id;
+        byte[] key = new byte[0];
+        byte[] name = new byte[0];
+        String state = "";
+        String country = "";
+        float latitude;
+        float longitude;
+
+        /** Names that are already normalized, such as "paris" in lower case, are stored once. */
+        boolean sharesKey() {
+            return Arrays.equals(key, name);
+        }
+    }
+}
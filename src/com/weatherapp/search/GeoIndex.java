@@ -0,0 +1,143 @@
+package com.weatherapp.search;
+
+/**
+ * A k-d tree over city coordinates answering "the N cities nearest to this point".
+ * <p>
+ * Each city is stored as a point on the unit sphere rather than as latitude and longitude, so
+ * distances are straight-line chords through the globe: they order cities exactly as great-circle
+ * distance does, with no special cases at the poles or across the 180th meridian. The tree is
+ * implicit: the points are arranged in flat arrays so that the median of every range splits it,
+ * and a search only visits the branches that can still hold a closer city.
+ */
+final class GeoIndex {
+    private final float[] x;
+    private final float[] y;
+    private final float[] z;
+    private final int[] records; // The CityIndex record at each tree position.
+
+    /**
+     * @param latitudes The latitude of each record, in degrees.
+     * @param longitudes The longitude of each record, in degrees.
+     */
+    GeoIndex(float[] latitudes, float[] longitudes) {
+        int size = latitudes.length;
+        x = new float[size];
+        y = new float[size];
+        z = new float[size];
+        records = new int[size];
+        for (int i = 0; i < size; i++) {
+            double lat = Math.toRadians(latitudes[i]), lon = Math.toRadians(longitudes[i]);
+            x[i] = (float) (Math.cos(lat) * Math.cos(lon));
+            y[i] = (float) (Math.cos(lat) * Math.sin(lon));
+            z[i] = (float) Math.sin(lat);
+            records[i] = i;
+        }
+        build(0, size, 0);
+    }
+
+    /**
+     * @return The records of the cities nearest to the point, nearest first; at most {@code limit}.
+     */
+    int[] nearest(double latitude, double longitude, int limit) {
+        int count = Math.min(limit, records.length);
+        if (count <= 0) return new int[0];
+        double lat = Math.toRadians(latitude), lon = Math.toRadians(longitude);
+        Search search = new Search(Math.cos(lat) * Math.cos(lon), Math.cos(lat) * Math.sin(lon), Math.sin(lat), count);
+        search(search, 0, records.length, 0);
+        int[] nearest = new int[search.found];
+        for (int i = 0; i < search.found; i++) {
+            nearest[i] = records[search.positions[i]];
+        }
+        return nearest;
+    }
+
+    // Arranges [from, to) so its middle holds the median along the axis, smaller values before it.
+    private void build(int from, int to, int axis) {
+        if (to - from <= 1) return;
+        int middle = (from + to) >>> 1;
+        select(from, to - 1, middle, axis);
+        int next = axis == 2 ? 0 : axis + 1;
+        build(from, middle, next);
+        build(middle + 1, to, next);
+    }
+
+    private void search(Search search, int from, int to, int axis) {
+        if (from >= to) return;
+        int middle = (from + to) >>> 1;
+        double dx = x[middle] - search.x, dy = y[middle] - search.y, dz = z[middle] - search.z;
+        search.offer(middle, dx * dx + dy * dy + dz * dz);
+
+        double split = coordinate(middle, axis) - (axis == 0 ? search.x : axis == 1 ? search.y : search.z);
+        int next = axis == 2 ? 0 : axis + 1;
+        // Descend towards the point first; the far side only matters if the splitting plane is closer than the worst kept city.
+        if (split > 0) {
+            search(search, from, middle, next);
+            if (split * split < search.worst()) search(search, middle + 1, to, next);
+        } else {
+            search(search, middle + 1, to, next);
+            if (split * split < search.worst()) search(search, from, middle, next);
+        }
+    }
+
+    // Quickselect: afterwards position k holds the value it would have if [left, right] were sorted along the axis.
+    private void select(int left, int right, int k, int axis) {
+        while (right > left) {
+            float pivot = coordinate((left + right) >>> 1, axis);
+            int i = left, j = right;
+            while (i <= j) {
+                while (coordinate(i, axis) < pivot) i++;
+                while (coordinate(j, axis) > pivot) j--;
+                if (i <= j) swap(i++, j--);
+            }
+            if (k <= j) right = j;
+            else if (k >= i) left = i;
+            else return;
+        }
+    }
+
+    private float coordinate(int position, int axis) {
+        return axis == 0 ? x[position] : axis == 1 ? y[position] : z[position];
+    }
+
+    private void swap(int a, int b) {
+        float t = x[a]; x[a] = x[b]; x[b] = t;
+        t = y[a]; y[a] = y[b]; y[b] = t;
+        t = z[a]; z[a] = z[b]; z[b] = t;
+        int r = records[a]; records[a] = records[b]; records[b] = r;
+    }
+
+    /**
+     * The query point and the nearest cities found so far, kept sorted by distance.
+     */
+    private static final class Search {
+        final double x, y, z;
+        final int[] positions;
+        final double[] distances;
+        int found;
+
+        Search(double x, double y, double z, int limit) {
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            this.positions = new int[limit];
+            this.distances = new double[limit];
+        }
+
+        // The squared chord distance a city must beat to be kept.
+        double worst() {
+            return found < positions.length ? Double.POSITIVE_INFINITY : distances[found - 1];
+        }
+
+        void offer(int position, double distance) {
+            if (distance >= worst()) return;
+            int slot = found < positions.length ? found++ : found - 1;
+            while (slot > 0 && distances[slot - 1] > distance) {
+                positions[slot] = positions[slot - 1];
+                distances[slot] = distances[slot - 1];
+                slot--;
+            }
+            positions[slot] = position;
+            distances[slot] = distance;
+        }
+    }
+}
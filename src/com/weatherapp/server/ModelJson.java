@@ -0,0 +1,107 @@
+package com.weatherapp.server;
+
+import com.weatherapp.model.ForecastData;
+import com.weatherapp.model.ForecastSeries;
+import com.weatherapp.model.WeatherData;
+import org.json.simple.JSONValue;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Serializes the data model classes to compact JSON for the headless service.
+ * Field names follow the model getters rather than the upstream OpenWeatherMap layout.
+ */
+public class ModelJson {
+
+    public static String toJson(WeatherData data) {
+        StringBuilder json = new StringBuilder(256);
+        appendWeather(json, data);
+        return json.toString();
+    }
+
+    public static String toJson(List<ForecastData> forecast) {
+        StringBuilder json = new StringBuilder(64 * forecast.size() + 2);
+        json.append('[');
+        for (int i = 0; i < forecast.size(); i++) {
+            if (i > 0) json.append(',');
+            ForecastData day = forecast.get(i);
+            json.append("{\"dayOfWeek\":");
+            appendString(json, day.getDayOfWeek());
+            json.append(",\"temperature\":").append(day.getTemperature());
+            json.append(",\"iconCode\":");
+            appendString(json, day.getIconCode());
+            json.append('}');
+        }
+        return json.append(']').toString();
+    }
+
+    /**
+     * Serializes a forecast series column by column, mirroring how it is stored.
+     * Missing humidity, wind or precipitation probability values are written as null.
+     */
+    public static String toJson(ForecastSeries series) {
+        int size = series.size();
+        StringBuilder json = new StringBuilder(96 + 56 * size);
+        json.append("{\"timestamps\":[");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) json.append(',');
+            json.append(series.getTimestamp(i));
+        }
+        json.append("],\"temperature\":[");
+        for (int i = 0; i < size; i++) appendFloat(json, i, series.getTemperature(i));
+        json.append("],\"humidity\":[");
+        for (int i = 0; i < size; i++) appendFloat(json, i, series.getHumidity(i));
+        json.append("],\"windSpeed\":[");
+        for (int i = 0; i < size; i++) appendFloat(json, i, series.getWindSpeed(i));
+        json.append("],\"precipitationProbability\":[");
+        for (int i = 0; i < size; i++) appendFloat(json, i, series.getPrecipitationProbability(i));
+        json.append("],\"iconCode\":[");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) json.append(',');
+            String iconCode = series.getIconCode(i);
+            if (iconCode != null) appendString(json, iconCode);
+            else json.append("null");
+        }
+        return json.append("]}").toString();
+    }
+
+    public static String toJson(Collection<WeatherData> weatherList) {
+        StringBuilder json = new StringBuilder(256 * weatherList.size() + 2);
+        json.append('[');
+        boolean first = true;
+        for (WeatherData data : weatherList) {
+            if (!first) json.append(',');
+            appendWeather(json, data);
+            first = false;
+        }
+        return json.append(']').toString();
+    }
+
+    private static void appendWeather(StringBuilder json, WeatherData data) {
+        json.append("{\"cityId\":").append(data.getCityId());
+        json.append(",\"cityName\":");
+        appendString(json, data.getCityName());
+        json.append(",\"temperature\":").append(data.getTemperature());
+        json.append(",\"description\":");
+        appendString(json, data.getDescription());
+        json.append(",\"iconCode\":");
+        appendString(json, data.getIconCode());
+        json.append(",\"windSpeed\":").append(data.getWindSpeed());
+        json.append(",\"humidity\":").append(data.getHumidity());
+        json.append(",\"sunrise\":").append(data.getSunrise());
+        json.append(",\"sunset\":").append(data.getSunset());
+        json.append(",\"observedAt\":").append(data.getObservedAt());
+        json.append('}');
+    }
+
+    private static void appendFloat(StringBuilder json, int index, float value) {
+        if (index > 0) json.append(',');
+        if (Float.isNaN(value)) json.append("null");
+        else json.append(value);
+    }
+
+    private static void appendString(StringBuilder json, String value) {
+        json.append('"').append(JSONValue.escape(value)).append('"');
+    }
+}
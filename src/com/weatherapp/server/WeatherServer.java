@@ -0,0 +1,369 @@
+package com.weatherapp.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import com.weatherapp.api.ApiException;
+import com.weatherapp.api.CallTimingListener;
+import com.weatherapp.api.HttpClients;
+import com.weatherapp.api.ResponseCache;
+import com.weatherapp.api.WeatherApiClient;
+import com.weatherapp.metrics.LatencyHistogram;
+import com.weatherapp.metrics.Metrics;
+import com.weatherapp.model.City;
+import com.weatherapp.model.ForecastData;
+import com.weatherapp.model.ForecastSeries;
+import com.weatherapp.model.WeatherData;
+import com.weatherapp.search.CityIndex;
+import org.json.simple.JSONValue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A headless HTTP service that serves weather data as JSON from a shared {@link WeatherApiClient}.
+ * <p>
+ * All clients share the API client's response cache and request coalescing, so any number of
+ * dashboards asking for the same cities collapse into one upstream call per city per TTL.
+ * <ul>
+ *     <li>{@code GET /weather?city=Name}, {@code /weather?id=123} or {@code /weather?lat=19.07&lon=72.88}
+ *     - current weather</li>
+ *     <li>{@code GET /weather/batch?ids=1,2,3} - current weather for several city IDs</li>
+ *     <li>{@code GET /weather/nearby?lat=19.07&lon=72.88&count=10} - current weather for the cities
+ *     nearest to a point, nearest first, fetched in batches; needs the city list</li>
+ *     <li>{@code GET /forecast?city=Name} or {@code /forecast?lat=19.07&lon=72.88} - the 5-day forecast,
+ *     one entry per day; add {@code &resolution=full} for every three-hourly step</li>
+ *     <li>{@code GET /stats} - request and cache counters</li>
+ * </ul>
+ */
+public class WeatherServer {
+    private static final Logger LOGGER = Logger.getLogger(WeatherServer.class.getName());
+    private static final int MAX_BATCH_IDS = 200;
+    private static final int DEFAULT_NEARBY_COUNT = 10;
+
+    static {
+        // The JDK server leaves Nagle's algorithm on by default, which adds ~40 ms to small
+        // keep-alive responses. It must be set before the first HttpServer is created.
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private final WeatherApiClient apiClient;
+    private final CityIndex cityIndex;
+    private final HttpServer httpServer;
+    private final ExecutorService executor;
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicLong errorCount = new AtomicLong();
+
+    /**
+     * Creates a server bound to the given port. Call {@link #start()} to begin serving.
+     * @param apiClient The client shared by all requests.
+     * @param port The port to listen on, or 0 for any free port.
+     * @param workerThreads The number of request handler threads. Handlers block while a cache
+     *                      miss is fetched upstream, so this bounds concurrent upstream waits.
+     */
+    public WeatherServer(WeatherApiClient apiClient, int port, int workerThreads) throws IOException {
+        this(apiClient, null, port, workerThreads);
+    }
+
+    /**
+     * Creates a server that can also answer nearest-city queries.
+     * @param cityIndex The city list to search for nearby cities, or null to answer them with 503.
+     */
+    public WeatherServer(WeatherApiClient apiClient, CityIndex cityIndex, int port, int workerThreads) throws IOException {
+        this.apiClient = apiClient;
+        this.cityIndex = cityIndex;
+        this.httpServer = HttpServer.create(new InetSocketAddress(port), 1024);
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(workerThreads, runnable -> {
+            Thread thread = new Thread(runnable, "weather-server-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        httpServer.setExecutor(executor);
+        httpServer.createContext("/weather/batch", getOnly(this::handleBatch));
+        httpServer.createContext("/weather/nearby", getOnly(this::handleNearby));
+        httpServer.createContext("/weather", getOnly(this::handleWeather));
+        httpServer.createContext("/forecast", getOnly(this::handleForecast));
+        httpServer.createContext("/stats", getOnly(this::handleStats));
+    }
+
+    public void start() {
+        httpServer.start();
+    }
+
+    /**
+     * Stops accepting requests, waits briefly for in-flight ones and releases the worker threads.
+     */
+    public void stop() {
+        httpServer.stop(1);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @return The port the server is listening on.
+     */
+    public int getPort() {
+        return httpServer.getAddress().getPort();
+    }
+
+    private void handleWeather(HttpExchange exchange) throws IOException {
+        Map<String, String> query = parseQuery(exchange);
+        WeatherData data;
+        if (query.containsKey("id")) {
+            Long cityId = parseId(query.get("id"));
+            if (cityId == null) {
+                sendError(exchange, 400, "Invalid city ID");
+                return;
+            }
+            data = apiClient.getCurrentWeather(cityId);
+        } else if (query.containsKey("lat") || query.containsKey("lon")) {
+            double[] point = parsePoint(query);
+            if (point == null) {
+                sendError(exchange, 400, "Invalid 'lat' or 'lon' parameter");
+                return;
+            }
+            data = apiClient.getCurrentWeather(point[0], point[1]);
+        } else if (query.containsKey("city") && !query.get("city").isBlank()) {
+            data = apiClient.getCurrentWeather(query.get("city"));
+        } else {
+            sendError(exchange, 400, "Missing 'city', 'id' or 'lat' and 'lon' parameters");
+            return;
+        }
+        sendJson(exchange, 200, ModelJson.toJson(data));
+    }
+
+    private void handleBatch(HttpExchange exchange) throws IOException {
+        String ids = parseQuery(exchange).get("ids");
+        if (ids == null || ids.isBlank()) {
+            sendError(exchange, 400, "Missing 'ids' parameter");
+            return;
+        }
+        List<Long> cityIds = new ArrayList<>();
+        for (String id : ids.split(",")) {
+            Long cityId = parseId(id.trim());
+            if (cityId == null) {
+                sendError(exchange, 400, "Invalid city ID: " + id);
+                return;
+            }
+            cityIds.add(cityId);
+        }
+        if (cityIds.size() > MAX_BATCH_IDS) {
+            sendError(exchange, 400, "At most " + MAX_BATCH_IDS + " IDs per request");
+            return;
+        }
+        sendJson(exchange, 200, ModelJson.toJson(apiClient.getCurrentWeatherForCities(cityIds).values()));
+    }
+
+    /**
+     * Finds the nearest cities in the local city list and fetches their weather by ID, so a whole
+     * region costs one group call per 20 uncached cities instead of one name search per city.
+     */
+    private void handleNearby(HttpExchange exchange) throws IOException {
+        Map<String, String> query = parseQuery(exchange);
+        if (cityIndex == null) {
+            sendError(exchange, 503, "City list not available");
+            return;
+        }
+        double[] point = parsePoint(query);
+        if (point == null) {
+            sendError(exchange, 400, "Missing or invalid 'lat' and 'lon' parameters");
+            return;
+        }
+        Long count = query.containsKey("count") ? parseId(query.get("count")) : Long.valueOf(DEFAULT_NEARBY_COUNT);
+        if (count == null || count < 1 || count > MAX_BATCH_IDS) {
+            sendError(exchange, 400, "'count' must be from 1 to " + MAX_BATCH_IDS);
+            return;
+        }
+        List<Long> cityIds = new ArrayList<>();
+        for (City city : cityIndex.nearest(point[0], point[1], count.intValue())) {
+            cityIds.add(city.getId());
+        }
+        sendJson(exchange, 200, ModelJson.toJson(apiClient.getCurrentWeatherForCities(cityIds).values()));
+    }
+
+    private void handleForecast(HttpExchange exchange) throws IOException {
+        Map<String, String> query = parseQuery(exchange);
+        boolean full = "full".equals(query.get("resolution"));
+        if (query.containsKey("lat") || query.containsKey("lon")) {
+            double[] point = parsePoint(query);
+            if (point == null) {
+                sendError(exchange, 400, "Invalid 'lat' or 'lon' parameter");
+            } else if (full) {
+                sendJson(exchange, 200, ModelJson.toJson(apiClient.getForecastSeries(point[0], point[1])));
+            } else {
+                sendJson(exchange, 200, ModelJson.toJson(apiClient.getFiveDayForecast(point[0], point[1])));
+            }
+            return;
+        }
+        String city = query.get("city");
+        if (city == null || city.isBlank()) {
+            sendError(exchange, 400, "Missing 'city' or 'lat' and 'lon' parameters");
+            return;
+        }
+        if (full) {
+            sendJson(exchange, 200, ModelJson.toJson(apiClient.getForecastSeries(city)));
+            return;
+        }
+        List<ForecastData> forecast = apiClient.getFiveDayForecast(city);
+        sendJson(exchange, 200, ModelJson.toJson(forecast));
+    }
+
+    private void handleStats(HttpExchange exchange) throws IOException {
+        ResponseCache<WeatherData> weatherCache = apiClient.getCurrentWeatherCache();
+        ResponseCache<ForecastSeries> forecastCache = apiClient.getForecastCache();
+        String json = "{\"requests\":" + requestCount.get()
+                + ",\"errors\":" + errorCount.get()
+                + ",\"coalescedUpstreamRequests\":" + apiClient.getCoalescedRequestCount()
+                + ",\"upstreamCircuit\":\"" + apiClient.getCircuitBreaker().getState() + "\""
+                + ",\"weatherCache\":" + cacheStatsJson(weatherCache)
+                + ",\"forecastCache\":" + cacheStatsJson(forecastCache)
+                + ",\"upstreamTimings\":" + timingsJson(HttpClients.sharedTimings())
+                + ",\"stageLatency\":" + stageLatencyJson()
+                + ",\"counters\":" + JSONValue.toJSONString(Metrics.counters()) + "}";
+        sendJson(exchange, 200, json);
+    }
+
+    private static String timingsJson(CallTimingListener.Stats timings) {
+        StringBuilder json = new StringBuilder("{");
+        for (CallTimingListener.Phase phase : CallTimingListener.Phase.values()) {
+            if (json.length() > 1) json.append(',');
+            json.append('"').append(phase.name()).append("\":{\"count\":").append(timings.getCount(phase))
+                    .append(",\"meanMillis\":").append(timings.getMeanMillis(phase))
+                    .append(",\"maxMillis\":").append(timings.getMaxMillis(phase)).append('}');
+        }
+        return json.append(",\"failedCalls\":").append(timings.getFailedCalls()).append('}').toString();
+    }
+
+    private static String stageLatencyJson() {
+        StringBuilder json = new StringBuilder("{");
+        for (Metrics.Stage stage : Metrics.Stage.values()) {
+            LatencyHistogram histogram = Metrics.histogram(stage);
+            if (json.length() > 1) json.append(',');
+            json.append('"').append(stage.name()).append("\":{\"count\":").append(histogram.getCount())
+                    .append(",\"p50Millis\":").append(histogram.getPercentileMillis(50))
+                    .append(",\"p99Millis\":").append(histogram.getPercentileMillis(99))
+                    .append(",\"maxMillis\":").append(histogram.getMaxMillis()).append('}');
+        }
+        return json.append('}').toString();
+    }
+
+    private static String cacheStatsJson(ResponseCache<?> cache) {
+        return "{\"size\":" + cache.size() + ",\"hits\":" + cache.getHitCount() + ",\"staleHits\":" + cache.getStaleHitCount()
+                + ",\"misses\":" + cache.getMissCount() + ",\"evictions\":" + cache.getEvictionCount() + "}";
+    }
+
+    /**
+     * Wraps a handler so that it only answers GET requests, counts requests and turns
+     * exceptions into error responses instead of a dropped connection: upstream failures
+     * into the matching 4xx/5xx status, anything unexpected into a 500.
+     */
+    private HttpHandler getOnly(HttpHandler handler) {
+        return exchange -> {
+            requestCount.incrementAndGet();
+            try {
+                if (!"GET".equals(exchange.getRequestMethod())) {
+                    sendError(exchange, 405, "Only GET is supported");
+                } else {
+                    handler.handle(exchange);
+                }
+            } catch (ApiException e) {
+                sendApiError(exchange, e);
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Unhandled error serving " + exchange.getRequestURI().getPath(), e);
+                sendError(exchange, 500, "Internal error");
+            } finally {
+                exchange.close();
+            }
+        };
+    }
+
+    /**
+     * Answers with the status that tells clients what went wrong upstream: 404 for an unknown
+     * city, 429 or 503 with Retry-After when calls are throttled or the circuit is open, 502 when
+     * upstream failed.
+     */
+    private void sendApiError(HttpExchange exchange, ApiException e) throws IOException {
+        int status;
+        switch (e.getKind()) {
+            case NOT_FOUND: status = 404; break;
+            case BAD_REQUEST: status = 400; break;
+            case RATE_LIMITED: status = 429; break;
+            case CIRCUIT_OPEN: status = 503; break;
+            default: status = 502; break;
+        }
+        if (e.getRetryAfterMillis() > 0) {
+            exchange.getResponseHeaders().set("Retry-After",
+                    Long.toString(TimeUnit.MILLISECONDS.toSeconds(e.getRetryAfterMillis() + 999)));
+        }
+        sendError(exchange, status, e.getKind() == ApiException.Kind.NOT_FOUND ? "Could not find city" : e.getMessage());
+    }
+
+    private void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        errorCount.incrementAndGet();
+        sendJson(exchange, status, "{\"error\":\"" + JSONValue.escape(message) + "\"}");
+    }
+
+    private static void sendJson(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static Map<String, String> parseQuery(HttpExchange exchange) {
+        Map<String, String> query = new HashMap<>();
+        String rawQuery = exchange.getRequestURI().getRawQuery();
+        if (rawQuery == null) return query;
+        for (String pair : rawQuery.split("&")) {
+            int equals = pair.indexOf('=');
+            if (equals <= 0) continue;
+            query.put(URLDecoder.decode(pair.substring(0, equals), StandardCharsets.UTF_8),
+                    URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8));
+        }
+        return query;
+    }
+
+    /**
+     * @return The {@code lat} and {@code lon} parameters, or null if either is missing or not a number.
+     */
+    private static double[] parsePoint(Map<String, String> query) {
+        String latitude = query.get("lat"), longitude = query.get("lon");
+        if (latitude == null || longitude == null) return null;
+        try {
+            return new double[] { Double.parseDouble(latitude), Double.parseDouble(longitude) };
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static Long parseId(String value) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,382 @@
+package com.weatherapp.store;
+
+import com.weatherapp.model.ForecastData;
+import com.weatherapp.model.WeatherData;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A compact, read-only file of weather observations, for archiving them in bulk and for sharing
+ * them between processes.
+ * <p>
+ * Each observation, a {@link WeatherData} with up to five forecast days, is one fixed-size record.
+ * Descriptions, icon codes, day names and city names repeat from one observation to the next, so
+ * each distinct string is stored once in a table at the end of the file and records refer to it by
+ * number. Temperatures and wind speeds are stored in hundredths, and times in Unix seconds. A record
+ * takes 64 bytes, against about 500 for the same observation as OpenWeatherMap JSON.
+ * <p>
+ * The file is memory-mapped. A {@link Cursor} reads each field straight from the mapping, so a scan
+ * over millions of observations creates no objects; {@link Cursor#toWeatherData()} builds the model
+ * only for the observations that are needed. Files are written with a {@link Writer}. Archives are
+ * immutable and can be read from any thread, with one cursor per thread.
+ */
+public final class ObservationArchive {
+    private static final int MAGIC = 0x574F4131; // "WOA1"
+    private static final int HEADER_SIZE = 16;
+    // cityId(4) observedAt(4) sunrise(4) sunset(4) name(4) temperature(2) windSpeed(2) description(2) icon(2)
+    // humidity(1) forecastDays(1) unused(2), then per forecast day: day(2) temperature(2) icon(2); unused(2)
+    private static final int RECORD_SIZE = 64;
+    private static final int FORECAST_OFFSET = 32;
+    private static final int FORECAST_DAY_SIZE = 6;
+    private static final short NO_TEMPERATURE = Short.MIN_VALUE;
+    private static final int NO_TERM = 0xFFFF;
+    private static final int MAX_TERMS = NO_TERM; // Term references are unsigned shorts; the top value means null.
+
+    /** The most forecast days stored with an observation. */
+    public static final int MAX_FORECAST_DAYS = 5;
+
+    private final ByteBuffer buffer;
+    private final int size;
+    private final String[] terms;
+    private final String[] names;
+
+    private ObservationArchive(ByteBuffer buffer, int size, String[] terms, String[] names) {
+        this.buffer = buffer;
+        this.size = size;
+        this.terms = terms;
+        this.names = names;
+    }
+
+    /**
+     * Memory-maps an archive written by a {@link Writer}. Only the string tables are read up front.
+     * @throws IOException If the file cannot be read or is not a valid archive.
+     */
+    public static ObservationArchive open(Path file) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) throw new IOException("Observation archive too large: " + file);
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()); // Stays valid after close.
+        }
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not an observation archive: " + file);
+        }
+        int size = buffer.getInt(4);
+        int termsStart = buffer.getInt(8);
+        int namesStart = buffer.getInt(12);
+        if (size < 0 || termsStart != HEADER_SIZE + (long) size * RECORD_SIZE
+                || namesStart < termsStart || namesStart > buffer.capacity()) {
+            throw new IOException("Corrupt observation archive: " + file);
+        }
+        try {
+            return new ObservationArchive(buffer, size, readTable(buffer, termsStart), readTable(buffer, namesStart));
+        } catch (RuntimeException e) {
+            throw new IOException("Corrupt observation archive: " + file, e);
+        }
+    }
+
+    /**
+     * @return The number of observations in the archive.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return A new cursor, positioned before the first observation.
+     */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    private static String[] readTable(ByteBuffer buffer, int start) {
+        int count = buffer.getInt(start);
+        String[] table = new String[count];
+        int position = start + 4;
+        for (int i = 0; i < count; i++) {
+            int length = buffer.getShort(position) & 0xFFFF;
+            byte[] bytes = new byte[length];
+            buffer.get(position + 2, bytes); // Absolute bulk get; the buffer's position is never used.
+            table[i] = new String(bytes, StandardCharsets.UTF_8);
+            position += 2 + length;
+        }
+        return table;
+    }
+
+    /**
+     * A movable view of one observation. Every getter reads from the mapped file, so moving the cursor
+     * and reading numbers allocates nothing, and strings come from the archive's shared tables.
+     */
+    public final class Cursor {
+        private int index = -1;
+        private int record;
+
+        private Cursor() {
+        }
+
+        /**
+         * Moves to the next observation.
+         * @return False, leaving the cursor where it was, if there is none.
+         */
+        public boolean next() {
+            if (index + 1 >= size) return false;
+            moveTo(index + 1);
+            return true;
+        }
+
+        /**
+         * @param index An observation index, from 0 to {@link #size()} - 1, in the order they were written.
+         * @return This cursor.
+         */
+        public Cursor moveTo(int index) {
+            if (index < 0 || index >= size) throw new IndexOutOfBoundsException("Index " + index + ", size " + size);
+            this.index = index;
+            this.record = HEADER_SIZE + index * RECORD_SIZE;
+            return this;
+        }
+
+        public int getIndex() { return index; }
+        public long getCityId() { return buffer.getInt(record); }
+        public long getObservedAt() { return Integer.toUnsignedLong(buffer.getInt(record + 4)); }
+        public long getSunrise() { return Integer.toUnsignedLong(buffer.getInt(record + 8)); }
+        public long getSunset() { return Integer.toUnsignedLong(buffer.getInt(record + 12)); }
+        public double getTemperature() { return temperature(record + 20); }
+        public double getWindSpeed() { return (buffer.getShort(record + 22) & 0xFFFF) / 100.0; }
+        public int getHumidity() { return buffer.get(record + 28) & 0xFF; }
+        public int getForecastDays() { return buffer.get(record + 29); }
+
+        public String getCityName() {
+            int name = buffer.getInt(record + 16);
+            return name < 0 ? null : names[name];
+        }
+
+        public String getDescription() { return term(record + 24); }
+        public String getIconCode() { return term(record + 26); }
+
+        /**
+         * @param day A forecast day, from 0 to {@link #getForecastDays()} - 1.
+         */
+        public String getForecastDayOfWeek(int day) { return term(forecastDay(day)); }
+        public double getForecastTemperature(int day) { return temperature(forecastDay(day) + 2); }
+        public String getForecastIconCode(int day) { return term(forecastDay(day) + 4); }
+
+        /**
+         * @return The observation as a model object, equal to the one written up to the stored precision.
+         */
+        public WeatherData toWeatherData() {
+            return new WeatherData(getCityId(), getCityName(), getTemperature(), getDescription(), getIconCode(),
+                    getWindSpeed(), getHumidity(), getSunrise(), getSunset(), getObservedAt());
+        }
+
+        /**
+         * @return The forecast stored with the observation, one entry per day.
+         */
+        public List<ForecastData> toForecast() {
+            int days = getForecastDays();
+            List<ForecastData> forecast = new ArrayList<>(days);
+            for (int day = 0; day < days; day++) {
+                forecast.add(new ForecastData(getForecastDayOfWeek(day), getForecastTemperature(day), getForecastIconCode(day)));
+            }
+            return forecast;
+        }
+
+        private int forecastDay(int day) {
+            if (index < 0) throw new IllegalStateException("Cursor is not on an observation");
+            if (day < 0 || day >= getForecastDays()) throw new IndexOutOfBoundsException("Day " + day);
+            return record + FORECAST_OFFSET + day * FORECAST_DAY_SIZE;
+        }
+
+        private double temperature(int position) {
+            short hundredths = buffer.getShort(position);
+            return hundredths == NO_TEMPERATURE ? Double.NaN : hundredths / 100.0;
+        }
+
+        private String term(int position) {
+            int term = buffer.getShort(position) & 0xFFFF;
+            return term == NO_TERM ? null : terms[term];
+        }
+    }
+
+    /**
+     * Writes an archive one observation at a time, so memory use depends only on the number of
+     * distinct strings. The file appears, complete, when the writer is closed; until then it is
+     * written under a temporary name.
+     * <p>
+     * Values outside what the record holds are clamped: temperatures to +/-327 degrees, wind
+     * speeds to 655, humidity to 255. Not thread-safe.
+     */
+    public static final class Writer implements Closeable {
+        private final Path file;
+        private final Path tempFile;
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(1 << 17); // Fits the longest string.
+        private final Map<String, Integer> termIds = new HashMap<>();
+        private final List<String> terms = new ArrayList<>();
+        private final Map<String, Integer> nameIds = new HashMap<>();
+        private final List<String> names = new ArrayList<>();
+        private long written = HEADER_SIZE;
+        private int size;
+        private boolean closed;
+
+        /**
+         * @param file The archive to create; an existing file is replaced when the writer is closed.
+         */
+        public Writer(Path file) throws IOException {
+            this.file = file;
+            this.tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            channel = FileChannel.open(tempFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            channel.position(HEADER_SIZE);
+        }
+
+        /**
+         * Appends one observation. A rejected observation writes nothing, so the writer stays usable.
+         * @param current The current weather; its city ID must fit in 31 bits and its times in 32.
+         * @param forecast Up to {@link #MAX_FORECAST_DAYS} forecast days; may be empty.
+         * @throws IllegalArgumentException If the forecast has more days or a value cannot be stored.
+         * @throws IOException If writing failed, or the archive reached its size limit of 2 GB.
+         */
+        public void append(WeatherData current, List<ForecastData> forecast) throws IOException {
+            if (closed) throw new IllegalStateException("Writer is closed");
+            if (forecast.size() > MAX_FORECAST_DAYS) {
+                throw new IllegalArgumentException(forecast.size() + " forecast days; at most " + MAX_FORECAST_DAYS + " are stored");
+            }
+            if (current.getCityId() < 0 || current.getCityId() > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("City ID out of range: " + current.getCityId());
+            }
+            if (written + RECORD_SIZE > Integer.MAX_VALUE) throw new IOException("Observation archive is full: " + file);
+            if (buffer.remaining() < RECORD_SIZE) drain();
+
+            // Times are checked before anything is written, and a string table overflowing midway
+            // rewinds the buffer, so a rejected observation leaves no partial record behind.
+            int observedAt = seconds(current.getObservedAt());
+            int sunrise = seconds(current.getSunrise());
+            int sunset = seconds(current.getSunset());
+            int record = buffer.position();
+            try {
+                buffer.putInt((int) current.getCityId());
+                buffer.putInt(observedAt);
+                buffer.putInt(sunrise);
+                buffer.putInt(sunset);
+                buffer.putInt(current.getCityName() == null ? -1 : intern(nameIds, names, current.getCityName(), Integer.MAX_VALUE));
+                buffer.putShort(hundredths(current.getTemperature()));
+                buffer.putShort((short) clamp(Math.round(current.getWindSpeed() * 100), 0, 0xFFFF));
+                buffer.putShort(term(current.getDescription()));
+                buffer.putShort(term(current.getIconCode()));
+                buffer.put((byte) clamp(current.getHumidity(), 0, 0xFF));
+                buffer.put((byte) forecast.size());
+                buffer.putShort((short) 0);
+                for (ForecastData day : forecast) {
+                    buffer.putShort(term(day.getDayOfWeek()));
+                    buffer.putShort(hundredths(day.getTemperature()));
+                    buffer.putShort(term(day.getIconCode()));
+                }
+            } catch (IOException | RuntimeException e) {
+                buffer.position(record);
+                throw e;
+            }
+            // Unused forecast slots and padding are zeroed so equal observations give equal bytes.
+            while (buffer.position() < record + RECORD_SIZE) {
+                buffer.put((byte) 0);
+            }
+            written += RECORD_SIZE;
+            size++;
+        }
+
+        /**
+         * @return The number of observations appended so far.
+         */
+        public int size() {
+            return size;
+        }
+
+        /**
+         * Writes the string tables and header, then moves the archive into place.
+         */
+        @Override
+        public void close() throws IOException {
+            if (closed) return;
+            closed = true;
+            try (FileChannel out = channel) {
+                int termsStart = (int) written;
+                writeTable(terms);
+                int namesStart = (int) written;
+                writeTable(names);
+                drain();
+                if (written > Integer.MAX_VALUE) throw new IOException("Observation archive too large: " + file);
+
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                header.putInt(MAGIC).putInt(size).putInt(termsStart).putInt(namesStart).flip();
+                while (header.hasRemaining()) {
+                    out.write(header, header.position());
+                }
+                out.force(true);
+            }
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+
+        private short term(String value) throws IOException {
+            return value == null ? (short) NO_TERM : (short) intern(termIds, terms, value, MAX_TERMS);
+        }
+
+        private int intern(Map<String, Integer> ids, List<String> table, String value, int limit) throws IOException {
+            Integer id = ids.get(value);
+            if (id == null) {
+                if (table.size() >= limit) throw new IOException("Too many distinct strings for " + file);
+                id = table.size();
+                ids.put(value, id);
+                table.add(value);
+            }
+            return id;
+        }
+
+        private void writeTable(List<String> table) throws IOException {
+            if (buffer.remaining() < 4) drain();
+            buffer.putInt(table.size());
+            written += 4;
+            for (String value : table) {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                int length = Math.min(bytes.length, 0xFFFF);
+                if (buffer.remaining() < 2 + length) drain();
+                buffer.putShort((short) length).put(bytes, 0, length);
+                written += 2 + length;
+            }
+        }
+
+        private void drain() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        private static int seconds(long epochSeconds) {
+            if (epochSeconds < 0 || epochSeconds > 0xFFFFFFFFL) {
+                throw new IllegalArgumentException("Time out of range: " + epochSeconds);
+            }
+            return (int) epochSeconds;
+        }
+
+        private static short hundredths(double value) {
+            if (Double.isNaN(value)) return NO_TEMPERATURE;
+            return (short) clamp(Math.round(value * 100), -Short.MAX_VALUE, Short.MAX_VALUE);
+        }
+
+        private static long clamp(long value, long min, long max) {
+            return Math.max(min, Math.min(max, value));
+        }
+    }
+}
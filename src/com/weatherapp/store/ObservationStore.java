@@ -0,0 +1,481 @@
+package com.weatherapp.store;
+
+import com.weatherapp.model.ForecastSeries;
+import com.weatherapp.model.WeatherData;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+/**
+ * Keeps every observed {@link WeatherData}, per city, so past weather can be shown and compared.
+ * <p>
+ * Observations are partitioned by calendar month (UTC) and city: each month is a directory
+ * holding, for every city observed in it, an append-only file of fixed 12-byte records in time
+ * order. Next to it, hourly and daily rollups (sample count, and minimum, maximum and mean
+ * temperature, humidity and wind speed) are kept up to date as each observation is appended, so
+ * long ranges are answered from a few hundred rollups rather than thousands of observations.
+ * A year of 10-minute observations takes under a megabyte per city.
+ * <p>
+ * A range query only opens the months it spans. Within a month, a sparse in-memory index holding
+ * the time of every 128th record finds where the range starts and ends, and only those records
+ * are read. The index is built the first time a month is used and grows as records are appended.
+ * <p>
+ * Writes are not forced to disk. A record cut short by a crash is truncated on the next start,
+ * and rollups that missed an observation are rebuilt from the records. An observation no newer
+ * than the city's last one, such as a cached response fetched again, is skipped.
+ */
+public class ObservationStore {
+    // observedAt(4) temperature(2) windSpeed(2) humidity(1) icon(1) unused(2)
+    private static final int RECORD_SIZE = 12;
+    // start(4) count(4) meanTemperature(4) meanWindSpeed(4) meanHumidity(4) minTemperature(2) maxTemperature(2)
+    // minWindSpeed(2) maxWindSpeed(2) minHumidity(1) maxHumidity(1) unused(2)
+    private static final int ROLLUP_SIZE = 32;
+    private static final int INDEX_INTERVAL = 128; // Records per sparse index entry.
+    private static final int NO_ICON = 0xFF;
+    private static final long SECONDS_PER_DAY = 86_400;
+
+    /** The bucket size of a rollup. */
+    public enum Resolution {
+        HOURLY(3_600, ".hourly"),
+        DAILY(SECONDS_PER_DAY, ".daily");
+
+        private final long seconds;
+        private final String extension;
+
+        Resolution(long seconds, String extension) {
+            this.seconds = seconds;
+            this.extension = extension;
+        }
+
+        public long getSeconds() {
+            return seconds;
+        }
+    }
+
+    private final Path directory;
+    private final Map<String, Segment> segments = new HashMap<>();
+    private NavigableSet<YearMonth> months; // Listed from disk on first use.
+
+    /**
+     * Constructs a store in the given directory. Nothing is read until the store is first used.
+     */
+    public ObservationStore(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * @return The default store location, {@code ~/.weatherapp/observations}.
+     */
+    public static Path defaultPath() {
+        return Paths.get(System.getProperty("user.home"), ".weatherapp", "observations");
+    }
+
+    /**
+     * Stores an observation. Errors are logged rather than thrown, so a full disk never breaks a search.
+     * @param data The observation; skipped if its city ID or observation time is unknown.
+     * @return Whether it was stored, i.e. it is newer than the city's last stored observation.
+     */
+    public synchronized boolean append(WeatherData data) {
+        long cityId = data.getCityId(), observedAt = data.getObservedAt();
+        if (cityId <= 0 || observedAt <= 0 || observedAt > 0xFFFFFFFFL) return false;
+        try {
+            YearMonth month = monthOf(observedAt);
+            Segment segment = segment(cityId, month);
+            if (observedAt <= segment.lastTime) return false;
+            segment.append(observedAt, hundredths(data.getTemperature()), hundredths(data.getWindSpeed()),
+                    Math.max(0, Math.min(100, data.getHumidity())), ForecastSeries.iconId(data.getIconCode()));
+            months().add(month);
+            return true;
+        } catch (IOException e) {
+            System.err.println("Error writing observation store: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Reads a city's observations in a time range.
+     * @param cityId The OpenWeatherMap city ID.
+     * @param from The start of the range, in Unix seconds, inclusive.
+     * @param to The end of the range, in Unix seconds, inclusive.
+     * @return The observations in time order, in the same columnar form as forecasts.
+     */
+    public synchronized ForecastSeries range(long cityId, long from, long to) throws IOException {
+        ForecastSeries.Builder series = new ForecastSeries.Builder(256);
+        for (YearMonth month : months(from, to)) {
+            Segment segment = segment(cityId, month);
+            if (segment.count == 0 || segment.lastTime < from || segment.firstTime > to) continue;
+            int first = segment.blockStart(from), end = segment.blockEnd(to);
+            ByteBuffer records = readFully(segment.raw, (long) first * RECORD_SIZE, (end - first) * RECORD_SIZE);
+            for (int position = 0; position < records.limit(); position += RECORD_SIZE) {
+                long time = Integer.toUnsignedLong(records.getInt(position));
+                if (time < from) continue;
+                if (time > to) break;
+                int icon = records.get(position + 9) & 0xFF;
+                series.add(time, records.getShort(position + 4) / 100f, records.get(position + 8) & 0xFF,
+                        (records.getShort(position + 6) & 0xFFFF) / 100f,
+                        icon == NO_ICON ? ForecastSeries.UNKNOWN_ICON : (short) icon);
+            }
+        }
+        return series.build();
+    }
+
+    /**
+     * Reads a city's hourly or daily rollups in a time range. Days are UTC days.
+     * @param from The start of the range, in Unix seconds; the bucket holding it is included.
+     * @param to The end of the range, in Unix seconds, inclusive.
+     * @return The buckets with at least one observation, in time order.
+     */
+    public synchronized Rollups rollups(long cityId, Resolution resolution, long from, long to) throws IOException {
+        long firstBucket = Math.floorDiv(from, resolution.seconds) * resolution.seconds;
+        Rollups rollups = new Rollups();
+        for (YearMonth month : months(from, to)) {
+            Segment segment = segment(cityId, month);
+            if (segment.count == 0 || segment.lastTime < firstBucket || segment.firstTime > to) continue;
+            Path file = segment.rollupFile(resolution);
+            ByteBuffer buckets = readFully(file, 0, (int) (Files.size(file) / ROLLUP_SIZE * ROLLUP_SIZE));
+            Bucket bucket = new Bucket(0);
+            for (int position = 0; position < buckets.limit(); position += ROLLUP_SIZE) {
+                bucket.read(buckets, position);
+                if (bucket.start < firstBucket) continue;
+                if (bucket.start > to) break;
+                rollups.add(bucket);
+            }
+        }
+        return rollups;
+    }
+
+    private NavigableSet<YearMonth> months() throws IOException {
+        if (months == null) {
+            months = new TreeSet<>();
+            if (Files.isDirectory(directory)) {
+                try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+                    for (Path entry : entries) {
+                        try {
+                            months.add(YearMonth.parse(entry.getFileName().toString()));
+                        } catch (DateTimeParseException ignored) {
+                            // Not a month partition.
+                        }
+                    }
+                }
+            }
+        }
+        return months;
+    }
+
+    // The stored months that overlap the range; months never written are not even looked up.
+    private NavigableSet<YearMonth> months(long from, long to) throws IOException {
+        if (to < from || to < 0) return new TreeSet<>();
+        return months().subSet(monthOf(Math.max(0, from)), true, monthOf(Math.min(to, 0xFFFFFFFFL)), true);
+    }
+
+    private Segment segment(long cityId, YearMonth month) throws IOException {
+        String key = month + "/" + cityId;
+        Segment segment = segments.get(key);
+        if (segment == null) {
+            segment = new Segment(directory.resolve(month.toString()), Long.toString(cityId));
+            segment.load();
+            segments.put(key, segment);
+        }
+        return segment;
+    }
+
+    private static YearMonth monthOf(long epochSecond) {
+        return YearMonth.from(LocalDate.ofEpochDay(Math.floorDiv(epochSecond, SECONDS_PER_DAY)));
+    }
+
+    private static short hundredths(double value) {
+        return (short) Math.max(-Short.MAX_VALUE, Math.min(Short.MAX_VALUE, Math.round(value * 100)));
+    }
+
+    private static ByteBuffer readFully(Path file, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, position + buffer.position()) < 0) throw new EOFException("Truncated " + file);
+            }
+        }
+        return buffer.flip();
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    /**
+     * One city's observations in one month, with its rollups and sparse index.
+     */
+    private static final class Segment {
+        final Path raw;
+        final Path hourly;
+        final Path daily;
+        int count;
+        long firstTime;
+        long lastTime;
+        int[] index = new int[8]; // The time of record i * INDEX_INTERVAL, as an unsigned int.
+
+        Segment(Path monthDirectory, String cityId) {
+            raw = monthDirectory.resolve(cityId + ".obs");
+            hourly = monthDirectory.resolve(cityId + Resolution.HOURLY.extension);
+            daily = monthDirectory.resolve(cityId + Resolution.DAILY.extension);
+        }
+
+        Path rollupFile(Resolution resolution) {
+            return resolution == Resolution.HOURLY ? hourly : daily;
+        }
+
+        void load() throws IOException {
+            if (!Files.exists(raw)) return;
+            ByteBuffer records;
+            try (FileChannel channel = FileChannel.open(raw, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                long size = channel.size();
+                long validSize = size - size % RECORD_SIZE;
+                // Drop a record cut short by a crash so new appends start on a record boundary.
+                if (validSize != size) channel.truncate(validSize);
+                records = ByteBuffer.allocate((int) validSize);
+                while (records.hasRemaining()) {
+                    if (channel.read(records, records.position()) < 0) break;
+                }
+                records.flip();
+            }
+            count = records.limit() / RECORD_SIZE;
+            if (count == 0) return;
+            for (int i = 0; i < count; i += INDEX_INTERVAL) {
+                addToIndex(i, records.getInt(i * RECORD_SIZE));
+            }
+            firstTime = Integer.toUnsignedLong(records.getInt(0));
+            lastTime = Integer.toUnsignedLong(records.getInt((count - 1) * RECORD_SIZE));
+            if (rollupCount(hourly) != count || rollupCount(daily) != count) rebuildRollups(records);
+        }
+
+        void append(long observedAt, short temperature, short windSpeed, int humidity, short iconId) throws IOException {
+            Files.createDirectories(raw.getParent());
+            ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+            record.putInt((int) observedAt).putShort(temperature).putShort(windSpeed)
+                    .put((byte) humidity).put((byte) (iconId < 0 ? NO_ICON : iconId)).putShort((short) 0).flip();
+            try (FileChannel channel = FileChannel.open(raw, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                writeFully(channel, record, (long) count * RECORD_SIZE);
+            }
+            if (count % INDEX_INTERVAL == 0) addToIndex(count, (int) observedAt);
+            if (count == 0) firstTime = observedAt;
+            lastTime = observedAt;
+            count++;
+            for (Resolution resolution : Resolution.values()) {
+                addToRollup(rollupFile(resolution), Math.floorDiv(observedAt, resolution.seconds) * resolution.seconds,
+                        temperature, windSpeed, humidity);
+            }
+        }
+
+        // The first record of the index block that may hold the first record at or after the time.
+        int blockStart(long time) {
+            int block = 0;
+            for (int b = (count - 1) / INDEX_INTERVAL; b > 0; b--) {
+                if (Integer.toUnsignedLong(index[b]) <= time) {
+                    block = b;
+                    break;
+                }
+            }
+            return block * INDEX_INTERVAL;
+        }
+
+        // The end of the index block holding the last record at or before the time, exclusive.
+        int blockEnd(long time) {
+            int blocks = (count + INDEX_INTERVAL - 1) / INDEX_INTERVAL;
+            for (int b = 1; b < blocks; b++) {
+                if (Integer.toUnsignedLong(index[b]) > time) return b * INDEX_INTERVAL;
+            }
+            return count;
+        }
+
+        private void addToIndex(int record, int time) {
+            int entry = record / INDEX_INTERVAL;
+            if (entry == index.length) index = Arrays.copyOf(index, index.length * 2);
+            index[entry] = time;
+        }
+
+        private static void addToRollup(Path file, long start, short temperature, short windSpeed, int humidity) throws IOException {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE)) {
+                long size = channel.size() - channel.size() % ROLLUP_SIZE;
+                Bucket bucket = new Bucket(start);
+                long position = size;
+                if (size > 0) {
+                    ByteBuffer last = ByteBuffer.allocate(ROLLUP_SIZE);
+                    while (last.hasRemaining()) {
+                        if (channel.read(last, size - ROLLUP_SIZE + last.position()) < 0) throw new EOFException("Truncated " + file);
+                    }
+                    Bucket previous = new Bucket(0);
+                    previous.read(last, 0);
+                    // Observations arrive in time order, so only the last bucket can still be growing.
+                    if (previous.start == start) {
+                        bucket = previous;
+                        position = size - ROLLUP_SIZE;
+                    }
+                }
+                bucket.add(temperature, windSpeed, humidity);
+                ByteBuffer buffer = ByteBuffer.allocate(ROLLUP_SIZE);
+                bucket.write(buffer);
+                writeFully(channel, buffer.flip(), position);
+                if (channel.size() > position + ROLLUP_SIZE) channel.truncate(position + ROLLUP_SIZE);
+            }
+        }
+
+        private static long rollupCount(Path file) throws IOException {
+            if (!Files.exists(file)) return 0;
+            ByteBuffer buckets = readFully(file, 0, (int) (Files.size(file) / ROLLUP_SIZE * ROLLUP_SIZE));
+            long total = 0;
+            for (int position = 0; position < buckets.limit(); position += ROLLUP_SIZE) {
+                total += buckets.getInt(position + 4);
+            }
+            return total;
+        }
+
+        private void rebuildRollups(ByteBuffer records) throws IOException {
+            for (Resolution resolution : Resolution.values()) {
+                ByteBuffer out = ByteBuffer.allocate(count * ROLLUP_SIZE);
+                Bucket bucket = null;
+                for (int position = 0; position < records.limit(); position += RECORD_SIZE) {
+                    long start = Math.floorDiv(Integer.toUnsignedLong(records.getInt(position)), resolution.seconds) * resolution.seconds;
+                    if (bucket == null || bucket.start != start) {
+                        if (bucket != null) bucket.write(out);
+                        bucket = new Bucket(start);
+                    }
+                    bucket.add(records.getShort(position + 4), records.getShort(position + 6), records.get(position + 8) & 0xFF);
+                }
+                bucket.write(out);
+                try (FileChannel channel = FileChannel.open(rollupFile(resolution), StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                    writeFully(channel, out.flip(), 0);
+                }
+            }
+        }
+    }
+
+    /**
+     * One rollup bucket while it is read, updated or written. Means are kept as running means,
+     * so a bucket never overflows however many observations it holds.
+     */
+    private static final class Bucket {
+        long start;
+        int count;
+        float meanTemperature, meanWindSpeed, meanHumidity;
+        short minTemperature, maxTemperature, minWindSpeed, maxWindSpeed;
+        int minHumidity, maxHumidity;
+
+        Bucket(long start) {
+            this.start = start;
+        }
+
+        void add(short temperature, short windSpeed, int humidity) {
+            if (count == 0) {
+                minTemperature = maxTemperature = temperature;
+                minWindSpeed = maxWindSpeed = windSpeed;
+                minHumidity = maxHumidity = humidity;
+            } else {
+                minTemperature = (short) Math.min(minTemperature, temperature);
+                maxTemperature = (short) Math.max(maxTemperature, temperature);
+                minWindSpeed = (short) Math.min(minWindSpeed & 0xFFFF, windSpeed & 0xFFFF);
+                maxWindSpeed = (short) Math.max(maxWindSpeed & 0xFFFF, windSpeed & 0xFFFF);
+                minHumidity = Math.min(minHumidity, humidity);
+                maxHumidity = Math.max(maxHumidity, humidity);
+            }
+            count++;
+            meanTemperature += (temperature / 100f - meanTemperature) / count;
+            meanWindSpeed += ((windSpeed & 0xFFFF) / 100f - meanWindSpeed) / count;
+            meanHumidity += (humidity - meanHumidity) / count;
+        }
+
+        void read(ByteBuffer buffer, int position) {
+            start = Integer.toUnsignedLong(buffer.getInt(position));
+            count = buffer.getInt(position + 4);
+            meanTemperature = buffer.getFloat(position + 8);
+            meanWindSpeed = buffer.getFloat(position + 12);
+            meanHumidity = buffer.getFloat(position + 16);
+            minTemperature = buffer.getShort(position + 20);
+            maxTemperature = buffer.getShort(position + 22);
+            minWindSpeed = buffer.getShort(position + 24);
+            maxWindSpeed = buffer.getShort(position + 26);
+            minHumidity = buffer.get(position + 28) & 0xFF;
+            maxHumidity = buffer.get(position + 29) & 0xFF;
+        }
+
+        void write(ByteBuffer buffer) {
+            buffer.putInt((int) start).putInt(count)
+                    .putFloat(meanTemperature).putFloat(meanWindSpeed).putFloat(meanHumidity)
+                    .putShort(minTemperature).putShort(maxTemperature).putShort(minWindSpeed).putShort(maxWindSpeed)
+                    .put((byte) minHumidity).put((byte) maxHumidity).putShort((short) 0);
+        }
+    }
+
+    /**
+     * Rollup buckets held column by column, as parallel arrays indexed by bucket.
+     */
+    public static final class Rollups {
+        private int size;
+        private long[] starts = new long[16];
+        private int[] sampleCounts = new int[16];
+        private float[] temperatures = new float[16 * 3]; // min, mean, max per bucket; likewise below.
+        private float[] humidities = new float[16 * 3];
+        private float[] windSpeeds = new float[16 * 3];
+
+        private Rollups() {
+        }
+
+        private void add(Bucket bucket) {
+            if (size == starts.length) {
+                starts = Arrays.copyOf(starts, size * 2);
+                sampleCounts = Arrays.copyOf(sampleCounts, size * 2);
+                temperatures = Arrays.copyOf(temperatures, size * 6);
+                humidities = Arrays.copyOf(humidities, size * 6);
+                windSpeeds = Arrays.copyOf(windSpeeds, size * 6);
+            }
+            int i = size++, j = i * 3;
+            starts[i] = bucket.start;
+            sampleCounts[i] = bucket.count;
+            temperatures[j] = bucket.minTemperature / 100f;
+            temperatures[j + 1] = bucket.meanTemperature;
+            temperatures[j + 2] = bucket.maxTemperature / 100f;
+            humidities[j] = bucket.minHumidity;
+            humidities[j + 1] = bucket.meanHumidity;
+            humidities[j + 2] = bucket.maxHumidity;
+            windSpeeds[j] = (bucket.minWindSpeed & 0xFFFF) / 100f;
+            windSpeeds[j + 1] = bucket.meanWindSpeed;
+            windSpeeds[j + 2] = (bucket.maxWindSpeed & 0xFFFF) / 100f;
+        }
+
+        public int size() { return size; }
+        /** @return The start of the bucket, in Unix seconds. */
+        public long getStart(int bucket) { return starts[checkIndex(bucket)]; }
+        public int getSampleCount(int bucket) { return sampleCounts[checkIndex(bucket)]; }
+        public float getMinTemperature(int bucket) { return temperatures[checkIndex(bucket) * 3]; }
+        public float getMeanTemperature(int bucket) { return temperatures[checkIndex(bucket) * 3 + 1]; }
+        public float getMaxTemperature(int bucket) { return temperatures[checkIndex(bucket) * 3 + 2]; }
+        public float getMinHumidity(int bucket) { return humidities[checkIndex(bucket) * 3]; }
+        public float getMeanHumidity(int bucket) { return humidities[checkIndex(bucket) * 3 + 1]; }
+        public float getMaxHumidity(int bucket) { return humidities[checkIndex(bucket) * 3 + 2]; }
+        public float getMinWindSpeed(int bucket) { return windSpeeds[checkIndex(bucket) * 3]; }
+        public float getMeanWindSpeed(int bucket) { return windSpeeds[checkIndex(bucket) * 3 + 1]; }
+        public float getMaxWindSpeed(int bucket) { return windSpeeds[checkIndex(bucket) * 3 + 2]; }
+
+        private int checkIndex(int bucket) {
+            if (bucket < 0 || bucket >= size) throw new IndexOutOfBoundsException("Bucket " + bucket + ", size " + size);
+            return bucket;
+        }
+    }
+}
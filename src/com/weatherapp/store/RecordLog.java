@@ -0,0 +1,151 @@
+package com.weatherapp.store;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only file of self-describing records ({@code magic, length, crc32, payload}), the
+ * storage under {@link SnapshotStore} and {@link SearchHistory}. What a payload holds, and which
+ * records supersede which, is up to the owner.
+ * <p>
+ * Appends are not forced to disk: a record lost or torn by a crash fails its checksum on the
+ * next read, which cuts the file back to the last valid record. Compaction writes the live
+ * records to a temporary file, forces it, and atomically moves it over the log.
+ * Not thread-safe; owners call it under their own lock.
+ */
+final class RecordLog {
+    private static final int HEADER_SIZE = 12;
+
+    /**
+     * Receives each valid payload read from the log, in file order.
+     */
+    interface PayloadReader {
+        void read(byte[] payload) throws IOException;
+    }
+
+    private final Path file;
+    private final int magic;
+    private final int maxPayloadSize;
+    private final int compactionSlack;
+    private int recordCount;
+
+    /**
+     * @param file The file holding the records.
+     * @param magic Marks each record; records with another magic end the log like a corrupt tail.
+     * @param maxPayloadSize The largest payload accepted on read; a larger length means corruption.
+     * @param compactionSlack Superseded records tolerated before {@link #isCompactionDue(int)}.
+     */
+    RecordLog(Path file, int magic, int maxPayloadSize, int compactionSlack) {
+        this.file = file;
+        this.magic = magic;
+        this.maxPayloadSize = maxPayloadSize;
+        this.compactionSlack = compactionSlack;
+    }
+
+    /**
+     * Passes every valid record to the reader, then truncates any corrupted tail so new appends
+     * start on a clean boundary. A missing file reads as empty.
+     * @throws IOException If the file could not be read or a payload could not be decoded; the
+     *         file is then left untouched, since that says nothing about its integrity.
+     */
+    void read(PayloadReader reader) throws IOException {
+        recordCount = 0;
+        if (!Files.exists(file)) return;
+
+        long validLength = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            byte[] payload;
+            while ((payload = readRecord(in)) != null) {
+                reader.read(payload);
+                recordCount++;
+                validLength += HEADER_SIZE + payload.length;
+            }
+        }
+
+        try {
+            if (Files.size(file) > validLength) {
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                    channel.truncate(validLength);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Error repairing " + file + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Appends one record, creating the file and its directory if needed.
+     */
+    void append(byte[] payload) throws IOException {
+        Files.createDirectories(file.getParent());
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            writeRecord(channel, payload);
+        }
+        recordCount++;
+    }
+
+    /**
+     * @param liveRecords How many of the records are still current.
+     * @return Whether superseded records have come to outnumber live ones.
+     */
+    boolean isCompactionDue(int liveRecords) {
+        return recordCount > liveRecords * 2 + compactionSlack;
+    }
+
+    /**
+     * Replaces the log with exactly the given records. The new file is fully written and
+     * flushed before it atomically replaces the old one.
+     */
+    void rewrite(Collection<byte[]> payloads) throws IOException {
+        Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (byte[] payload : payloads) {
+                writeRecord(channel, payload);
+            }
+            channel.force(true);
+        }
+        Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        recordCount = payloads.size();
+    }
+
+    private void writeRecord(FileChannel channel, byte[] payload) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + payload.length);
+        buffer.putInt(magic).putInt(payload.length).putInt((int) crc.getValue()).put(payload).flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * @return The next record's payload, or null at end of file or at the first invalid record.
+     */
+    private byte[] readRecord(DataInputStream in) throws IOException {
+        try {
+            if (in.readInt() != magic) return null;
+            int length = in.readInt();
+            int expectedCrc = in.readInt();
+            if (length < 0 || length > maxPayloadSize) return null;
+            byte[] payload = new byte[length];
+            in.readFully(payload);
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            return (int) crc.getValue() == expectedCrc ? payload : null;
+        } catch (EOFException e) {
+            return null; // Clean end of file or a record cut short by a crash.
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package com.weatherapp.store;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The cities the user has searched for, ranked by how often and how recently.
+ * <p>
+ * Each search adds a weight that halves every {@code halfLifeMillis}, so a city searched daily
+ * outranks one searched many times last year, and a single search today outranks neither for
+ * long. The sum is kept as a logarithm relative to a fixed epoch instead of being decayed over
+ * time: comparing two such sums at any later moment gives the same order, so recording a search
+ * only updates one entry, in constant time, and nothing needs rescoring as time passes.
+ * <p>
+ * The history is persisted in a {@link RecordLog}, like {@link SnapshotStore}: every search
+ * appends the city's updated entry as a record, the last record per city wins on load, and the
+ * file is compacted once superseded records outnumber live ones.
+ */
+public class SearchHistory {
+    // "WSH1"
+    private static final int RECORD_MAGIC = 0x57534831;
+    private static final int MAX_PAYLOAD_SIZE = 1 << 12;
+    private static final int COMPACTION_SLACK = 64; // Superseded records tolerated before compacting.
+
+    private static final Comparator<Entry> BY_RANK = Comparator.comparingDouble(Entry::getLogScore).reversed()
+            .thenComparing(Comparator.comparingLong(Entry::getLastSearchedAt).reversed());
+
+    private final RecordLog log;
+    private final double decayPerMilli;
+    private final int maxEntries;
+    private final Map<String, Entry> entries = new HashMap<>();
+    private List<Entry> ranked; // Sorted on demand; null once an update invalidates it.
+
+    /**
+     * Constructs a history backed by the given file. Nothing is read until {@link #load()} is called.
+     * @param file The file holding the history records.
+     * @param halfLifeMillis How long until a search counts half as much as one made now.
+     * @param maxEntries The most cities kept; the lowest ranked are dropped when the file is compacted.
+     */
+    public SearchHistory(Path file, long halfLifeMillis, int maxEntries) {
+        this.log = new RecordLog(file, RECORD_MAGIC, MAX_PAYLOAD_SIZE, COMPACTION_SLACK);
+        this.decayPerMilli = Math.log(2) / Math.max(1, halfLifeMillis);
+        this.maxEntries = Math.max(1, maxEntries);
+    }
+
+    /**
+     * @return The default history location, {@code ~/.weatherapp/history.dat}.
+     */
+    public static Path defaultPath() {
+        return Paths.get(System.getProperty("user.home"), ".weatherapp", "history.dat");
+    }
+
+    /**
+     * Reads every valid record from disk, truncating any corrupted tail.
+     * Errors are logged and leave the history empty rather than failing startup.
+     */
+    public synchronized void load() {
+        entries.clear();
+        ranked = null;
+        try {
+            log.read(payload -> {
+                Entry entry = decode(payload);
+                entries.put(normalize(entry.getCityName()), entry);
+            });
+        } catch (IOException e) {
+            System.err.println("Error reading search history: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Records a search and persists the city's updated entry.
+     * @param cityName The city's name as the weather service reported it.
+     * @param cityId The OpenWeatherMap city ID, or 0 if unknown.
+     */
+    public synchronized void record(String cityName, long cityId) {
+        long now = System.currentTimeMillis();
+        String key = normalize(cityName);
+        Entry previous = entries.get(key);
+        double weight = now * decayPerMilli; // log of e^(decay * now): this search's weight, relative to the epoch.
+        Entry entry = previous == null
+                ? new Entry(cityName, cityId, 1, now, weight)
+                : new Entry(cityName, cityId != 0 ? cityId : previous.getCityId(), previous.getCount() + 1, now,
+                        logAddExp(previous.getLogScore(), weight));
+        entries.put(key, entry);
+        ranked = null;
+
+        try {
+            log.append(encode(entry));
+            if (log.isCompactionDue(entries.size())) {
+                compact();
+            }
+        } catch (IOException e) {
+            System.err.println("Error writing search history: " + e.getMessage());
+        }
+    }
+
+    /**
+     * @return Every city searched for, best ranked first. The list is shared until the next
+     *         search is recorded, so repeated calls between searches cost nothing.
+     */
+    public synchronized List<Entry> ranked() {
+        if (ranked == null) {
+            List<Entry> sorted = new ArrayList<>(entries.values());
+            sorted.sort(BY_RANK);
+            ranked = Collections.unmodifiableList(sorted);
+        }
+        return ranked;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Rewrites the file with one record per city, keeping at most {@code maxEntries} of the best
+     * ranked.
+     */
+    private void compact() throws IOException {
+        List<Entry> kept = ranked();
+        if (kept.size() > maxEntries) {
+            kept = kept.subList(0, maxEntries);
+            entries.clear();
+            for (Entry entry : kept) {
+                entries.put(normalize(entry.getCityName()), entry);
+            }
+            ranked = null;
+        }
+        List<byte[]> payloads = new ArrayList<>(kept.size());
+        for (Entry entry : kept) {
+            payloads.add(encode(entry));
+        }
+        log.rewrite(payloads);
+    }
+
+    /**
+     * @return log(e^a + e^b), computed without overflowing for large a and b.
+     */
+    private static double logAddExp(double a, double b) {
+        double max = Math.max(a, b);
+        return max + Math.log1p(Math.exp(Math.min(a, b) - max));
+    }
+
+    private static byte[] encode(Entry entry) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeUTF(entry.getCityName());
+        out.writeLong(entry.getCityId());
+        out.writeInt(entry.getCount());
+        out.writeLong(entry.getLastSearchedAt());
+        out.writeDouble(entry.getLogScore());
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private static Entry decode(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        return new Entry(in.readUTF(), in.readLong(), in.readInt(), in.readLong(), in.readDouble());
+    }
+
+    private static String normalize(String cityName) {
+        return cityName.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * One city in the history. Immutable; each search replaces the city's entry.
+     */
+    public static final class Entry {
+        private final String cityName;
+        private final long cityId;
+        private final int count;
+        private final long lastSearchedAt;
+        private final double logScore;
+
+        private Entry(String cityName, long cityId, int count, long lastSearchedAt, double logScore) {
+            this.cityName = cityName;
+            this.cityId = cityId;
+            this.count = count;
+            this.lastSearchedAt = lastSearchedAt;
+            this.logScore = logScore;
+        }
+
+        public String getCityName() { return cityName; }
+        /** @return The OpenWeatherMap city ID, or 0 if unknown. */
+        public long getCityId() { return cityId; }
+        public int getCount() { return count; }
+        public long getLastSearchedAt() { return lastSearchedAt; }
+        /** @return The ranking score; only meaningful compared with other entries' scores. */
+        public double getLogScore() { return logScore; }
+    }
+}
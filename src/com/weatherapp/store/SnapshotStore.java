@@ -0,0 +1,153 @@
+package com.weatherapp.store;
+
+import com.weatherapp.model.ForecastData;
+import com.weatherapp.model.WeatherData;
+import com.weatherapp.model.WeatherSnapshot;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Persists the last known weather snapshot for each city in a compact, append-only binary file
+ * so that the UI can show data immediately on startup, before any network request completes.
+ * <p>
+ * Every save appends one checksummed record to a {@link RecordLog}. When loading, the last
+ * record for a city wins. Once superseded records outnumber live ones, the log is compacted.
+ */
+public class SnapshotStore {
+    // "WSN3": records from older layouts fail the magic check and are discarded like a corrupt tail.
+    private static final int RECORD_MAGIC = 0x57534E33;
+    private static final int MAX_PAYLOAD_SIZE = 1 << 20;
+    private static final int COMPACTION_SLACK = 32; // Superseded records tolerated before compacting.
+
+    private final RecordLog log;
+    private final Map<String, WeatherSnapshot> snapshots = new HashMap<>();
+
+    /**
+     * Constructs a store backed by the given file. Nothing is read until {@link #load()} is called.
+     * @param file The file holding the snapshot records.
+     */
+    public SnapshotStore(Path file) {
+        this.log = new RecordLog(file, RECORD_MAGIC, MAX_PAYLOAD_SIZE, COMPACTION_SLACK);
+    }
+
+    /**
+     * @return The default store location, {@code ~/.weatherapp/snapshots.dat}.
+     */
+    public static Path defaultPath() {
+        return Paths.get(System.getProperty("user.home"), ".weatherapp", "snapshots.dat");
+    }
+
+    /**
+     * Reads every valid record from disk, truncating any corrupted tail.
+     * Errors are logged and leave the store empty rather than failing startup.
+     */
+    public synchronized void load() {
+        snapshots.clear();
+        try {
+            log.read(payload -> {
+                WeatherSnapshot snapshot = decode(payload);
+                snapshots.put(normalize(snapshot.getCurrentWeather().getCityName()), snapshot);
+            });
+        } catch (IOException e) {
+            System.err.println("Error reading snapshot store: " + e.getMessage());
+        }
+    }
+
+    /**
+     * @param cityName The city name, in any letter case.
+     * @return The last stored snapshot for the city, or null if there is none.
+     */
+    public synchronized WeatherSnapshot get(String cityName) {
+        return snapshots.get(normalize(cityName));
+    }
+
+    /**
+     * Stores a snapshot, replacing the previous one for the same city.
+     * @param snapshot The snapshot to persist.
+     */
+    public synchronized void save(WeatherSnapshot snapshot) {
+        snapshots.put(normalize(snapshot.getCurrentWeather().getCityName()), snapshot);
+        try {
+            log.append(encode(snapshot));
+            if (log.isCompactionDue(snapshots.size())) {
+                compact();
+            }
+        } catch (IOException e) {
+            System.err.println("Error writing snapshot store: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Stores new current weather for a city, keeping the previously stored forecast.
+     * @param currentWeather The current weather to persist.
+     */
+    public synchronized void saveCurrentWeather(WeatherData currentWeather) {
+        WeatherSnapshot previous = get(currentWeather.getCityName());
+        List<ForecastData> forecast = previous != null ? previous.getForecast() : List.of();
+        save(new WeatherSnapshot(currentWeather, forecast, System.currentTimeMillis()));
+    }
+
+    /**
+     * Rewrites the file so it contains exactly one record per city.
+     */
+    private void compact() throws IOException {
+        List<byte[]> payloads = new ArrayList<>(snapshots.size());
+        for (WeatherSnapshot snapshot : snapshots.values()) {
+            payloads.add(encode(snapshot));
+        }
+        log.rewrite(payloads);
+    }
+
+    private static byte[] encode(WeatherSnapshot snapshot) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        DataOutputStream out = new DataOutputStream(bytes);
+        WeatherData current = snapshot.getCurrentWeather();
+        out.writeLong(snapshot.getFetchedAt());
+        out.writeLong(current.getCityId());
+        out.writeUTF(current.getCityName());
+        out.writeDouble(current.getTemperature());
+        out.writeUTF(current.getDescription());
+        out.writeUTF(current.getIconCode());
+        out.writeDouble(current.getWindSpeed());
+        out.writeInt(current.getHumidity());
+        out.writeLong(current.getSunrise());
+        out.writeLong(current.getSunset());
+        out.writeLong(current.getObservedAt());
+        out.writeShort(snapshot.getForecast().size());
+        for (ForecastData day : snapshot.getForecast()) {
+            out.writeUTF(day.getDayOfWeek());
+            out.writeDouble(day.getTemperature());
+            out.writeUTF(day.getIconCode());
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private static WeatherSnapshot decode(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        long fetchedAt = in.readLong();
+        WeatherData current = new WeatherData(in.readLong(), in.readUTF(), in.readDouble(), in.readUTF(), in.readUTF(),
+                in.readDouble(), in.readInt(), in.readLong(), in.readLong(), in.readLong());
+        int forecastCount = in.readShort();
+        List<ForecastData> forecast = new ArrayList<>(forecastCount);
+        for (int i = 0; i < forecastCount; i++) {
+            forecast.add(new ForecastData(in.readUTF(), in.readDouble(), in.readUTF()));
+        }
+        return new WeatherSnapshot(current, forecast, fetchedAt);
+    }
+
+    private static String normalize(String cityName) {
+        return cityName.trim().toLowerCase(Locale.ROOT);
+    }
+}
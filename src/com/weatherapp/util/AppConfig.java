@@ -0,0 +1,107 @@
+package com.weatherapp.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Properties;
+
+/**
+ * A utility class to read the application's settings.
+ * Defaults come from {@code /weatherapp.properties} on the classpath and can be overridden
+ * per user in {@code ~/.weatherapp/weatherapp.properties}.
+ */
+public class AppConfig {
+    private static final String RESOURCE_PATH = "/weatherapp.properties";
+
+    private static AppConfig defaultConfig;
+
+    private final Properties properties;
+
+    public AppConfig(Properties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * Returns the application's configuration, loading it on first use.
+     */
+    public static synchronized AppConfig getDefault() {
+        if (defaultConfig == null) {
+            defaultConfig = load();
+        }
+        return defaultConfig;
+    }
+
+    /**
+     * Loads the bundled defaults, then applies the user's overrides if that file exists.
+     * @return The merged configuration.
+     */
+    public static AppConfig load() {
+        Properties properties = new Properties();
+        try (InputStream in = AppConfig.class.getResourceAsStream(RESOURCE_PATH)) {
+            if (in != null) properties.load(in);
+        } catch (IOException e) {
+            System.err.println("Error reading " + RESOURCE_PATH + ": " + e.getMessage());
+        }
+        Path userFile = userConfigPath();
+        if (Files.isReadable(userFile)) {
+            try (InputStream in = Files.newInputStream(userFile)) {
+                properties.load(in);
+            } catch (IOException e) {
+                System.err.println("Error reading " + userFile + ": " + e.getMessage());
+            }
+        }
+        return new AppConfig(properties);
+    }
+
+    /**
+     * @return The per-user configuration file, {@code ~/.weatherapp/weatherapp.properties}.
+     */
+    public static Path userConfigPath() {
+        return Paths.get(System.getProperty("user.home"), ".weatherapp", "weatherapp.properties");
+    }
+
+    public String getString(String key, String defaultValue) {
+        String value = properties.getProperty(key);
+        return value == null ? defaultValue : value.trim();
+    }
+
+    public int getInt(String key, int defaultValue) {
+        String value = properties.getProperty(key);
+        if (value == null) return defaultValue;
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid value for " + key + ": " + value);
+            return defaultValue;
+        }
+    }
+
+    public long getLong(String key, long defaultValue) {
+        String value = properties.getProperty(key);
+        if (value == null) return defaultValue;
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid value for " + key + ": " + value);
+            return defaultValue;
+        }
+    }
+
+    public double getDouble(String key, double defaultValue) {
+        String value = properties.getProperty(key);
+        if (value == null) return defaultValue;
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid value for " + key + ": " + value);
+            return defaultValue;
+        }
+    }
+
+    public boolean getBoolean(String key, boolean defaultValue) {
+        String value = properties.getProperty(key);
+        return value == null ? defaultValue : Boolean.parseBoolean(value.trim());
+    }
+}
@@ -0,0 +1,52 @@
+package com.weatherapp.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Loads the fonts and icons in parallel on background threads while the window is being built.
+ * <p>
+ * Fonts are queued first because the window cannot be laid out without them, then the interface
+ * icons it shows immediately, then every weather icon at every size. Whatever the window asks for
+ * before it is ready is loaded once, by whichever thread gets there first: see {@link FontLoader}
+ * and {@link IconLoader}.
+ */
+public final class AssetPreloader {
+    /** The font files the GUI uses. */
+    public static final String[] FONT_PATHS = { FontLoader.REGULAR, FontLoader.BOLD };
+
+    private AssetPreloader() {
+    }
+
+    /**
+     * Starts loading every asset and returns immediately.
+     * @return Completes once every asset has been loaded, or has failed to.
+     */
+    public static CompletableFuture<Void> start() {
+        int threads = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "asset-preload-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        List<CompletableFuture<?>> tasks = new ArrayList<>();
+        for (String path : FONT_PATHS) {
+            tasks.add(CompletableFuture.runAsync(() -> FontLoader.preload(path), executor));
+        }
+        for (String path : IconLoader.UI_ICON_PATHS) {
+            tasks.add(CompletableFuture.runAsync(() -> IconLoader.getResourceIcon(path), executor));
+        }
+        for (String code : IconLoader.ICON_CODES) {
+            tasks.add(CompletableFuture.runAsync(() -> IconLoader.prewarm(code), executor));
+        }
+        CompletableFuture<Void> all = CompletableFuture.allOf(tasks.toArray(new CompletableFuture<?>[0]));
+        all.whenComplete((result, error) -> executor.shutdown());
+        return all;
+    }
+}
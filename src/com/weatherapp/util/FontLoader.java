@@ -5,13 +5,27 @@ import java.awt.FontFormatException;
 import java.awt.GraphicsEnvironment;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
 
 /**
  * A utility class to load custom fonts from the project's resources.
  * This ensures the application has a consistent look and feel on any system,
  * regardless of which fonts are installed locally.
+ * <p>
+ * Each font file is parsed and registered once; every size is derived from that base font.
+ * {@link #preload(String)} lets startup parse the files on a background thread, in which case
+ * a {@link #loadFont(String, float)} call for the same file waits for that parse instead of
+ * repeating it.
  */
 public class FontLoader {
+    public static final String REGULAR = "/fonts/Montserrat-Regular.ttf";
+    public static final String BOLD = "/fonts/Montserrat-Bold.ttf";
+
+    // Resource path to the parse of that file, run by whichever thread asked first.
+    private static final Map<String, FutureTask<Font>> baseFonts = new ConcurrentHashMap<>();
 
     /**
      * Loads a font from a given resource path and derives it with a specified size.
@@ -20,23 +34,51 @@ public class FontLoader {
      * @return The loaded Font object, or a default "Dialog" font if loading fails.
      */
     public static Font loadFont(String resourcePath, float size) {
+        Font base = preload(resourcePath);
+        if (base == null) {
+            // Fallback to a default system font to prevent the application from crashing.
+            return new Font("Dialog", Font.PLAIN, (int) size);
+        }
+        return base.deriveFont(size);
+    }
+
+    /**
+     * Parses and registers a font file unless that has already been done or is in progress.
+     * @param resourcePath The path to the font file within the resources folder.
+     * @return The font at size 1, or null if it could not be loaded.
+     */
+    public static Font preload(String resourcePath) {
+        FutureTask<Font> task = new FutureTask<>(() -> parse(resourcePath));
+        FutureTask<Font> existing = baseFonts.putIfAbsent(resourcePath, task);
+        if (existing == null) {
+            existing = task;
+            task.run();
+        }
         try {
-            // Get the font file as a stream from the application's resources.
-            InputStream fontStream = FontLoader.class.getResourceAsStream(resourcePath);
+            return existing.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            return null; // parse() reports its own errors.
+        }
+    }
+
+    private static Font parse(String resourcePath) {
+        // Get the font file as a stream from the application's resources.
+        try (InputStream fontStream = FontLoader.class.getResourceAsStream(resourcePath)) {
             if (fontStream == null) {
                 // This error is critical for debugging if font files are misplaced.
                 System.err.println("Font not found at path: " + resourcePath);
-                return new Font("Dialog", Font.PLAIN, (int) size);
+                return null;
             }
-            // Create the font from the stream and derive it to the desired size.
-            Font customFont = Font.createFont(Font.TRUETYPE_FONT, fontStream).deriveFont(size);
+            Font customFont = Font.createFont(Font.TRUETYPE_FONT, fontStream);
             GraphicsEnvironment ge = GraphicsEnvironment.getLocalGraphicsEnvironment();
             ge.registerFont(customFont); // Register the font to make it available to the system.
             return customFont;
         } catch (IOException | FontFormatException e) {
             System.err.println("Error loading font: " + e.getMessage());
-            // Fallback to a default system font to prevent the application from crashing.
-            return new Font("Dialog", Font.PLAIN, (int) size);
+            return null;
         }
     }
 }
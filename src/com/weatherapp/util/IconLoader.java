@@ -0,0 +1,189 @@
+package com.weatherapp.util;
+
+import com.weatherapp.metrics.Metrics;
+
+import javax.imageio.ImageIO;
+import javax.swing.ImageIcon;
+import java.awt.Graphics2D;
+import java.awt.GraphicsEnvironment;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A utility class to load weather condition icons from the project's resources at a given size.
+ * <p>
+ * Every (icon code, size) pair is scaled once, using progressive bilinear halving for quality,
+ * into an image compatible with the screen. Scaled icons are kept in a least-recently-used cache
+ * bounded by their pixel memory. The full-size PNGs are several times larger than all scaled
+ * icons together, so they are not kept: each is decoded when a size is missing and dropped once
+ * scaled, and {@link #prewarm(String)} decodes it once for all known sizes.
+ */
+public class IconLoader {
+    /** Every icon code OpenWeatherMap can return. */
+    public static final String[] ICON_CODES = {
+            "01d", "01n", "02d", "02n", "03d", "03n", "04d", "04n", "09d",
+            "09n", "10d", "10n", "11d", "11n", "13d", "13n", "50d", "50n"
+    };
+    /** Icon sizes used by the GUI: the main icon, the forecast tiles and the recent searches. */
+    public static final int[] KNOWN_SIZES = { 120, 50, 40 };
+    /** The fixed interface icons, shown at their original size. */
+    public static final String[] UI_ICON_PATHS = {
+            "/icons/search.png", "/icons/location.png", "/icons/wind.png",
+            "/icons/sunrise.png", "/icons/humidity.png", "/icons/sunset.png"
+    };
+
+    private static final long MAX_CACHE_BYTES = 4L * 1024 * 1024;
+
+    private static final Map<String, ImageIcon> resourceIcons = new ConcurrentHashMap<>();
+    private static final Map<String, ImageIcon> scaledIcons = new LinkedHashMap<>(64, 0.75f, true);
+    private static long cachedBytes;
+
+    /**
+     * Returns the icon for a weather condition scaled to a square of the given size.
+     * @param iconCode The OpenWeatherMap icon code, e.g. "01d".
+     * @param size The width and height in pixels.
+     * @return The scaled icon, or null if no icon exists for the code.
+     */
+    public static ImageIcon getIcon(String iconCode, int size) {
+        long start = System.nanoTime();
+        try {
+            String key = iconCode + '@' + size;
+            ImageIcon cached = cached(key);
+            if (cached != null) return cached;
+
+            BufferedImage source = decode(iconCode);
+            return source != null ? cache(key, size, scale(source, size)) : null;
+        } finally {
+            Metrics.recordSince(Metrics.Stage.ICON_LOAD, start);
+        }
+    }
+
+    /**
+     * Returns an interface icon, such as the search or wind icon, at its original size.
+     * The PNG is decoded once, directly rather than through {@code new ImageIcon(URL)},
+     * which would decode it again for every label and wait on AWT's image loader to do so.
+     * @param resourcePath The path within the resources folder, e.g. "/icons/search.png".
+     * @return The icon, or null if it could not be loaded.
+     */
+    public static ImageIcon getResourceIcon(String resourcePath) {
+        ImageIcon cached = resourceIcons.get(resourcePath);
+        if (cached != null) return cached;
+        BufferedImage image = read(resourcePath);
+        if (image == null) return null;
+        ImageIcon icon = resourceIcons.putIfAbsent(resourcePath, new ImageIcon(image));
+        return icon != null ? icon : resourceIcons.get(resourcePath);
+    }
+
+    /**
+     * Decodes and scales one weather icon at every known size, so the first searches do not pay for it.
+     */
+    public static void prewarm(String iconCode) {
+        BufferedImage source = null; // Decoded once for every missing size, then dropped.
+        for (int size : KNOWN_SIZES) {
+            String key = iconCode + '@' + size;
+            if (cached(key) != null) continue;
+            if (source == null) {
+                source = decode(iconCode);
+                if (source == null) return;
+            }
+            cache(key, size, scale(source, size));
+        }
+    }
+
+    /**
+     * Scales an image to a square of the given size. Downscaling halves the image with bilinear
+     * filtering until one final bilinear pass reaches the target, which avoids the aliasing of a
+     * single large reduction while staying much faster than {@code Image.SCALE_SMOOTH}.
+     * @param source The decoded image.
+     * @param size The target width and height in pixels.
+     * @return A new image of the requested size.
+     */
+    public static BufferedImage scale(BufferedImage source, int size) {
+        BufferedImage current = source;
+        int width = source.getWidth();
+        int height = source.getHeight();
+        do {
+            width = Math.max(size, width / 2);
+            height = Math.max(size, height / 2);
+            if (width < size * 2 && height < size * 2) {
+                width = size;
+                height = size;
+            }
+            BufferedImage next = createCompatibleImage(width, height);
+            Graphics2D g2 = next.createGraphics();
+            g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g2.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g2.drawImage(current, 0, 0, width, height, null);
+            g2.dispose();
+            current = next;
+        } while (width != size || height != size);
+        return current;
+    }
+
+    private static ImageIcon cached(String key) {
+        synchronized (scaledIcons) {
+            return scaledIcons.get(key);
+        }
+    }
+
+    /**
+     * @return The icon now cached under the key: this one, or one another thread scaled first.
+     */
+    private static ImageIcon cache(String key, int size, BufferedImage image) {
+        ImageIcon icon = new ImageIcon(image);
+        synchronized (scaledIcons) {
+            ImageIcon existing = scaledIcons.putIfAbsent(key, icon);
+            if (existing != null) return existing;
+            cachedBytes += (long) size * size * 4;
+            evictIfNeeded();
+        }
+        return icon;
+    }
+
+    private static BufferedImage decode(String iconCode) {
+        return read("/assets/" + iconCode + ".png");
+    }
+
+    private static BufferedImage read(String path) {
+        try (InputStream in = IconLoader.class.getResourceAsStream(path)) {
+            if (in == null) {
+                Metrics.increment(Metrics.Counter.ICON_LOAD_FAILURES);
+                System.err.println("Could not find icon file: " + path);
+                return null;
+            }
+            return ImageIO.read(in);
+        } catch (IOException e) {
+            Metrics.increment(Metrics.Counter.ICON_LOAD_FAILURES);
+            System.err.println("Error loading icon " + path + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Creates a translucent image in the screen's native pixel format, so drawing it needs no conversion.
+     */
+    private static BufferedImage createCompatibleImage(int width, int height) {
+        if (GraphicsEnvironment.isHeadless()) {
+            return new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB_PRE);
+        }
+        return GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice()
+                .getDefaultConfiguration().createCompatibleImage(width, height, Transparency.TRANSLUCENT);
+    }
+
+    // Must be called while holding the scaledIcons lock.
+    private static void evictIfNeeded() {
+        Iterator<Map.Entry<String, ImageIcon>> iterator = scaledIcons.entrySet().iterator();
+        while (cachedBytes > MAX_CACHE_BYTES && iterator.hasNext()) {
+            ImageIcon evicted = iterator.next().getValue();
+            cachedBytes -= (long) evicted.getIconWidth() * evicted.getIconHeight() * 4;
+            iterator.remove();
+        }
+    }
+}
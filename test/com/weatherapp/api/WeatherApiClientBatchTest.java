@@ -0,0 +1,184 @@
+package com.weatherapp.api;
+
+import com.sun.net.httpserver.HttpServer;
+import com.weatherapp.model.WeatherData;
+import okhttp3.OkHttpClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs {@link WeatherApiClient#getCurrentWeatherForCities} against a local stand-in for the group
+ * endpoint, which answers with one city per requested ID and records every call it receives.
+ */
+class WeatherApiClientBatchTest {
+    private HttpServer server;
+    private ExecutorService executor;
+    private final List<List<Long>> groupCalls = new CopyOnWriteArrayList<>();
+    private final Set<Long> unknownIds = ConcurrentHashMap.newKeySet();
+    private final Set<Long> failingIds = ConcurrentHashMap.newKeySet(); // A call holding one of these gets a 429.
+    private volatile CountDownLatch arrived = new CountDownLatch(0);
+    private volatile CountDownLatch release = new CountDownLatch(0);
+
+    @BeforeEach
+    void startServer() throws IOException {
+        executor = Executors.newCachedThreadPool();
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 16);
+        server.setExecutor(executor);
+        server.createContext("/data/2.5/group", exchange -> {
+            String query = exchange.getRequestURI().getQuery();
+            String ids = query.substring(query.indexOf("id=") + 3, query.indexOf('&', query.indexOf("id=")));
+            List<Long> requested = Arrays.stream(ids.split(",")).map(Long::parseLong).collect(Collectors.toList());
+            groupCalls.add(requested);
+            arrived.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            int status = 200;
+            String body;
+            if (requested.stream().anyMatch(failingIds::contains)) {
+                status = 429;
+                body = "{\"cod\":429,\"message\":\"too many requests\"}";
+            } else {
+                body = requested.stream().filter(id -> !unknownIds.contains(id)).map(WeatherApiClientBatchTest::city)
+                        .collect(Collectors.joining(",", "{\"cnt\":" + requested.size() + ",\"list\":[", "]}"));
+            }
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    @Test
+    void requestsAtMostTwentyIdsPerCall() throws ApiException {
+        List<Long> ids = ids(1, 21);
+        Map<Long, WeatherData> weather = client(60_000).getCurrentWeatherForCities(ids);
+
+        assertEquals(List.of(ids(1, 20), ids(21, 21)), groupCalls);
+        assertEquals(ids, new ArrayList<>(weather.keySet()));
+        assertEquals("City 21", weather.get(21L).getCityName());
+    }
+
+    @Test
+    void concurrentCallersShareOneUpstreamCall() throws Exception {
+        WeatherApiClient client = client(60_000);
+        arrived = new CountDownLatch(1);
+        release = new CountDownLatch(1);
+
+        CompletableFuture<Map<Long, WeatherData>> first = CompletableFuture.supplyAsync(() -> fetch(client, List.of(7L)), executor);
+        assertTrue(arrived.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Map<Long, WeatherData>> second = CompletableFuture.supplyAsync(() -> fetch(client, List.of(7L)), executor);
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (client.getCoalescedRequestCount() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        release.countDown();
+
+        assertEquals(1, client.getCoalescedRequestCount());
+        assertSame(first.get(5, TimeUnit.SECONDS).get(7L), second.get(5, TimeUnit.SECONDS).get(7L));
+        assertEquals(1, groupCalls.size());
+    }
+
+    @Test
+    void nextLookupsHitTheCacheUnderTheId() throws ApiException {
+        WeatherApiClient client = client(60_000);
+        Map<Long, WeatherData> weather = client.getCurrentWeatherForCities(ids(1, 3));
+
+        assertEquals(weather, client.getCurrentWeatherForCities(ids(1, 3)));
+        assertSame(weather.get(2L), client.getCurrentWeather(2L));
+        assertEquals(1, groupCalls.size());
+    }
+
+    @Test
+    void resultsFollowRequestOrderAndSkipUnknownIds() throws ApiException {
+        unknownIds.add(99L);
+        WeatherApiClient client = client(60_000);
+        client.getCurrentWeatherForCities(List.of(3L)); // Cached, so collected apart from the fetched ones.
+
+        Map<Long, WeatherData> weather = client.getCurrentWeatherForCities(List.of(5L, 99L, 3L, 4L));
+
+        assertEquals(List.of(5L, 3L, 4L), new ArrayList<>(weather.keySet()));
+        assertEquals(List.of(5L, 99L, 4L), groupCalls.get(1));
+    }
+
+    @Test
+    void failedCallKeepsTheOtherCallsCities() throws ApiException {
+        failingIds.add(45L);
+        Map<Long, WeatherData> weather = client(60_000).getCurrentWeatherForCities(ids(1, 60));
+
+        assertEquals(3, groupCalls.size());
+        assertEquals(ids(1, 40), new ArrayList<>(weather.keySet()));
+    }
+
+    @Test
+    void failedCallServesStaleEntries() throws Exception {
+        WeatherApiClient client = client(1);
+        client.getCurrentWeatherForCities(ids(1, 3));
+        Thread.sleep(10); // Past the TTL and the stale window.
+        failingIds.addAll(ids(1, 5));
+
+        assertEquals(ids(1, 3), new ArrayList<>(client.getCurrentWeatherForCities(ids(1, 3)).keySet()));
+        // With nothing cached for them, failed cities leave nothing to return.
+        assertThrows(ApiException.class, () -> client.getCurrentWeatherForCities(List.of(4L, 5L)));
+    }
+
+    private WeatherApiClient client(long currentWeatherTtlMillis) {
+        // One attempt per call, so a 429 fails at once instead of being retried.
+        return new WeatherApiClient(new OkHttpClient(), "http://127.0.0.1:" + server.getAddress().getPort() + "/data/2.5/",
+                currentWeatherTtlMillis, 60_000, new RetryPolicy(1, 0, 0), new CircuitBreaker(100, 60_000),
+                new RateLimiter(1_000_000, 1_000));
+    }
+
+    private static Map<Long, WeatherData> fetch(WeatherApiClient client, List<Long> ids) {
+        try {
+            return client.getCurrentWeatherForCities(ids);
+        } catch (ApiException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static List<Long> ids(long first, long last) {
+        return LongStream.rangeClosed(first, last).boxed().collect(Collectors.toList());
+    }
+
+    private static String city(long id) {
+        return "{\"id\":" + id + ",\"name\":\"City " + id + "\",\"dt\":1700000000,"
+                + "\"weather\":[{\"description\":\"clear sky\",\"icon\":\"01d\"}],"
+                + "\"main\":{\"temp\":20.5,\"humidity\":50},\"wind\":{\"speed\":3.5},"
+                + "\"sys\":{\"sunrise\":1700000000,\"sunset\":1700040000}}";
+    }
+}
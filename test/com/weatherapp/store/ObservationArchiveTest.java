@@ -0,0 +1,132 @@
+package com.weatherapp.store;
+
+import com.weatherapp.model.ForecastData;
+import com.weatherapp.model.WeatherData;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ObservationArchiveTest {
+    private static final List<ForecastData> FORECAST = List.of(
+            new ForecastData("Mon", 31.25, "01d"),
+            new ForecastData("Tue", -4.5, "13d"),
+            new ForecastData("Wed", 18.0, "10n"));
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void observationsReadBackAsWritten() throws IOException {
+        List<WeatherData> observations = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            observations.add(new WeatherData(1275339 + i % 7, "City " + i % 7, -20 + i * 0.75, i % 2 == 0 ? "clear sky" : "light rain",
+                    i % 2 == 0 ? "01d" : "10n", i * 0.25, i % 101, 1_700_000_000L + i, 1_700_040_000L + i, 1_700_010_000L + 600L * i));
+        }
+        Path file = dir.resolve("observations.woa");
+        try (ObservationArchive.Writer writer = new ObservationArchive.Writer(file)) {
+            for (int i = 0; i < observations.size(); i++) {
+                writer.append(observations.get(i), i % 3 == 0 ? List.of() : FORECAST);
+            }
+        }
+
+        ObservationArchive archive = ObservationArchive.open(file);
+        assertEquals(observations.size(), archive.size());
+        ObservationArchive.Cursor cursor = archive.cursor();
+        for (int i = 0; i < observations.size(); i++) {
+            assertTrue(cursor.next());
+            assertSameWeather(observations.get(i), cursor.toWeatherData());
+            assertEquals(i % 3 == 0 ? List.of() : FORECAST, cursor.toForecast());
+        }
+        assertFalse(cursor.next());
+
+        // Random access lands on the same records as the scan.
+        assertSameWeather(observations.get(17), archive.cursor().moveTo(17).toWeatherData());
+        assertThrows(IndexOutOfBoundsException.class, () -> archive.cursor().moveTo(observations.size()));
+    }
+
+    @Test
+    void rejectedObservationLeavesNoPartialRecord() throws IOException {
+        WeatherData first = new WeatherData(1, "Mumbai", 30.5, "haze", "50d", 2.5, 70, 1_700_000_000L, 1_700_040_000L, 1_700_010_000L);
+        WeatherData badTime = new WeatherData(2, "Pune", 28, "clear sky", "01d", 1, 40, -1, 1_700_040_000L, 1_700_010_000L);
+        WeatherData badId = new WeatherData(-3, "Delhi", 35, "smoke", "50d", 1, 20, 1_700_000_000L, 1_700_040_000L, 1_700_010_000L);
+        WeatherData last = new WeatherData(4, "Chennai", 33.25, "light rain", "10d", 4.75, 80, 1_700_000_100L, 1_700_040_100L, 1_700_010_600L);
+        Path file = dir.resolve("observations.woa");
+        try (ObservationArchive.Writer writer = new ObservationArchive.Writer(file)) {
+            writer.append(first, FORECAST);
+            assertThrows(IllegalArgumentException.class, () -> writer.append(badTime, FORECAST));
+            assertThrows(IllegalArgumentException.class, () -> writer.append(badId, List.of()));
+            writer.append(last, List.of());
+            assertEquals(2, writer.size());
+        }
+
+        ObservationArchive archive = ObservationArchive.open(file);
+        assertEquals(2, archive.size());
+        ObservationArchive.Cursor cursor = archive.cursor();
+        assertTrue(cursor.next());
+        assertSameWeather(first, cursor.toWeatherData());
+        assertEquals(FORECAST, cursor.toForecast());
+        assertTrue(cursor.next());
+        assertSameWeather(last, cursor.toWeatherData());
+        assertEquals(List.of(), cursor.toForecast());
+    }
+
+    @Test
+    void emptyArchiveHasNoObservations() throws IOException {
+        Path file = dir.resolve("empty.woa");
+        new ObservationArchive.Writer(file).close();
+
+        ObservationArchive archive = ObservationArchive.open(file);
+        assertEquals(0, archive.size());
+        assertFalse(archive.cursor().next());
+    }
+
+    @Test
+    void truncatedArchiveIsRejected() throws IOException {
+        Path file = dir.resolve("observations.woa");
+        try (ObservationArchive.Writer writer = new ObservationArchive.Writer(file)) {
+            for (int i = 0; i < 10; i++) {
+                writer.append(new WeatherData(100 + i, "City " + i, 20, "clear sky", "01d", 3, 50, 0, 0, 1_700_000_000L), FORECAST);
+            }
+        }
+        long length = Files.size(file);
+
+        // Cut inside the header, inside the records, and inside the last string of the name table.
+        for (long cut : new long[] { length - 1, length / 2, 8 }) {
+            Path copy = dir.resolve("truncated-" + cut + ".woa");
+            Files.copy(file, copy);
+            try (FileChannel channel = FileChannel.open(copy, StandardOpenOption.WRITE)) {
+                channel.truncate(cut);
+            }
+            assertThrows(IOException.class, () -> ObservationArchive.open(copy), "cut at " + cut + " of " + length);
+        }
+    }
+
+    @Test
+    void fileThatIsNotAnArchiveIsRejected() throws IOException {
+        Path file = Files.write(dir.resolve("other.woa"), "{\"cod\":200}".getBytes());
+        assertThrows(IOException.class, () -> ObservationArchive.open(file));
+    }
+
+    // Temperatures and wind speeds are stored in hundredths, which every value above is exact in.
+    private static void assertSameWeather(WeatherData expected, WeatherData actual) {
+        assertEquals(expected.getCityId(), actual.getCityId());
+        assertEquals(expected.getCityName(), actual.getCityName());
+        assertEquals(expected.getTemperature(), actual.getTemperature());
+        assertEquals(expected.getDescription(), actual.getDescription());
+        assertEquals(expected.getIconCode(), actual.getIconCode());
+        assertEquals(expected.getWindSpeed(), actual.getWindSpeed());
+        assertEquals(expected.getHumidity(), actual.getHumidity());
+        assertEquals(expected.getSunrise(), actual.getSunrise());
+        assertEquals(expected.getSunset(), actual.getSunset());
+        assertEquals(expected.getObservedAt(), actual.getObservedAt());
+    }
+}